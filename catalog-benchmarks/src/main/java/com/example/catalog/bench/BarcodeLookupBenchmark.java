@@ -0,0 +1,62 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.service.BarcodeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Resolving a scanned barcode to a copy id: the packed BarcodeIndex against a HashMap<String, Integer>
+// holding the same entries (which costs a node, a String and an Integer per copy).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarcodeLookupBenchmark {
+
+	@Param({"1000000"})
+	public int copies;
+
+	private BarcodeIndex index;
+	private Map<String, Integer> map;
+	private String[] scans;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void build() {
+		index = new BarcodeIndex(null);
+		map = new HashMap<>();
+		for (int id = 1; id <= copies; id++) {
+			String barcode = String.format("LIB%09d", id * 7L);
+			index.copyAdded(id, barcode, id / 4, CopyStatus.AVAILABLE);
+			map.put(barcode, id);
+		}
+		scans = new String[4096];
+		for (int i = 0; i < scans.length; i++) scans[i] = String.format("LIB%09d", (1 + (i * 7919L) % copies) * 7);
+	}
+
+	@Benchmark
+	public int index() {
+		return index.copyId(scans[next++ & (scans.length - 1)]);
+	}
+
+	@Benchmark
+	public Integer hashMap() {
+		return map.get(scans[next++ & (scans.length - 1)]);
+	}
+}
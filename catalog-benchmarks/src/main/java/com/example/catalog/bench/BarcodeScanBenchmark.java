@@ -0,0 +1,103 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.controller.BorrowController;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookRepository;
+import com.example.catalog.service.BarcodeIndex;
+import com.example.catalog.service.CatalogWarmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What a scanner pays to resolve a barcode: the in-memory BarcodeIndex against the barcode query it
+// replaces, and a whole scanned borrow + return, on the embedded H2 database of CirculationBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarcodeScanBenchmark {
+
+	@Param({"10000"})
+	public int copies;
+
+	private ConfigurableApplicationContext ctx;
+	private BarcodeIndex barcodes;
+	private BookCopyRepository copyRepo;
+	private BorrowController borrows;
+	private ObjectMapper mapper;
+	private String[] scans;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void start() {
+		ctx = CirculationBenchmark.EmbeddedCatalog.start();
+		barcodes = ctx.getBean(BarcodeIndex.class);
+		copyRepo = ctx.getBean(BookCopyRepository.class);
+		borrows = ctx.getBean(BorrowController.class);
+		mapper = ctx.getBean(ObjectMapper.class);
+
+		Book book = new Book();
+		book.setTitle("Scanned Title");
+		book = ctx.getBean(BookRepository.class).save(book);
+		List<BookCopy> batch = new ArrayList<>(copies);
+		for (int i = 0; i < copies; i++) {
+			BookCopy c = new BookCopy();
+			c.setBook(book);
+			c.setBarcode(String.format("SCAN%08d", i));
+			c.setStatus(CopyStatus.AVAILABLE);
+			batch.add(c);
+		}
+		copyRepo.saveAll(batch);
+		// saved behind the controllers' back, so the index is seeded the way startup does it
+		ctx.getBean(CatalogWarmup.class).rebuildBarcodeIndex();
+
+		scans = new String[1024];
+		for (int i = 0; i < scans.length; i++) scans[i] = String.format("SCAN%08d", (i * 7919L) % copies);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public Object index() {
+		return barcodes.find(scans[next++ & (scans.length - 1)]).orElseThrow();
+	}
+
+	@Benchmark
+	public Object query() {
+		return copyRepo.findByBarcode(scans[next++ & (scans.length - 1)]).orElseThrow();
+	}
+
+	@Benchmark
+	public Object scannedBorrowReturn() throws Exception {
+		String barcode = scans[next++ & (scans.length - 1)];
+		ResponseEntity<?> issued = borrows.borrowSpecific(
+				mapper.readTree("{\"barcode\":\"" + barcode + "\",\"userId\":7}"));
+		if (issued.getStatusCode().value() != 200) return issued;
+		return borrows.returnCopy(mapper.readTree("{\"barcode\":\"" + barcode + "\"}"));
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.controller.BorrowController;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Borrow-then-return through the real controller, repositories and transactions,
+// on an embedded H2 database in MySQL mode.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CirculationBenchmark {
+
+	// copies of the one title being circulated; fewer copies means more contention with -t > 1
+	@Param({"64"})
+	public int copies;
+
+	private ConfigurableApplicationContext ctx;
+	private BorrowController borrows;
+	private ObjectMapper mapper;
+	private Integer bookId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		ctx = EmbeddedCatalog.start();
+		borrows = ctx.getBean(BorrowController.class);
+		mapper = ctx.getBean(ObjectMapper.class);
+
+		Book book = new Book();
+		book.setTitle("Benchmark Title");
+		book = ctx.getBean(BookRepository.class).save(book);
+		bookId = book.getId();
+		BookCopyRepository copyRepo = ctx.getBean(BookCopyRepository.class);
+		for (int i = 0; i < copies; i++) {
+			BookCopy c = new BookCopy();
+			c.setBook(book);
+			c.setBarcode("BENCH-" + i);
+			c.setStatus(CopyStatus.AVAILABLE);
+			copyRepo.save(c);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public Object borrowReturnCycle() throws Exception {
+		ResponseEntity<?> issued = borrows.borrowByBook(mapper.readTree("{\"bookId\":" + bookId + ",\"userId\":7}"));
+		if (issued.getStatusCode().value() != 200) return issued;
+		Object borrowId = ((Map<?, ?>) issued.getBody()).get("borrowId");
+		return borrows.returnCopy(mapper.readTree("{\"borrowId\":" + borrowId + "}"));
+	}
+
+	static final class EmbeddedCatalog {
+
+		private EmbeddedCatalog() {}
+
+		// command-line args outrank the service's application.properties (MySQL)
+		static ConfigurableApplicationContext start() {
+			return new SpringApplicationBuilder(CatalogServiceApplication.class)
+					.web(WebApplicationType.NONE)
+					.logStartupInfo(false)
+					.run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+							"--spring.datasource.username=sa",
+							"--spring.datasource.password=",
+							"--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+							"--spring.jpa.hibernate.ddl-auto=create-drop",
+							"--spring.jpa.show-sql=false",
+							"--spring.flyway.enabled=false",
+							"--catalog.overdue.cron=-",
+							"--catalog.holds.expiry-cron=-",
+							"--logging.level.root=WARN");
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.controller.BorrowController;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookRepository;
+import com.example.catalog.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A release-day rush: every patron wants the same title, which has only a few copies. Each patron
+// borrows it once and returns it at once. "retry" patrons ask again after every 409; "hold" patrons
+// queue a hold, wait for it to become READY and borrow the copy set aside for them. Each run prints
+// the borrow requests the service had to answer per patron.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class HoldRushBenchmark {
+
+	@Param({"retry", "hold"})
+	public String strategy;
+
+	@Param({"10000"})
+	public int patrons;
+
+	@Param({"5"})
+	public int copies;
+
+	// patrons at the desk at once
+	@Param({"64"})
+	public int threads;
+
+	private ConfigurableApplicationContext ctx;
+	private BorrowController borrows;
+	private HoldService holds;
+	private ObjectMapper mapper;
+	private ExecutorService pool;
+	private Integer bookId;
+	private final AtomicLong attempts = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void start() {
+		ctx = CirculationBenchmark.EmbeddedCatalog.start();
+		borrows = ctx.getBean(BorrowController.class);
+		holds = ctx.getBean(HoldService.class);
+		mapper = ctx.getBean(ObjectMapper.class);
+		pool = Executors.newFixedThreadPool(threads);
+
+		Book book = new Book();
+		book.setTitle("Release Day");
+		book = ctx.getBean(BookRepository.class).save(book);
+		bookId = book.getId();
+		BookCopyRepository copyRepo = ctx.getBean(BookCopyRepository.class);
+		for (int i = 0; i < copies; i++) {
+			BookCopy c = new BookCopy();
+			c.setBook(book);
+			c.setBarcode("RUSH-" + i);
+			c.setStatus(CopyStatus.AVAILABLE);
+			copyRepo.save(c);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void resetCount() {
+		attempts.set(0);
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() {
+		System.out.printf("%n%s: %d borrow requests for %d patrons (%.2f per patron)%n",
+				strategy, attempts.get(), patrons, (double) attempts.get() / patrons);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		pool.shutdownNow();
+		ctx.close();
+	}
+
+	@Benchmark
+	public void rush() throws Exception {
+		boolean hold = "hold".equals(strategy);
+		List<Future<?>> served = new ArrayList<>(patrons);
+		for (int i = 0; i < patrons; i++) {
+			int userId = 1000 + i;
+			served.add(pool.submit(() -> {
+				Object borrowId = hold ? borrowWithHold(userId) : borrowWithRetry(userId);
+				borrows.returnCopy(mapper.readTree("{\"borrowId\":" + borrowId + "}"));
+				return null;
+			}));
+		}
+		for (Future<?> f : served) f.get();
+	}
+
+	private Object borrowWithRetry(int userId) throws Exception {
+		while (true) {
+			ResponseEntity<?> r = borrow(userId, false);
+			if (r.getStatusCode().value() == 200) return ((Map<?, ?>) r.getBody()).get("borrowId");
+			Thread.sleep(1);
+		}
+	}
+
+	private Object borrowWithHold(int userId) throws Exception {
+		while (true) {
+			ResponseEntity<?> r = borrow(userId, true);
+			if (r.getStatusCode().value() == 200) return ((Map<?, ?>) r.getBody()).get("borrowId");
+			// 202: the hold; block as the long poll would until a copy is set aside
+			holds.whenSettled((Integer) ((Map<?, ?>) r.getBody()).get("holdId")).get();
+		}
+	}
+
+	private ResponseEntity<?> borrow(int userId, boolean hold) throws Exception {
+		attempts.incrementAndGet();
+		return borrows.borrowByBook(mapper.readTree(
+				"{\"bookId\":" + bookId + ",\"userId\":" + userId + ",\"hold\":" + hold + "}"));
+	}
+}
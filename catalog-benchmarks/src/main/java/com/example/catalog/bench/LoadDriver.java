@@ -0,0 +1,144 @@
+package com.example.catalog.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop HTTP load generator for comparing the catalog-service thread models.
+// Each of N clients sends its next request as soon as the previous one completes, for a
+// fixed duration per concurrency level; throughput and latency percentiles go to stdout
+// and are appended to a CSV so runs of the platform and virtual-thread modes line up.
+//
+//   java -cp target/benchmarks.jar com.example.catalog.bench.LoadDriver \
+//       --url http://localhost:8081/api/catalog/books?size=20 \
+//       --concurrency 1000,2000,5000,10000 --duration 30s --label platform --out thread-models.csv
+public final class LoadDriver {
+
+	private final HttpClient http;
+	private final HttpRequest request;
+
+	private LoadDriver(URI url, Duration timeout) {
+		this.http = HttpClient.newBuilder()
+				.executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2))
+				.connectTimeout(timeout)
+				.build();
+		this.request = HttpRequest.newBuilder(url).timeout(timeout).GET().build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		String url = arg(args, "--url", "http://localhost:8081/api/catalog/books?size=20");
+		String label = arg(args, "--label", "run");
+		String out = arg(args, "--out", "thread-models.csv");
+		Duration duration = parseDuration(arg(args, "--duration", "30s"));
+		Duration warmup = parseDuration(arg(args, "--warmup", "5s"));
+		Duration timeout = parseDuration(arg(args, "--timeout", "30s"));
+		int[] levels = Arrays.stream(arg(args, "--concurrency", "1000,2000,5000,10000").split(","))
+				.mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+		LoadDriver driver = new LoadDriver(URI.create(url), timeout);
+		driver.run(Math.min(levels[0], 100), warmup);
+
+		System.out.println("label,concurrency,requests,errors,req_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+		for (int clients : levels) {
+			Result r = driver.run(clients, duration);
+			String line = r.csv(label, clients);
+			System.out.println(line);
+			append(Path.of(out), line);
+		}
+		System.exit(0);
+	}
+
+	private Result run(int clients, Duration duration) {
+		long deadline = System.nanoTime() + duration.toNanos();
+		AtomicLong errors = new AtomicLong();
+		List<CompletableFuture<long[]>> loops = new ArrayList<>(clients);
+		for (int i = 0; i < clients; i++) {
+			loops.add(loop(deadline, new Recorder(), errors));
+		}
+		long start = System.nanoTime();
+		long[] all = loops.stream().map(CompletableFuture::join)
+				.flatMapToLong(Arrays::stream).toArray();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Arrays.sort(all);
+		return new Result(all, errors.get(), seconds);
+	}
+
+	private CompletableFuture<long[]> loop(long deadline, Recorder rec, AtomicLong errors) {
+		if (System.nanoTime() >= deadline) return CompletableFuture.completedFuture(rec.toArray());
+		long sent = System.nanoTime();
+		return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.handle((res, ex) -> {
+					if (ex != null || res.statusCode() >= 400) errors.incrementAndGet();
+					else rec.add(System.nanoTime() - sent);
+					return null;
+				})
+				.thenCompose(ignored -> loop(deadline, rec, errors));
+	}
+
+	private static void append(Path out, String line) throws IOException {
+		boolean header = !Files.exists(out);
+		try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+			if (header) w.println("label,concurrency,requests,errors,req_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+			w.println(line);
+		}
+	}
+
+	private static String arg(String[] args, String name, String def) {
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals(name)) return args[i + 1];
+		}
+		return def;
+	}
+
+	private static Duration parseDuration(String s) {
+		if (s.endsWith("ms")) return Duration.ofMillis(Long.parseLong(s.substring(0, s.length() - 2)));
+		if (s.endsWith("s")) return Duration.ofSeconds(Long.parseLong(s.substring(0, s.length() - 1)));
+		if (s.endsWith("m")) return Duration.ofMinutes(Long.parseLong(s.substring(0, s.length() - 1)));
+		return Duration.ofSeconds(Long.parseLong(s));
+	}
+
+	// per-client latency log; one client only ever touches its own recorder
+	private static final class Recorder {
+		private long[] nanos = new long[256];
+		private int size;
+
+		void add(long v) {
+			if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+			nanos[size++] = v;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(nanos, size);
+		}
+	}
+
+	private record Result(long[] sortedNanos, long errors, double seconds) {
+
+		double percentileMillis(double p) {
+			if (sortedNanos.length == 0) return 0;
+			int idx = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+			return sortedNanos[Math.max(idx, 0)] / 1e6;
+		}
+
+		String csv(String label, int clients) {
+			return String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f",
+					label, clients, sortedNanos.length, errors, sortedNanos.length / seconds,
+					percentileMillis(0.50), percentileMillis(0.90), percentileMillis(0.99),
+					percentileMillis(0.999), percentileMillis(1.0));
+		}
+	}
+}
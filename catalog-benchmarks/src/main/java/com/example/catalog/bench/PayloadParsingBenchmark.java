@@ -0,0 +1,78 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.dto.BorrowPayload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Request-body handling of the borrow endpoints: tree parsing plus the lenient id lookups.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadParsingBenchmark {
+
+	private static final String FLAT = "{\"bookId\":42,\"userId\":7,\"days\":14}";
+	// worst case for resolveUserIdFromNode: string ids, user id nested under "user"
+	private static final String NESTED = "{\"bookId\":\"42\",\"user\":{\"fullName\":\"A Reader\",\"id\":\"7\"},\"days\":\"21\"}";
+	private static final String BATCH = "{\"userId\":7,\"bookCopyIds\":[1,2,3,4,5,6,7,8,9,10],"
+			+ "\"barcodes\":[\"BC-0001\",\"BC-0002\",\"BC-0003\",\"BC-0004\",\"BC-0005\"]}";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private JsonNode flat;
+	private JsonNode nested;
+
+	@Setup
+	public void setup() throws Exception {
+		flat = mapper.readTree(FLAT);
+		nested = mapper.readTree(NESTED);
+	}
+
+	@Benchmark
+	public Integer resolveUserIdFlat() {
+		return BorrowPayload.resolveUserIdFromNode(flat);
+	}
+
+	@Benchmark
+	public Integer resolveUserIdNested() {
+		return BorrowPayload.resolveUserIdFromNode(nested);
+	}
+
+	@Benchmark
+	public void intOrNullMixed(Blackhole bh) {
+		bh.consume(BorrowPayload.intOrNull(flat.get("bookId")));
+		bh.consume(BorrowPayload.intOrNull(nested.get("bookId")));
+		bh.consume(BorrowPayload.intOrNull(nested.get("missing")));
+	}
+
+	// what borrowByBook does per request before touching the database
+	@Benchmark
+	public void parseBorrowByBook(Blackhole bh) throws Exception {
+		JsonNode body = mapper.readTree(NESTED);
+		bh.consume(BorrowPayload.intOrNull(body.get("bookId")));
+		bh.consume(BorrowPayload.resolveUserIdFromNode(body));
+		bh.consume(BorrowPayload.intOrNull(body.get("days")));
+	}
+
+	@Benchmark
+	public void parseBatch(Blackhole bh) throws Exception {
+		JsonNode body = mapper.readTree(BATCH);
+		bh.consume(BorrowPayload.resolveUserIdFromNode(body));
+		bh.consume(BorrowPayload.intList(body.get("bookCopyIds")));
+		bh.consume(BorrowPayload.textList(body.get("barcodes")));
+	}
+}
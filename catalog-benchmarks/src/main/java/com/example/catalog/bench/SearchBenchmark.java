@@ -0,0 +1,134 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.Publisher;
+import com.example.catalog.service.BookSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A search box query against BookSearchIndex, next to the title scan the endpoint falls back to
+// while the index is not ready (the in-memory equivalent of title LIKE '%q%'). Run with
+// -bm sample to get the p99 the index is meant to keep low; "put" is the cost of one update.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+	private static final String[] SYLLABLES = {
+			"ka", "lo", "mi", "ren", "sta", "vel", "dor", "an", "this", "gu",
+			"mar", "el", "pon", "ri", "ther", "os", "wyn", "cal", "ne", "tu"};
+	private static final String[] NAMES = {
+			"Adams", "Brontë", "Calvino", "Dickens", "Eliot", "Faulkner", "García", "Hesse", "Ishiguro", "Joyce",
+			"Kafka", "Lessing", "Mann", "Nabokov", "Orwell", "Pamuk", "Roth", "Sebald", "Tolstoy", "Woolf"};
+
+	// 8000 made-up words drawn with a skew, so a few are in thousands of titles and most in a handful
+	private static final String[] WORDS = new String[SYLLABLES.length * SYLLABLES.length * SYLLABLES.length];
+
+	static {
+		int n = 0;
+		for (String a : SYLLABLES) for (String b : SYLLABLES) for (String c : SYLLABLES) WORDS[n++] = a + b + c;
+	}
+
+	@Param({"100000"})
+	public int books;
+
+	// prefix: one short token expanding to many terms; exact: one whole word;
+	// multi: title words plus an author, the usual shape of a typed query
+	@Param({"prefix", "exact", "multi"})
+	public String shape;
+
+	private BookSearchIndex index;
+	private List<Book> catalog;
+	private String[] queries;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void build() {
+		Random rnd = new Random(42);
+		catalog = new ArrayList<>(books);
+		for (int id = 1; id <= books; id++) {
+			catalog.add(book(id, rnd));
+		}
+		index = new BookSearchIndex();
+		index.rebuild(catalog.iterator());
+
+		queries = new String[1024];
+		for (int i = 0; i < queries.length; i++) {
+			String word = word(rnd);
+			queries[i] = switch (shape) {
+				case "prefix" -> word.substring(0, 2);
+				case "exact" -> word;
+				default -> word + " " + word(rnd) + " " + NAMES[rnd.nextInt(NAMES.length)];
+			};
+		}
+	}
+
+	@Benchmark
+	public List<Integer> index() {
+		return index.search(queries[next++ & (queries.length - 1)], 20);
+	}
+
+	@Benchmark
+	public List<Integer> titleScan() {
+		String q = queries[next++ & (queries.length - 1)].toLowerCase(Locale.ROOT);
+		List<Integer> out = new ArrayList<>();
+		for (Book b : catalog) {
+			if (b.getTitle().toLowerCase(Locale.ROOT).contains(q)) out.add(b.getId());
+		}
+		return out;
+	}
+
+	@Benchmark
+	public void put() {
+		Book b = catalog.get(next++ % catalog.size());
+		index.put(b);
+	}
+
+	private static Book book(int id, Random rnd) {
+		Book b = new Book();
+		b.setId(id);
+		b.setTitle(cap(word(rnd)) + " of the " + cap(word(rnd))
+				+ " " + cap(word(rnd)) + " " + id);
+		b.setIsbn(String.format("978-0-%02d-%06d-%d", id % 100, id, id % 10));
+		Author a = new Author();
+		a.setFirstName(cap(word(rnd)));
+		a.setLastName(NAMES[rnd.nextInt(NAMES.length)]);
+		b.setAuthor(a);
+		Publisher p = new Publisher();
+		p.setName(cap(word(rnd)) + " Press");
+		b.setPublisher(p);
+		Category c = new Category();
+		c.setName(cap(word(rnd)));
+		b.setCategory(c);
+		return b;
+	}
+
+	private static String word(Random rnd) {
+		return WORDS[(int) (WORDS.length * Math.pow(rnd.nextDouble(), 3))];
+	}
+
+	private static String cap(String w) {
+		return Character.toUpperCase(w.charAt(0)) + w.substring(1);
+	}
+}
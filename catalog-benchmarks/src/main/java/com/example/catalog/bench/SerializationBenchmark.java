@@ -0,0 +1,125 @@
+package com.example.catalog.bench;
+
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Publisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON rendering of listing responses, using the same Jackson setup Spring MVC uses.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int size;
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+	private List<Book> books;
+	private List<BookCopy> copies;
+	private List<Borrow> borrows;
+
+	@Setup
+	public void setup() {
+		books = new ArrayList<>(size);
+		copies = new ArrayList<>(size);
+		borrows = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			Book b = Fixtures.book(i);
+			books.add(b);
+			copies.add(Fixtures.copy(i, b));
+			borrows.add(Fixtures.borrow(i, i, b.getId()));
+		}
+	}
+
+	@Benchmark
+	public byte[] books() throws Exception {
+		return mapper.writeValueAsBytes(books);
+	}
+
+	@Benchmark
+	public byte[] copies() throws Exception {
+		return mapper.writeValueAsBytes(copies);
+	}
+
+	@Benchmark
+	public byte[] borrows() throws Exception {
+		return mapper.writeValueAsBytes(borrows);
+	}
+
+	static final class Fixtures {
+
+		private Fixtures() {}
+
+		static Book book(int id) {
+			Author a = new Author();
+			a.setId(id % 500);
+			a.setFirstName("Author");
+			a.setLastName("Number " + (id % 500));
+			Publisher p = new Publisher();
+			p.setId(id % 50);
+			p.setName("Publisher " + (id % 50));
+			p.setCity("Pune");
+			p.setCountry("India");
+			Category c = new Category();
+			c.setId(id % 20);
+			c.setName("Category " + (id % 20));
+
+			Book b = new Book();
+			b.setId(id);
+			b.setTitle("A Reasonably Long Book Title, Volume " + id);
+			b.setIsbn(String.format("978-0-%06d-%d", id, id % 10));
+			b.setAuthor(a);
+			b.setPublisher(p);
+			b.setCategory(c);
+			b.setPublicationYear(1950 + id % 70);
+			b.setShelfLocation("R" + (id % 40) + "-S" + (id % 6));
+			return b;
+		}
+
+		static BookCopy copy(int id, Book book) {
+			BookCopy c = new BookCopy();
+			c.setId(id);
+			c.setBook(book);
+			c.setBarcode(String.format("BC-%08d", id));
+			c.setStatus(id % 3 == 0 ? CopyStatus.ISSUED : CopyStatus.AVAILABLE);
+			return c;
+		}
+
+		static Borrow borrow(int id, int copyId, int bookId) {
+			Borrow b = new Borrow();
+			b.setBorrowId(id);
+			b.setUserId(id % 1000);
+			b.setBookCopyId(copyId);
+			b.setBookId(bookId);
+			b.setIssuedOn(LocalDate.of(2024, 1, 1).plusDays(id % 300));
+			b.setDueOn(b.getIssuedOn().plusDays(14));
+			b.setStatus(Borrow.BorrowStatus.ACTIVE);
+			return b;
+		}
+	}
+}
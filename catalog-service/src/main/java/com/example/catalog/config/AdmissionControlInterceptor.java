@@ -0,0 +1,195 @@
+package com.example.catalog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the transactional circulation endpoints from queueing inside the connection pool, where
+// a request waits until the pool times out and catalog reads stall behind it:
+//  - each route runs at most its bulkhead's requests at once, so together they leave connections free for reads;
+//  - each patron gets a token bucket, and each client address a larger one that all its requests share
+//    (429 with Retry-After when either is empty), see patronKey;
+//  - a request waits at most max-queue-wait for its route. Once one has waited longer than
+//    shed-threshold the route is saturated, and for shed-window every request that cannot start
+//    at once gets a 503 with Retry-After instead of joining the queue.
+// Meters: catalog.admission.limit / in.flight (gauges), catalog.admission.queue.wait (timer) and
+// catalog.admission.rejected{reason=rate_limited|queue_timeout|shed}, all tagged with the route.
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+	private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+
+	private final AdmissionProperties props;
+	private final MeterRegistry registry;
+	private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+	private final Cache<String, TokenBucket> buckets;
+
+	public AdmissionControlInterceptor(AdmissionProperties props, MeterRegistry registry) {
+		this.props = props;
+		this.registry = registry;
+		props.getBulkheads().forEach((route, limit) -> bulkheads.put(route, new Bulkhead(route, limit)));
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(props.getMaxTrackedUsers())
+				// an idle bucket is full again after burst / rate seconds; dropping it then changes nothing
+				.expireAfterAccess(Duration.ofMillis(Math.max(refillMillis(props.getUserBurst(), props.getUserRate()),
+						refillMillis(props.getAddressBurst(), props.getAddressRate()))))
+				.build();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		if (!props.isEnabled()) return true;
+		String route = route(request);
+
+		if (props.getUserRate() > 0) {
+			long retryNanos = buckets.get(addressKey(request),
+					k -> new TokenBucket(props.getAddressRate(), props.getAddressBurst())).take();
+			String patron = patronKey(request);
+			if (retryNanos == 0 && patron != null) {
+				retryNanos = buckets.get(patron, k -> new TokenBucket(props.getUserRate(), props.getUserBurst())).take();
+			}
+			if (retryNanos > 0) return reject(response, route, 429, "rate_limited", Duration.ofNanos(retryNanos), "Too many requests");
+		}
+
+		Bulkhead bulkhead = bulkheads.get(route);
+		if (bulkhead == null) return true;
+		String refused = bulkhead.acquire();
+		if (refused != null) return reject(response, route, 503, refused, props.getShedWindow(), "Server busy, retry shortly");
+		request.setAttribute(PERMIT, bulkhead);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if (request.getAttribute(PERMIT) instanceof Bulkhead bulkhead) {
+			request.removeAttribute(PERMIT);
+			bulkhead.permits.release();
+		}
+	}
+
+	private boolean reject(HttpServletResponse response, String route, int status, String reason,
+						   Duration retryAfter, String message) throws IOException {
+		Counter.builder("catalog.admission.rejected")
+				.description("Circulation requests turned away by admission control")
+				.tag("route", route)
+				.tag("reason", reason)
+				.register(registry)
+				.increment();
+		response.setStatus(status);
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getWriter().write("{\"error\":\"" + message + "\"}");
+		return false;
+	}
+
+	private static String route(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return pattern != null ? pattern.toString() : "UNKNOWN";
+	}
+
+	// The patron a request is for: the authenticated user when there is one, else (the app has no
+	// sign-in) the userId the circulation endpoints take, from the path or the JSON body (PatronIdFilter);
+	// null when it names none. A client may name any patron, so the address bucket still bounds it.
+	static String patronKey(HttpServletRequest request) {
+		Principal user = request.getUserPrincipal();
+		if (user != null && user.getName() != null) return "u:" + user.getName();
+		Object patron = request.getAttribute(PatronIdFilter.PATRON_ID);
+		if (patron == null && request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> vars) {
+			patron = vars.get("userId");
+		}
+		return patron != null ? "p:" + patron : null;
+	}
+
+	// behind a proxy, server.forward-headers-strategy makes the address the client's
+	private static String addressKey(HttpServletRequest request) {
+		return "a:" + request.getRemoteAddr();
+	}
+
+	private static long refillMillis(int burst, double perSecond) {
+		return (long) Math.ceil(1000.0 * burst / Math.max(perSecond, 0.001));
+	}
+
+	private final class Bulkhead {
+		final Semaphore permits;
+		final Timer queueWait;
+		volatile long shedUntil;
+
+		Bulkhead(String route, int limit) {
+			this.permits = new Semaphore(limit);
+			this.shedUntil = System.nanoTime();
+			Gauge.builder("catalog.admission.limit", () -> limit)
+					.description("Requests a route may run at once")
+					.tag("route", route)
+					.register(registry);
+			Gauge.builder("catalog.admission.in.flight", permits, p -> limit - p.availablePermits())
+					.description("Requests a route is running now")
+					.tag("route", route)
+					.register(registry);
+			this.queueWait = Timer.builder("catalog.admission.queue.wait")
+					.description("Time admitted requests waited for their route's limit")
+					.tag("route", route)
+					.register(registry);
+		}
+
+		// null when admitted, else the reason for turning the request away
+		String acquire() {
+			if (permits.tryAcquire()) return null;
+			long start = System.nanoTime();
+			if (start - shedUntil < 0) return "shed";
+			boolean acquired;
+			try {
+				acquired = permits.tryAcquire(props.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return "shed";
+			}
+			long waited = System.nanoTime() - start;
+			if (waited > props.getShedThreshold().toNanos()) shedUntil = System.nanoTime() + props.getShedWindow().toNanos();
+			if (!acquired) return "queue_timeout";
+			queueWait.record(waited, TimeUnit.NANOSECONDS);
+			return null;
+		}
+	}
+
+	// Refilled lazily from the time since the last take; one lock per patron, held for a few arithmetic ops
+	static final class TokenBucket {
+		private final double perNano;
+		private final double capacity;
+		private double tokens;
+		private long refilledAt = System.nanoTime();
+
+		TokenBucket(double perSecond, int burst) {
+			this.perNano = perSecond / 1e9;
+			this.capacity = Math.max(1, burst);
+			this.tokens = capacity;
+		}
+
+		// 0 when a token was taken, else nanos until the next one
+		synchronized long take() {
+			long now = System.nanoTime();
+			tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+			refilledAt = now;
+			if (tokens >= 1) {
+				tokens -= 1;
+				return 0;
+			}
+			return (long) Math.ceil((1 - tokens) / perNano);
+		}
+	}
+}
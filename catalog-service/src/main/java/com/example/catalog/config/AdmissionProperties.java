@@ -0,0 +1,65 @@
+package com.example.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Admission control on the circulation endpoints (catalog.admission.*): a concurrency limit per route,
+// a token bucket per patron, and shedding once requests start queueing for the limit, e.g.
+//   catalog.admission.bulkheads[/api/catalog/borrow/book]=4
+@ConfigurationProperties(prefix = "catalog.admission")
+public class AdmissionProperties {
+
+	private boolean enabled = true;
+
+	// route pattern as mapped in the controller -> requests it may run at once; unlisted routes are not limited
+	private Map<String, Integer> bulkheads = new LinkedHashMap<>();
+
+	// longest a request waits for its route's limit before a 503
+	private Duration maxQueueWait = Duration.ofMillis(250);
+
+	// once a request has waited this long, requests that would have to wait are shed at once for shed-window
+	private Duration shedThreshold = Duration.ofMillis(50);
+	private Duration shedWindow = Duration.ofSeconds(1);
+
+	// per patron: sustained requests per second and burst; 0 disables rate limiting
+	private double userRate = 5;
+	private int userBurst = 20;
+	// per client address, on top of the patron's; one address can front a whole kiosk or a NAT
+	// of patrons, so it gets more
+	private double addressRate = 50;
+	private int addressBurst = 200;
+	private int maxTrackedUsers = 100_000;
+
+	public boolean isEnabled() { return enabled; }
+	public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+	public Map<String, Integer> getBulkheads() { return bulkheads; }
+	public void setBulkheads(Map<String, Integer> bulkheads) { this.bulkheads = bulkheads; }
+
+	public Duration getMaxQueueWait() { return maxQueueWait; }
+	public void setMaxQueueWait(Duration maxQueueWait) { this.maxQueueWait = maxQueueWait; }
+
+	public Duration getShedThreshold() { return shedThreshold; }
+	public void setShedThreshold(Duration shedThreshold) { this.shedThreshold = shedThreshold; }
+
+	public Duration getShedWindow() { return shedWindow; }
+	public void setShedWindow(Duration shedWindow) { this.shedWindow = shedWindow; }
+
+	public double getUserRate() { return userRate; }
+	public void setUserRate(double userRate) { this.userRate = userRate; }
+
+	public int getUserBurst() { return userBurst; }
+	public void setUserBurst(int userBurst) { this.userBurst = userBurst; }
+
+	public double getAddressRate() { return addressRate; }
+	public void setAddressRate(double addressRate) { this.addressRate = addressRate; }
+
+	public int getAddressBurst() { return addressBurst; }
+	public void setAddressBurst(int addressBurst) { this.addressBurst = addressBurst; }
+
+	public int getMaxTrackedUsers() { return maxTrackedUsers; }
+	public void setMaxTrackedUsers(int maxTrackedUsers) { this.maxTrackedUsers = maxTrackedUsers; }
+}
@@ -0,0 +1,33 @@
+package com.example.catalog.config;
+
+import com.example.catalog.service.CatalogWarmup;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background work of a serving instance: the @Scheduled jobs (overdue pass, availability reconcile,
+// hold expiry), the startup warmup and the replica lag monitor (ReadReplicaConfig, on the same
+// SERVING condition). None of it runs in a command-line import or export (CatalogImportRunner,
+// CatalogExportRunner), which shares the database with the serving instances and exits when done;
+// with no lag checks its replicas are never marked healthy, so its reads stay on the primary.
+@Configuration
+@EnableScheduling
+@ConditionalOnExpression(BackgroundJobsConfig.SERVING)
+public class BackgroundJobsConfig {
+
+	// true unless catalog.import.file or catalog.export.dir makes this process a command-line run
+	public static final String SERVING = "'${catalog.import.file:}${catalog.export.dir:}'.isEmpty()";
+
+	private final CatalogWarmup warmup;
+
+	public BackgroundJobsConfig(CatalogWarmup warmup) {
+		this.warmup = warmup;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		warmup.warmUp();
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.catalog.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Counts borrow and return requests by outcome (catalog.circulation.outcomes{operation,outcome}).
+// Runs after completion, so the outcome is the status the client got, after the transaction
+// committed or failed, not the one the controller meant to send.
+public class CirculationOutcomeInterceptor implements HandlerInterceptor {
+
+	public static final String METER = "catalog.circulation.outcomes";
+
+	private final MeterRegistry registry;
+
+	public CirculationOutcomeInterceptor(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		String operation = request.getRequestURI().endsWith("/return") ? "return" : "borrow";
+		Counter.builder(METER)
+				.description("Borrow and return requests by outcome")
+				.tag("operation", operation)
+				.tag("outcome", outcome(operation, response.getStatus(), ex))
+				.register(registry)
+				.increment();
+	}
+
+	private static String outcome(String operation, int status, Exception ex) {
+		// turned away by admission control before reaching the controller
+		if (ex == null && status == 503) return "shed";
+		if (ex != null || status >= 500) return "error";
+		// 202 from a borrow: no copy free, the patron joined the hold queue
+		if (status == 202) return "held";
+		if (status >= 200 && status < 300) return operation.equals("return") ? "returned" : "issued";
+		return switch (status) {
+			case 404 -> "not_found";
+			case 409 -> "no_copy";
+			case 400 -> "bad_request";
+			case 429 -> "rate_limited";
+			default -> "other";
+		};
+	}
+}
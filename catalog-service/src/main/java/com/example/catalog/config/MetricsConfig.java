@@ -0,0 +1,34 @@
+package com.example.catalog.config;
+
+import com.example.catalog.service.AvailabilityCounters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Application meters on top of what Boot instruments by itself (HTTP server and client requests,
+// Hikari pool, Hibernate statistics, JVM), all scraped from /actuator/prometheus. Borrow and
+// return outcomes are counted by CirculationOutcomeInterceptor (registered in WebConfig).
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public MeterBinder copyGauges(AvailabilityCounters availability) {
+		return registry -> {
+			Gauge.builder("catalog.copies.total", availability, AvailabilityCounters::totalCopies)
+					.description("Copies in the catalog")
+					.register(registry);
+			Gauge.builder("catalog.copies.available", availability, AvailabilityCounters::availableCopies)
+					.description("Copies on the shelf, ready to borrow")
+					.register(registry);
+		};
+	}
+
+	@Bean
+	public SlowTraceHandler slowTraceHandler(@Value("${catalog.tracing.slow-threshold:500ms}") Duration threshold) {
+		return new SlowTraceHandler(threshold);
+	}
+}
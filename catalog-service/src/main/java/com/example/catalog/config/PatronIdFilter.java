@@ -0,0 +1,110 @@
+package com.example.catalog.config;
+
+import com.example.catalog.dto.BorrowPayload;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Reads the patron a circulation request is for (its JSON body's userId, see BorrowPayload) before
+// the interceptors run, so admission control and read-your-writes can key on the patron: the app
+// has no sign-in. The body is buffered and replayed to the controller; one without a declared
+// length, or over MAX_BODY, passes through unread.
+public class PatronIdFilter extends OncePerRequestFilter {
+
+	static final String PATRON_ID = PatronIdFilter.class.getName() + ".patronId";
+	private static final int MAX_BODY = 64 * 1024;
+
+	private final ObjectMapper mapper;
+
+	public PatronIdFilter(ObjectMapper mapper) {
+		this.mapper = mapper;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long length = request.getContentLengthLong();
+		if (length <= 0 || length > MAX_BODY || !isJson(request)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		byte[] body = request.getInputStream().readAllBytes();
+		try {
+			Integer patron = BorrowPayload.resolveUserIdFromNode(mapper.readTree(body));
+			if (patron != null) request.setAttribute(PATRON_ID, patron);
+		} catch (JsonProcessingException ignored) {
+			// the controller answers a malformed body
+		}
+		chain.doFilter(new Replay(request, body), response);
+	}
+
+	private static boolean isJson(HttpServletRequest request) {
+		try {
+			return request.getContentType() != null
+					&& MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static final class Replay extends HttpServletRequestWrapper {
+		private final byte[] body;
+
+		Replay(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener listener) {
+					throw new UnsupportedOperationException("buffered body");
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.catalog.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Streams the JFR jdk.VirtualThreadPinned event and logs where a virtual thread stayed
+// pinned to its carrier (typically a blocking call inside a synchronized block).
+// On JDKs without virtual threads the event does not exist and nothing is reported.
+@Component
+@ConditionalOnProperty(name = "catalog.diagnostics.pinned-threads.enabled", havingValue = "true")
+public class PinnedThreadMonitor implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+	private static final String EVENT = "jdk.VirtualThreadPinned";
+	private static final int MAX_FRAMES = 12;
+
+	private final Duration threshold;
+	private final AtomicLong pinnedCount = new AtomicLong();
+	private RecordingStream stream;
+
+	public PinnedThreadMonitor(@Value("${catalog.diagnostics.pinned-threads.threshold:20ms}") Duration threshold) {
+		this.threshold = threshold;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		stream = new RecordingStream();
+		stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+		stream.onEvent(EVENT, this::report);
+		stream.startAsync();
+		log.info("Reporting virtual threads pinned longer than {}", threshold);
+	}
+
+	public long pinnedCount() {
+		return pinnedCount.get();
+	}
+
+	private void report(RecordedEvent event) {
+		pinnedCount.incrementAndGet();
+		StringBuilder sb = new StringBuilder();
+		if (event.getStackTrace() != null) {
+			int n = 0;
+			for (RecordedFrame f : event.getStackTrace().getFrames()) {
+				if (n++ == MAX_FRAMES) break;
+				sb.append("\n\tat ").append(f.getMethod().getType().getName()).append('.')
+						.append(f.getMethod().getName()).append(':').append(f.getLineNumber());
+			}
+		}
+		log.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), sb);
+	}
+
+	@Override
+	public void destroy() {
+		if (stream != null) stream.close();
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.catalog.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read/write split, on once catalog.datasource.replicas[0].url is set (see ReplicaRoutingDataSource).
+// The application's DataSource becomes a lazy proxy over the router; Flyway, schema tools and the
+// JDBC repositories get it too, and whatever they run outside a read-only transaction hits the primary.
+@Configuration
+@ConditionalOnProperty(prefix = "catalog.datasource.replicas[0]", name = "url")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+	private final ReadReplicaProperties props;
+
+	public ReadReplicaConfig(ReadReplicaProperties props) {
+		this.props = props;
+	}
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties primary) {
+		return primary.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties primary,
+															 MeterRegistry registry) {
+		List<DataSource> replicas = new ArrayList<>();
+		for (ReadReplicaProperties.Replica r : props.getReplicas()) {
+			HikariDataSource replica = new HikariDataSource();
+			replica.setPoolName("replica-" + replicas.size());
+			replica.setJdbcUrl(r.getUrl());
+			replica.setUsername(r.getUsername() != null ? r.getUsername() : primary.determineUsername());
+			replica.setPassword(r.getPassword() != null ? r.getPassword() : primary.determinePassword());
+			replica.setMaximumPoolSize(r.getMaxPoolSize());
+			replica.setReadOnly(true);
+			// don't fail startup over a replica that is down; it just gets no reads
+			replica.setInitializationFailTimeout(-1);
+			replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+			replicas.add(replica);
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource router) {
+		return new LazyConnectionDataSourceProxy(router);
+	}
+
+	@Bean(destroyMethod = "stop")
+	@ConditionalOnExpression(BackgroundJobsConfig.SERVING)
+	public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource router, HikariDataSource primaryDataSource,
+											   MeterRegistry registry, TaskScheduler taskScheduler) {
+		ReplicaLagMonitor monitor = new ReplicaLagMonitor(router, primaryDataSource, router.replicas(), props, registry);
+		monitor.start(taskScheduler);
+		return monitor;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new ReadYourWritesInterceptor(props)).addPathPatterns("/api/**");
+	}
+}
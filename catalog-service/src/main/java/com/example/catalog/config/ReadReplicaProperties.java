@@ -0,0 +1,61 @@
+package com.example.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replicas (catalog.datasource.*). Routing is on once a replica is listed:
+//   catalog.datasource.replicas[0].url=jdbc:mysql://replica-1:3306/library_db
+// spring.datasource.* stays the primary.
+@ConfigurationProperties(prefix = "catalog.datasource")
+public class ReadReplicaProperties {
+
+	private List<Replica> replicas = new ArrayList<>();
+
+	// a replica further behind the primary than this gets no reads until it catches up
+	private Duration maxLag = Duration.ofSeconds(2);
+
+	// how often the primary's heartbeat is written and each replica's lag read; 0 = only when check() is called
+	private Duration lagCheckInterval = Duration.ofMillis(500);
+
+	// after a patron's write, their reads go to the primary for this long (read-your-writes)
+	private Duration stickToPrimaryFor = Duration.ofSeconds(5);
+	private int maxStickyPatrons = 100_000;
+
+	public static class Replica {
+		private String url;
+		// default to the primary's credentials
+		private String username;
+		private String password;
+		private int maxPoolSize = 10;
+
+		public String getUrl() { return url; }
+		public void setUrl(String url) { this.url = url; }
+
+		public String getUsername() { return username; }
+		public void setUsername(String username) { this.username = username; }
+
+		public String getPassword() { return password; }
+		public void setPassword(String password) { this.password = password; }
+
+		public int getMaxPoolSize() { return maxPoolSize; }
+		public void setMaxPoolSize(int maxPoolSize) { this.maxPoolSize = maxPoolSize; }
+	}
+
+	public List<Replica> getReplicas() { return replicas; }
+	public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+
+	public Duration getMaxLag() { return maxLag; }
+	public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+
+	public Duration getLagCheckInterval() { return lagCheckInterval; }
+	public void setLagCheckInterval(Duration lagCheckInterval) { this.lagCheckInterval = lagCheckInterval; }
+
+	public Duration getStickToPrimaryFor() { return stickToPrimaryFor; }
+	public void setStickToPrimaryFor(Duration stickToPrimaryFor) { this.stickToPrimaryFor = stickToPrimaryFor; }
+
+	public int getMaxStickyPatrons() { return maxStickyPatrons; }
+	public void setMaxStickyPatrons(int maxStickyPatrons) { this.maxStickyPatrons = maxStickyPatrons; }
+}
@@ -0,0 +1,76 @@
+package com.example.catalog.config;
+
+import java.util.function.Supplier;
+
+// Per-thread routing hint for ReplicaRoutingDataSource, set around each API request by
+// ReadYourWritesInterceptor and by code that must not read stale data.
+public final class ReadRouting {
+
+	enum Hint { PRIMARY, READ }
+
+	private static final ThreadLocal<Hint> HINT = new ThreadLocal<>();
+	// set by ReplicaRoutingDataSource when it hands this thread a replica connection; cleared per request
+	private static final ThreadLocal<Boolean> REPLICA_USED = new ThreadLocal<>();
+
+	// A result and whether a replica served any of it (false when it came from the primary or a cache)
+	public record Served<T>(T value, boolean fromReplica) {}
+
+	private ReadRouting() {
+	}
+
+	// Runs work with every connection on the primary, e.g. loading in-memory state that later writes adjust.
+	public static <T> T onPrimary(Supplier<T> work) {
+		Hint previous = HINT.get();
+		HINT.set(Hint.PRIMARY);
+		try {
+			return work.get();
+		} finally {
+			set(previous);
+		}
+	}
+
+	public static void onPrimary(Runnable work) {
+		onPrimary(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	// Runs a read and reports whether a replica answered it. A replica may trail the primary, so its
+	// answer must not be tagged with the current catalog version.
+	public static <T> Served<T> tracking(Supplier<T> work) {
+		boolean before = replicaUsed();
+		REPLICA_USED.remove();
+		boolean used = false;
+		try {
+			T value = work.get();
+			used = replicaUsed();
+			return new Served<>(value, used);
+		} finally {
+			if (before || used) REPLICA_USED.set(Boolean.TRUE);
+		}
+	}
+
+	// Whether this thread has read from a replica since the request began. What it loads then may trail
+	// the primary, so it is kept out of the second-level and query caches.
+	public static boolean replicaUsed() {
+		return Boolean.TRUE.equals(REPLICA_USED.get());
+	}
+
+	static void markReplicaUsed() {
+		REPLICA_USED.set(Boolean.TRUE);
+	}
+
+	static void clearReplicaUsed() {
+		REPLICA_USED.remove();
+	}
+
+	static Hint current() {
+		return HINT.get();
+	}
+
+	static void set(Hint hint) {
+		if (hint == null) HINT.remove();
+		else HINT.set(hint);
+	}
+}
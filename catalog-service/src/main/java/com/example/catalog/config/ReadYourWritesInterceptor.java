@@ -0,0 +1,77 @@
+package com.example.catalog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+// Sets the routing hint for each API request. GETs read from a replica, unless the same client
+// wrote within stick-to-primary-for, so they see their own borrow. A client is recognised by the
+// patron its requests name (AdmissionControlInterceptor.patronKey) or by the cookie each write
+// sets. Every other request stays on the primary throughout, including the reads it makes outside
+// a transaction, so what it checks and what it writes come from the same database.
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+	static final String STICKY_COOKIE = "catalog-primary";
+
+	private final Cache<String, Boolean> recentWriters;
+	private final Duration stickFor;
+
+	public ReadYourWritesInterceptor(ReadReplicaProperties props) {
+		this.stickFor = props.getStickToPrimaryFor();
+		this.recentWriters = Caffeine.newBuilder()
+				.maximumSize(props.getMaxStickyPatrons())
+				.expireAfterWrite(stickFor)
+				.build();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		boolean read = isRead(request);
+		String patron = AdmissionControlInterceptor.patronKey(request);
+		boolean sticky = hasStickyCookie(request) || (patron != null && recentWriters.getIfPresent(patron) != null);
+		ReadRouting.set(sticky || !read ? ReadRouting.Hint.PRIMARY : ReadRouting.Hint.READ);
+		ReadRouting.clearReplicaUsed();
+		if (!read) {
+			// set before the handler writes the body; a write that fails only costs some primary reads
+			Cookie cookie = new Cookie(STICKY_COOKIE, "1");
+			cookie.setPath("/api");
+			cookie.setMaxAge((int) Math.max(1, stickFor.toSeconds()));
+			cookie.setHttpOnly(true);
+			response.addCookie(cookie);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ReadRouting.set(null);
+		ReadRouting.clearReplicaUsed();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		ReadRouting.set(null);
+		ReadRouting.clearReplicaUsed();
+		String patron = AdmissionControlInterceptor.patronKey(request);
+		if (patron != null && !isRead(request) && ex == null && response.getStatus() < 400) {
+			recentWriters.put(patron, Boolean.TRUE);
+		}
+	}
+
+	private static boolean hasStickyCookie(HttpServletRequest request) {
+		if (request.getCookies() == null) return false;
+		for (Cookie cookie : request.getCookies()) {
+			if (STICKY_COOKIE.equals(cookie.getName())) return true;
+		}
+		return false;
+	}
+
+	private static boolean isRead(HttpServletRequest request) {
+		return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+	}
+}
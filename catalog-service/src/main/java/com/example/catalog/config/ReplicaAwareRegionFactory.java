@@ -0,0 +1,39 @@
+package com.example.catalog.config;
+
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import javax.cache.Cache;
+
+// The JCache region factory, except that entities and query results loaded while a request reads
+// from a replica are not stored: a replica may trail the primary, and the caches are shared by every
+// request, including those that must see the primary's state. Reads from the cache are unaffected.
+public class ReplicaAwareRegionFactory extends JCacheRegionFactory {
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig config,
+																	DomainDataRegionBuildingContext context) {
+		return primaryOnly(((JCacheAccessImpl) super.createDomainDataStorageAccess(config, context)).getUnderlyingCache());
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+		return primaryOnly(((JCacheAccessImpl) super.createQueryResultsRegionStorageAccess(regionName, sessionFactory)).getUnderlyingCache());
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static JCacheAccessImpl primaryOnly(Cache cache) {
+		return new JCacheAccessImpl(cache) {
+			@Override
+			public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+				if (!ReadRouting.replicaUsed()) super.putIntoCache(key, value, session);
+			}
+		};
+	}
+}
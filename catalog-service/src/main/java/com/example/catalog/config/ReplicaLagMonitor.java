@@ -0,0 +1,96 @@
+package com.example.catalog.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Replica lag from a heartbeat row: each check reads the beat every replica has replicated, then
+// writes a new one on the primary. A replica's lag is how far its beat trails the last beat written
+// (so it is known to the check interval); an unreachable replica, or one without the row, counts
+// as lagging. The table comes from the V8 migration and reaches the replicas through replication.
+// Meters: catalog.datasource.replica.lag (seconds; NaN when unknown) and .healthy (1/0), tagged by replica.
+public class ReplicaLagMonitor {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+	private final ReplicaRoutingDataSource routing;
+	private final JdbcTemplate primary;
+	private final List<JdbcTemplate> replicas = new ArrayList<>();
+	private final ReadReplicaProperties props;
+	private final AtomicLongArray lagMillis;
+	private volatile long lastBeat;
+	private ScheduledFuture<?> schedule;
+
+	public ReplicaLagMonitor(ReplicaRoutingDataSource routing, DataSource primary, List<DataSource> replicas,
+							 ReadReplicaProperties props, MeterRegistry registry) {
+		this.routing = routing;
+		this.primary = new JdbcTemplate(primary);
+		for (DataSource replica : replicas) this.replicas.add(new JdbcTemplate(replica));
+		this.props = props;
+		this.lagMillis = new AtomicLongArray(replicas.size());
+		for (int i = 0; i < replicas.size(); i++) {
+			int r = i;
+			lagMillis.set(r, -1);
+			Gauge.builder("catalog.datasource.replica.lag", lagMillis, l -> l.get(r) < 0 ? Double.NaN : l.get(r) / 1000.0)
+					.description("How far the replica trails the primary")
+					.baseUnit("seconds")
+					.tag("replica", "replica-" + r)
+					.register(registry);
+			Gauge.builder("catalog.datasource.replica.healthy", routing, rd -> rd.isHealthy(r) ? 1 : 0)
+					.description("1 while the replica takes reads")
+					.tag("replica", "replica-" + r)
+					.register(registry);
+		}
+	}
+
+	public void start(TaskScheduler scheduler) {
+		check();
+		if (!props.getLagCheckInterval().isZero()) {
+			schedule = scheduler.scheduleWithFixedDelay(this::check, props.getLagCheckInterval());
+		}
+	}
+
+	public void stop() {
+		if (schedule != null) schedule.cancel(false);
+	}
+
+	public void check() {
+		long maxLag = props.getMaxLag().toMillis();
+		for (int r = 0; r < replicas.size(); r++) {
+			long lag = -1;
+			try {
+				Long beat = replicas.get(r).query("select beat_at from replication_heartbeat where id = 1",
+						rs -> rs.next() ? rs.getLong(1) : null);
+				if (beat != null && lastBeat > 0) lag = Math.max(0, lastBeat - beat);
+			} catch (Exception ex) {
+				log.debug("Could not read the heartbeat of replica-{}", r, ex);
+			}
+			lagMillis.set(r, lag);
+			boolean ok = lag >= 0 && lag <= maxLag;
+			if (ok != routing.isHealthy(r)) {
+				if (ok) log.info("replica-{} is caught up ({} ms behind); sending it reads", r, lag);
+				else log.warn("replica-{} is {}; reads go to the other replicas or the primary", r,
+						lag < 0 ? "unreachable or has no heartbeat" : lag + " ms behind");
+			}
+			routing.setHealthy(r, ok);
+		}
+		try {
+			long beat = System.currentTimeMillis();
+			if (primary.update("update replication_heartbeat set beat_at = ? where id = 1", beat) == 0) {
+				primary.update("insert into replication_heartbeat (id, beat_at) values (1, ?)", beat);
+			}
+			lastBeat = beat;
+		} catch (Exception ex) {
+			log.warn("Could not write the replication heartbeat", ex);
+		}
+	}
+}
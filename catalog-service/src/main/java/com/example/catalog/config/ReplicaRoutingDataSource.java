@@ -0,0 +1,84 @@
+package com.example.catalog.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Picks the database for each physical connection: read-only transactions, and connections taken
+// outside a transaction while serving a GET, go to a replica that is keeping up (round robin);
+// everything else, and every read when no replica is healthy, goes to the primary.
+// Sits behind a LazyConnectionDataSourceProxy, so the choice is made at the first statement,
+// once the transaction's read-only flag is known.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	private final List<DataSource> replicas;
+	private final List<String> replicaKeys = new ArrayList<>();
+	private final AtomicIntegerArray healthy;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+		this.replicas = List.copyOf(replicas);
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			replicaKeys.add("replica-" + i);
+			targets.put(replicaKeys.get(i), replicas.get(i));
+		}
+		this.healthy = new AtomicIntegerArray(replicas.size());
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		ReadRouting.Hint hint = ReadRouting.current();
+		if (hint == ReadRouting.Hint.PRIMARY) return PRIMARY;
+		boolean read = TransactionSynchronizationManager.isActualTransactionActive()
+				? TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				: hint == ReadRouting.Hint.READ;
+		return read ? replicaKey() : PRIMARY;
+	}
+
+	private String replicaKey() {
+		int n = healthy.length();
+		int start = Math.floorMod(next.getAndIncrement(), n);
+		for (int i = 0; i < n; i++) {
+			int r = (start + i) % n;
+			if (healthy.get(r) == 1) {
+				ReadRouting.markReplicaUsed();
+				return replicaKeys.get(r);
+			}
+		}
+		return PRIMARY;
+	}
+
+	List<DataSource> replicas() {
+		return replicas;
+	}
+
+	// the replica pools belong to the router; the primary is a bean of its own
+	public void close() throws Exception {
+		for (DataSource replica : replicas) {
+			if (replica instanceof AutoCloseable closeable) closeable.close();
+		}
+	}
+
+	// set by ReplicaLagMonitor; replicas start unhealthy until their lag has been read
+	void setHealthy(int replica, boolean ok) {
+		healthy.set(replica, ok ? 1 : 0);
+	}
+
+	public boolean isHealthy(int replica) {
+		return healthy.get(replica) == 1;
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.catalog.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// One structured line per API request (method, route, status, durationMs as JSON fields), sampled
+// per route (see RequestLogProperties). The sampling decision is made before the event is built,
+// so requests that are not kept cost a clock read and a random number.
+public class RequestLogInterceptor implements HandlerInterceptor {
+
+	private static final Logger log = LoggerFactory.getLogger("catalog.requests");
+	private static final String START = RequestLogInterceptor.class.getName() + ".start";
+
+	private final RequestLogProperties props;
+	private final long slowNanos;
+
+	public RequestLogInterceptor(RequestLogProperties props) {
+		this.props = props;
+		this.slowNanos = props.getAlwaysLogSlowerThan().toNanos();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// async requests come through again on dispatch; keep the original start
+		if (props.isEnabled() && log.isInfoEnabled() && request.getAttribute(START) == null) {
+			request.setAttribute(START, System.nanoTime());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if (!(request.getAttribute(START) instanceof Long start)) return;
+		long nanos = System.nanoTime() - start;
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String route = pattern != null ? pattern.toString() : "unmatched";
+		int status = response.getStatus();
+		if (ex == null && status < 500 && nanos < slowNanos && !sampled(route)) return;
+		log.atInfo()
+				.addKeyValue("method", request.getMethod())
+				.addKeyValue("route", route)
+				.addKeyValue("status", status)
+				.addKeyValue("durationMs", nanos / 1_000_000)
+				.log("request");
+	}
+
+	private boolean sampled(String route) {
+		double rate = props.getRoutes().getOrDefault(route, props.getSampleRate());
+		return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Sampling of the per-request log line (catalog.logging.requests.*). Errors and slow requests are
+// always logged; everything else is kept with the rate of its route, e.g.
+//   catalog.logging.requests.routes[/api/catalog/books/{id}]=0.01
+@ConfigurationProperties(prefix = "catalog.logging.requests")
+public class RequestLogProperties {
+
+	private boolean enabled = true;
+
+	// share of requests logged on routes without their own rate (0..1)
+	private double sampleRate = 1.0;
+
+	// route pattern as mapped in the controller -> share of its requests logged
+	private Map<String, Double> routes = new HashMap<>();
+
+	private Duration alwaysLogSlowerThan = Duration.ofMillis(500);
+
+	public boolean isEnabled() { return enabled; }
+	public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+	public double getSampleRate() { return sampleRate; }
+	public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+
+	public Map<String, Double> getRoutes() { return routes; }
+	public void setRoutes(Map<String, Double> routes) { this.routes = routes; }
+
+	public Duration getAlwaysLogSlowerThan() { return alwaysLogSlowerThan; }
+	public void setAlwaysLogSlowerThan(Duration alwaysLogSlowerThan) { this.alwaysLogSlowerThan = alwaysLogSlowerThan; }
+}
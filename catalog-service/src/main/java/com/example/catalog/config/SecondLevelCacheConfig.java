@@ -0,0 +1,75 @@
+package com.example.catalog.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Second-level and query cache for catalog reference data, held in local Caffeine caches.
+// Every region is created here with its own size bound and TTL, so Hibernate never falls back
+// to an unbounded default cache; entities opt in with @Cache(region = ...).
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+	public static final String AUTHORS = "authors";
+	public static final String PUBLISHERS = "publishers";
+	public static final String CATEGORIES = "categories";
+	public static final String BOOKS = "books";
+	public static final String QUERIES = "default-query-results-region";
+	// last-write time per table, consulted to invalidate cached query results; never evicted
+	public static final String TIMESTAMPS = "default-update-timestamps-region";
+
+	public static final List<String> ENTITY_REGIONS = List.of(AUTHORS, PUBLISHERS, CATEGORIES, BOOKS);
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCache(SecondLevelCacheProperties props) {
+		return hibernate -> {
+			if (!props.isEnabled()) {
+				hibernate.put("hibernate.cache.use_second_level_cache", false);
+				hibernate.put("hibernate.cache.use_query_cache", false);
+				return;
+			}
+			// a manager of its own (Hibernate closes it with the SessionFactory), so two application
+			// contexts in one JVM never share or close each other's regions
+			CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+			CacheManager manager = provider.getCacheManager(
+					URI.create("catalog-l2-" + UUID.randomUUID()), SecondLevelCacheConfig.class.getClassLoader());
+			for (String region : ENTITY_REGIONS) create(manager, region, props);
+			create(manager, QUERIES, props);
+			manager.createCache(TIMESTAMPS, new CaffeineConfiguration<>());
+
+			hibernate.put("hibernate.cache.use_second_level_cache", true);
+			hibernate.put("hibernate.cache.use_query_cache", true);
+			// jcache, except that nothing a replica served is stored
+			hibernate.put("hibernate.cache.region.factory_class", ReplicaAwareRegionFactory.class.getName());
+			hibernate.put("hibernate.javax.cache.cache_manager", manager);
+			// every region above is declared; a region nobody configured is a mapping mistake
+			hibernate.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+			// per-region hit/miss counters behind /api/catalog/cache/stats
+			hibernate.put("hibernate.generate_statistics", true);
+		};
+	}
+
+	private static void create(CacheManager manager, String region, SecondLevelCacheProperties props) {
+		SecondLevelCacheProperties.Region r = props.getRegions().get(region);
+		long maxSize = r != null && r.getMaxSize() != null ? r.getMaxSize() : props.getDefaultMaxSize();
+		Duration ttl = r != null && r.getTtl() != null ? r.getTtl() : props.getDefaultTtl();
+
+		CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+		config.setMaximumSize(OptionalLong.of(maxSize));
+		config.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+		manager.createCache(region, config);
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Hibernate second-level cache regions (catalog.l2-cache.*); each region may override the defaults
+@ConfigurationProperties(prefix = "catalog.l2-cache")
+public class SecondLevelCacheProperties {
+
+	private boolean enabled = true;
+
+	private long defaultMaxSize = 10_000;
+	// safety net for rows changed outside this service (reference data is also edited in SQL)
+	private Duration defaultTtl = Duration.ofHours(1);
+
+	private Map<String, Region> regions = new LinkedHashMap<>();
+
+	public boolean isEnabled() { return enabled; }
+	public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+	public long getDefaultMaxSize() { return defaultMaxSize; }
+	public void setDefaultMaxSize(long defaultMaxSize) { this.defaultMaxSize = defaultMaxSize; }
+
+	public Duration getDefaultTtl() { return defaultTtl; }
+	public void setDefaultTtl(Duration defaultTtl) { this.defaultTtl = defaultTtl; }
+
+	public Map<String, Region> getRegions() { return regions; }
+	public void setRegions(Map<String, Region> regions) { this.regions = regions; }
+
+	public static class Region {
+		private Long maxSize;
+		private Duration ttl;
+
+		public Long getMaxSize() { return maxSize; }
+		public void setMaxSize(Long maxSize) { this.maxSize = maxSize; }
+
+		public Duration getTtl() { return ttl; }
+		public void setTtl(Duration ttl) { this.ttl = ttl; }
+	}
+}
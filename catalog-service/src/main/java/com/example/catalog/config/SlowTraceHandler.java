@@ -0,0 +1,91 @@
+package com.example.catalog.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// In-process tracing without a tracing backend: every observation (the HTTP request itself and
+// the phases timed inside it, e.g. catalog.borrow.allocate) records a span under its parent, and
+// when a root observation takes longer than the threshold its span tree is logged with timings.
+// Spans live in the observation context, so nothing outlives the request.
+public class SlowTraceHandler implements ObservationHandler<Observation.Context> {
+
+	private static final Logger log = LoggerFactory.getLogger(SlowTraceHandler.class);
+
+	private final long thresholdNanos;
+
+	public SlowTraceHandler(Duration threshold) {
+		this.thresholdNanos = threshold.toNanos();
+	}
+
+	static final class Span {
+		final String name;
+		final long start = System.nanoTime();
+		volatile long end;
+		final List<Span> children = new ArrayList<>();
+
+		Span(String name) {
+			this.name = name;
+		}
+	}
+
+	@Override
+	public void onStart(Observation.Context context) {
+		Span span = new Span(context.getContextualName() != null ? context.getContextualName() : context.getName());
+		context.put(Span.class, span);
+		Span parent = parentSpan(context);
+		if (parent != null) {
+			synchronized (parent.children) {
+				parent.children.add(span);
+			}
+		}
+	}
+
+	@Override
+	public void onStop(Observation.Context context) {
+		Span span = context.get(Span.class);
+		if (span == null) return;
+		span.end = System.nanoTime();
+		if (parentSpan(context) == null && span.end - span.start >= thresholdNanos) {
+			StringBuilder tree = new StringBuilder();
+			render(span, span.start, 0, tree);
+			report(tree.toString());
+		}
+	}
+
+	@Override
+	public boolean supportsContext(Observation.Context context) {
+		return true;
+	}
+
+	protected void report(String tree) {
+		log.warn("Slow trace:\n{}", tree);
+	}
+
+	private static Span parentSpan(Observation.Context context) {
+		ObservationView parent = context.getParentObservation();
+		return parent == null ? null : parent.getContextView().get(Span.class);
+	}
+
+	// name, duration and offset from the root's start, children indented under their parent
+	private static void render(Span span, long rootStart, int depth, StringBuilder out) {
+		out.append("  ".repeat(depth)).append(span.name).append(' ');
+		out.append(span.end == 0 ? "(running)" : millis(span.end - span.start) + " ms");
+		out.append(" @+").append(millis(span.start - rootStart)).append(" ms\n");
+		List<Span> children;
+		synchronized (span.children) {
+			children = List.copyOf(span.children);
+		}
+		for (Span child : children) render(child, rootStart, depth + 1, out);
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.1f", nanos / 1_000_000.0);
+	}
+}
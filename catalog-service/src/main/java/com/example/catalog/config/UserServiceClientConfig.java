@@ -1,16 +1,38 @@
 package com.example.catalog.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties(UserServiceProperties.class)
 public class UserServiceClientConfig {
 
+	@Bean(destroyMethod = "dispose")
+	public ConnectionProvider userServiceConnectionProvider(UserServiceProperties props) {
+		return ConnectionProvider.builder("user-service")
+				.maxConnections(props.getMaxConnections())
+				.pendingAcquireMaxCount(props.getPendingAcquireMaxCount())
+				.pendingAcquireTimeout(props.getPendingAcquireTimeout())
+				.maxIdleTime(props.getMaxIdleTime())
+				.build();
+	}
+
+	// built from Boot's WebClient.Builder so every call is timed as http.client.requests
 	@Bean
-	public WebClient userServiceWebClient() {
-		return WebClient.builder()
-				.baseUrl("http://localhost:5041")  // .NET user-service
+	public WebClient userServiceWebClient(UserServiceProperties props, ConnectionProvider userServiceConnectionProvider,
+										  WebClient.Builder builder) {
+		HttpClient http = HttpClient.create(userServiceConnectionProvider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) props.getConnectTimeout().toMillis())
+				.responseTimeout(props.getReadTimeout());
+		return builder
+				.baseUrl(props.getBaseUrl())  // .NET user-service
+				.clientConnector(new ReactorClientHttpConnector(http))
 				.build();
 	}
 }
@@ -0,0 +1,76 @@
+package com.example.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Settings for the .NET user-service client (catalog.user-service.*)
+@ConfigurationProperties(prefix = "catalog.user-service")
+public class UserServiceProperties {
+
+	private String baseUrl = "http://localhost:5041";
+
+	// upper bound for one remote lookup, including connect and waiting for a pooled connection
+	private Duration timeout = Duration.ofSeconds(2);
+
+	private Duration connectTimeout = Duration.ofSeconds(1);
+	// time to first response byte once the request is sent
+	private Duration readTimeout = Duration.ofSeconds(2);
+
+	// connection pool towards the user-service; requests beyond maxConnections queue
+	// (up to pendingAcquireMaxCount) instead of opening more sockets
+	private int maxConnections = 200;
+	private int pendingAcquireMaxCount = 1000;
+	private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+	private Duration maxIdleTime = Duration.ofSeconds(30);
+
+	private final Cache cache = new Cache();
+
+	public String getBaseUrl() { return baseUrl; }
+	public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+
+	public Duration getTimeout() { return timeout; }
+	public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+	public Duration getConnectTimeout() { return connectTimeout; }
+	public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+	public Duration getReadTimeout() { return readTimeout; }
+	public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+
+	public int getMaxConnections() { return maxConnections; }
+	public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+	public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+	public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+	public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+	public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+
+	public Duration getMaxIdleTime() { return maxIdleTime; }
+	public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+
+	public Cache getCache() { return cache; }
+
+	public static class Cache {
+		private long maxSize = 10_000;
+		// found users live this long...
+		private Duration ttl = Duration.ofMinutes(5);
+		// ...but are reloaded in the background once this old, serving the cached copy meanwhile
+		private Duration refreshAfter = Duration.ofMinutes(1);
+		// remembered 404s
+		private Duration negativeTtl = Duration.ofSeconds(30);
+
+		public long getMaxSize() { return maxSize; }
+		public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+
+		public Duration getTtl() { return ttl; }
+		public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+		public Duration getRefreshAfter() { return refreshAfter; }
+		public void setRefreshAfter(Duration refreshAfter) { this.refreshAfter = refreshAfter; }
+
+		public Duration getNegativeTtl() { return negativeTtl; }
+		public void setNegativeTtl(Duration negativeTtl) { this.negativeTtl = negativeTtl; }
+	}
+}
@@ -1,17 +1,56 @@
 package com.example.catalog.config;
 
+import com.example.catalog.service.KeysetPagination;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@EnableConfigurationProperties({RequestLogProperties.class, AdmissionProperties.class})
 public class WebConfig implements WebMvcConfigurer {
 
+	private final MeterRegistry meterRegistry;
+	private final RequestLogProperties requestLog;
+	private final AdmissionProperties admission;
+
+	public WebConfig(MeterRegistry meterRegistry, RequestLogProperties requestLog, AdmissionProperties admission) {
+		this.meterRegistry = meterRegistry;
+		this.requestLog = requestLog;
+		this.admission = admission;
+	}
+
+	// the circulation routes, whose bodies name the patron (see AdmissionControlInterceptor.patronKey)
+	@Bean
+	public FilterRegistrationBean<PatronIdFilter> patronIdFilter(ObjectMapper mapper) {
+		FilterRegistrationBean<PatronIdFilter> filter = new FilterRegistrationBean<>(new PatronIdFilter(mapper));
+		filter.addUrlPatterns("/api/catalog/borrow/*", "/api/catalog/return/*", "/api/catalog/holds");
+		return filter;
+	}
+
 	@Override
 	public void addCorsMappings(CorsRegistry registry) {
 		registry.addMapping("/**")
 				.allowedOrigins("http://localhost:5173")
 				.allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-				.allowedHeaders("*");
+				.allowedHeaders("*")
+				.exposedHeaders(KeysetPagination.NEXT_CURSOR_HEADER, HttpHeaders.ETAG, HttpHeaders.RETRY_AFTER);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestLogInterceptor(requestLog)).addPathPatterns("/api/**");
+		registry.addInterceptor(new CirculationOutcomeInterceptor(meterRegistry))
+				.addPathPatterns("/api/catalog/borrow", "/api/catalog/borrow/book", "/api/catalog/return");
+		// after the two above, so turned-away requests are still logged and counted
+		registry.addInterceptor(new AdmissionControlInterceptor(admission, meterRegistry))
+				.addPathPatterns("/api/catalog/borrow/**", "/api/catalog/borrow", "/api/catalog/return/**",
+						"/api/catalog/return", "/api/catalog/holds");
 	}
 }
@@ -0,0 +1,53 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.service.AvailabilityBroadcaster;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/catalog/availability")
+public class AvailabilityStreamController {
+
+	private final AvailabilityBroadcaster broadcaster;
+
+	public AvailabilityStreamController(AvailabilityBroadcaster broadcaster) {
+		this.broadcaster = broadcaster;
+	}
+
+	// Live availability instead of polling /books/{id}/availability
+	// GET /api/catalog/availability/stream?ids=1,2,3  (text/event-stream)
+	// -> an "availability" event ({bookId, totalCopies, availableCopies}) with the current counts of
+	//    each book, then one whenever a borrow, return or copy change moves them
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) List<Integer> ids) throws IOException {
+		Set<Integer> bookIds = new LinkedHashSet<>();
+		if (ids != null) ids.stream().filter(Objects::nonNull).forEach(bookIds::add);
+		if (bookIds.isEmpty()) return rejected(HttpStatus.BAD_REQUEST, "ids required");
+		if (bookIds.size() > broadcaster.maxBooks()) {
+			return rejected(HttpStatus.BAD_REQUEST, "at most " + broadcaster.maxBooks() + " books per stream");
+		}
+		SseEmitter emitter = broadcaster.subscribe(bookIds);
+		if (emitter == null) return rejected(HttpStatus.SERVICE_UNAVAILABLE, "too many subscribers");
+		return ResponseEntity.ok()
+				.header("X-Accel-Buffering", "no")
+				.body(emitter);
+	}
+
+	// the error body goes out as a single "error" event, since the response is an event stream
+	private static ResponseEntity<SseEmitter> rejected(HttpStatus status, String error) throws IOException {
+		SseEmitter emitter = new SseEmitter();
+		emitter.send(SseEmitter.event().name("error").data(Map.of("error", error), MediaType.APPLICATION_JSON));
+		emitter.complete();
+		return ResponseEntity.status(status).body(emitter);
+	}
+}
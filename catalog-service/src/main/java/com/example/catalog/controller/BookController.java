@@ -1,57 +1,131 @@
 package com.example.catalog.controller;
 
+import com.example.catalog.config.ReadRouting;
+import com.example.catalog.dto.BookView;
 import com.example.catalog.entity.Book;
 import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
 import com.example.catalog.repository.BookCopyRepository;
 import com.example.catalog.repository.BookRepository;
+import com.example.catalog.service.AvailabilityCounters;
+import com.example.catalog.service.BookSearchIndex;
+import com.example.catalog.service.CatalogVersions;
+import com.example.catalog.service.KeysetPagination;
+import com.example.catalog.service.NdjsonStreamer;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/catalog/books")
 public class BookController {
 
+    // Listings and availability change often: caches must revalidate every time (a 304 when unchanged).
+    // A single book rarely changes, so clients may reuse it briefly without asking.
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final CacheControl BOOK_CACHE = CacheControl.maxAge(Duration.ofSeconds(30)).mustRevalidate();
+
     private final BookRepository bookRepo;
     private final BookCopyRepository bookCopyRepo;
+    private final KeysetPagination pagination;
+    private final NdjsonStreamer ndjson;
+    private final BookSearchIndex searchIndex;
+    private final AvailabilityCounters availability;
+    private final CatalogVersions versions;
 
     // Note: constructor now injects BookCopyRepository as well
-    public BookController(BookRepository bookRepo, BookCopyRepository bookCopyRepo) {
+    public BookController(BookRepository bookRepo, BookCopyRepository bookCopyRepo,
+                          KeysetPagination pagination, NdjsonStreamer ndjson,
+                          BookSearchIndex searchIndex, AvailabilityCounters availability,
+                          CatalogVersions versions) {
         this.bookRepo = bookRepo;
         this.bookCopyRepo = bookCopyRepo;
+        this.pagination = pagination;
+        this.ndjson = ndjson;
+        this.searchIndex = searchIndex;
+        this.availability = availability;
+        this.versions = versions;
     }
 
-    // Get all books
+    // Get books, one keyset page at a time
+    // GET /api/catalog/books?after={lastSeenId}&size={n}  -> next cursor in X-Next-Cursor
+    // Tagged with the catalog version; If-None-Match on an unchanged catalog gets a 304 without a query.
+    // A page a replica served goes out untagged: it may trail that version, and would be revalidated as current.
     @GetMapping
-    public List<Book> getAllBooks() {
-        return bookRepo.findAll();
+    public ResponseEntity<List<BookView>> getAllBooks(@RequestParam(defaultValue = "0") Integer after,
+                                                      @RequestParam(required = false) Integer size,
+                                                      WebRequest request) {
+        String etag = versions.catalogEtag();
+        if (matches(request, etag)) return notModified(etag, REVALIDATE);
+        Limit limit = pagination.limit(size);
+        ReadRouting.Served<List<BookView>> rows = ReadRouting.tracking(() -> bookRepo.findViewsAfter(after, limit));
+        ResponseEntity<List<BookView>> page = pagination.page(rows.value(), limit, BookView::id);
+        return ResponseEntity.ok().headers(page.getHeaders()).eTag(rows.fromReplica() ? null : etag)
+                .cacheControl(REVALIDATE).body(page.getBody());
+    }
+
+    // Stream every book as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = NdjsonStreamer.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonStreamer.MEDIA_TYPE))
+                .body(ndjson.stream(bookRepo::streamAllByOrderByIdAsc));
     }
 
-    // Get one book by id
+    // Get one book by id; ETagged like the listing, and untagged when a replica served it
     @GetMapping("/{id}")
-    public Book getBook(@PathVariable Integer id) {
-        return bookRepo.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found"));
+    public ResponseEntity<Book> getBook(@PathVariable Integer id, WebRequest request) {
+        String etag = versions.bookEtag(id);
+        if (matches(request, etag)) return notModified(etag, BOOK_CACHE);
+        ReadRouting.Served<Optional<Book>> read = ReadRouting.tracking(() -> bookRepo.findDetailedById(id));
+        Book book = read.value().orElseThrow(() -> new RuntimeException("Book not found"));
+        return ResponseEntity.ok().eTag(read.fromReplica() ? null : etag).cacheControl(BOOK_CACHE).body(book);
     }
 
-    // Search by title
+    // Search title, ISBN, author, publisher and category through the in-memory index
+    // (prefix matching, ranked); falls back to a title LIKE scan until the index is built
     @GetMapping("/search")
-    public List<Book> searchBooks(@RequestParam("q") String query) {
-        return bookRepo.findByTitleContainingIgnoreCase(query);
+    public List<BookView> searchBooks(@RequestParam("q") String query,
+                                      @RequestParam(required = false) Integer size) {
+        if (!searchIndex.isReady()) {
+            return bookRepo.findViewsByTitleContaining(query);
+        }
+        List<Integer> ids = searchIndex.search(query, pagination.size(size));
+        if (ids.isEmpty()) return List.of();
+        Map<Integer, BookView> byId = bookRepo.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookView::id, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
-    // Filter by category name
+    // Filter by category name (query cache; a replica's answer is served but not cached)
     @GetMapping("/category/{name}")
-    public List<Book> booksByCategory(@PathVariable String name) {
-        return bookRepo.findByCategory_NameIgnoreCase(name);
+    public List<BookView> booksByCategory(@PathVariable String name) {
+        return bookRepo.findViewsByCategoryName(name);
     }
 
     // Create new book
     @PostMapping
     public Book createBook(@RequestBody Book book) {
-        return bookRepo.save(book);
+        Book created = bookRepo.save(book);
+        // the request body may name its author, publisher and category by id alone; index what was stored
+        Book saved = bookRepo.findDetailedById(created.getId()).orElseThrow();
+        searchIndex.put(saved);
+        versions.bookChanged(saved.getId());
+        return saved;
     }
 
     // Update book
@@ -66,30 +140,66 @@ public class BookController {
         existing.setCategory(updated.getCategory());
         existing.setPublicationYear(updated.getPublicationYear());
         existing.setShelfLocation(updated.getShelfLocation());
-        return bookRepo.save(existing);
+        bookRepo.save(existing);
+        // saved only references its author, publisher and category; the index and the response need them loaded
+        Book saved = bookRepo.findDetailedById(id).orElseThrow();
+        searchIndex.put(saved);
+        versions.bookChanged(id);
+        return saved;
     }
 
     // Delete book
     @DeleteMapping("/{id}")
     public void deleteBook(@PathVariable Integer id) {
         bookRepo.deleteById(id);
+        searchIndex.remove(id);
+        versions.bookChanged(id);
     }
 
     // -------------------------
     // New: availability endpoint
     // GET /api/catalog/books/{id}/availability
+    // Served from the in-memory counters; counts copies in the database only until they are loaded
+    // (and only the counter-backed answer carries an ETag)
     // -------------------------
     @GetMapping("/{id}/availability")
-    public ResponseEntity<Map<String, Object>> getBookAvailability(@PathVariable Integer id) {
+    public ResponseEntity<Map<String, Object>> getBookAvailability(@PathVariable Integer id, WebRequest request) {
+        if (availability.isReady()) {
+            // one read of the counters, so the body and its tag describe the same moment
+            AvailabilityCounters.Counts counts = availability.counts(id);
+            String etag = AvailabilityCounters.etag(id, counts);
+            if (request.checkNotModified(etag)) return notModified(etag, REVALIDATE);
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(Map.of(
+                    "bookId", id,
+                    "totalCopies", (long) counts.total(),
+                    "availableCopies", (long) counts.available()
+            ));
+        }
         List<BookCopy> copies = bookCopyRepo.findByBook_Id(id);
         long total = copies.size();
         long available = copies.stream()
-                .filter(c -> "AVAILABLE".equalsIgnoreCase(c.getStatus()))
+                .filter(c -> c.getStatus() == CopyStatus.AVAILABLE)
                 .count();
-        return ResponseEntity.ok(Map.of(
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(Map.of(
                 "bookId", id,
                 "totalCopies", total,
                 "availableCopies", available
         ));
     }
+
+    // If-None-Match against a version tag. Unlike checkNotModified this leaves the response alone,
+    // which would otherwise carry the tag even when a replica serves the body.
+    private static boolean matches(WebRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) return true;
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
 }
@@ -1,24 +1,68 @@
 package com.example.catalog.controller;
 
 import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
 import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BorrowRepository;
+import com.example.catalog.service.AvailabilityCounters;
+import com.example.catalog.service.BarcodeIndex;
+import com.example.catalog.service.KeysetPagination;
+import com.example.catalog.service.NdjsonStreamer;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/catalog/copies")
 public class BookCopyController {
 
+    // what inventory may set; ISSUED and ON_HOLD belong to circulation, which has a borrow or hold to go with them
+    private static final Set<CopyStatus> INVENTORY_STATUSES = EnumSet.of(CopyStatus.AVAILABLE, CopyStatus.LOST, CopyStatus.DAMAGED);
+
     private final BookCopyRepository copyRepo;
+    private final BorrowRepository borrowRepo;
+    private final KeysetPagination pagination;
+    private final NdjsonStreamer ndjson;
+    private final AvailabilityCounters availability;
+    private final BarcodeIndex barcodes;
 
-    public BookCopyController(BookCopyRepository copyRepo) {
+    public BookCopyController(BookCopyRepository copyRepo, BorrowRepository borrowRepo, KeysetPagination pagination,
+                              NdjsonStreamer ndjson, AvailabilityCounters availability, BarcodeIndex barcodes) {
         this.copyRepo = copyRepo;
+        this.borrowRepo = borrowRepo;
+        this.pagination = pagination;
+        this.ndjson = ndjson;
+        this.availability = availability;
+        this.barcodes = barcodes;
+    }
+
+    private static Integer bookIdOf(BookCopy copy) {
+        return copy.getBook() != null ? copy.getBook().getId() : null;
     }
 
+    // GET /api/catalog/copies?after={lastSeenId}&size={n}  -> next cursor in X-Next-Cursor
     @GetMapping
-    public List<BookCopy> getAllCopies() {
-        return copyRepo.findAll();
+    public ResponseEntity<List<BookCopy>> getAllCopies(@RequestParam(defaultValue = "0") Integer after,
+                                                       @RequestParam(required = false) Integer size) {
+        Limit limit = pagination.limit(size);
+        return pagination.page(copyRepo.findByIdGreaterThanOrderByIdAsc(after, limit), limit, BookCopy::getId);
+    }
+
+    // Stream every copy as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = NdjsonStreamer.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllCopies() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonStreamer.MEDIA_TYPE))
+                .body(ndjson.stream(copyRepo::streamAllByOrderByIdAsc));
     }
 
     @GetMapping("/book/{bookId}")
@@ -26,28 +70,87 @@ public class BookCopyController {
         return copyRepo.findByBook_Id(bookId);
     }
 
+    // Scanner lookup: GET /api/catalog/copies/barcode/{barcode}; the index finds the copy id, and the row
+    // is read for the book details shown with it
+    @GetMapping("/barcode/{barcode}")
+    public ResponseEntity<?> getCopyByBarcode(@PathVariable String barcode) {
+        return barcodes.load(barcode)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Copy not found")));
+    }
+
     @GetMapping("/status/{status}")
-    public List<BookCopy> getCopiesByStatus(@PathVariable String status) {
-        return copyRepo.findByStatus(status.toUpperCase());
+    public ResponseEntity<?> getCopiesByStatus(@PathVariable String status) {
+        CopyStatus parsed = CopyStatus.parse(status);
+        if (parsed == null) return ResponseEntity.badRequest().body(Map.of("error", "unknown status: " + status));
+        return ResponseEntity.ok(copyRepo.findByStatus(parsed));
     }
 
     @PostMapping
-    public BookCopy createCopy(@RequestBody BookCopy copy) {
-        return copyRepo.save(copy);
+    public ResponseEntity<?> createCopy(@RequestBody BookCopy copy) {
+        if (copy.getStatus() == null) return ResponseEntity.badRequest().body(Map.of("error", "valid status required"));
+        BookCopy saved = copyRepo.save(copy);
+        availability.copyAdded(bookIdOf(saved), saved.getStatus());
+        barcodes.copyAdded(saved.getId(), saved.getBarcode(), bookIdOf(saved), saved.getStatus());
+        return ResponseEntity.ok(saved);
     }
 
+    // Inventory edit: relabel, move to another book, write off as LOST/DAMAGED or put back AVAILABLE.
+    // The status moves with a conditional UPDATE on the status this request saw, so a borrow or hold
+    // that claimed the copy in between wins and this gets a 409 instead of overwriting it.
     @PutMapping("/{id}")
-    public BookCopy updateCopy(@PathVariable Integer id, @RequestBody BookCopy updated) {
+    @Transactional
+    public ResponseEntity<?> updateCopy(@PathVariable Integer id, @RequestBody BookCopy updated) {
         BookCopy existing = copyRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Copy not found"));
-        existing.setBarcode(updated.getBarcode());
-        existing.setStatus(updated.getStatus());
-        existing.setBook(updated.getBook());
-        return copyRepo.save(existing);
+        CopyStatus oldStatus = existing.getStatus();
+        CopyStatus status = updated.getStatus();
+        if (status == null) return ResponseEntity.badRequest().body(Map.of("error", "valid status required"));
+        if (!INVENTORY_STATUSES.contains(status)) {
+            return ResponseEntity.status(409).body(Map.of("error", status + " is set by circulation, not inventory"));
+        }
+        // a copy on the hold shelf goes through its hold (cancel or pick up); one that is out can only be
+        // written off, which ends its borrow below; putting it back AVAILABLE is a return at the desk
+        if (oldStatus == CopyStatus.ON_HOLD || (oldStatus == CopyStatus.ISSUED && status == CopyStatus.AVAILABLE)
+                || !oldStatus.canMoveTo(status)) {
+            return ResponseEntity.status(409).body(Map.of("error", "cannot move copy from " + oldStatus + " to " + status));
+        }
+        if (copyRepo.compareAndSetStatus(id, oldStatus, status) != 1) return changedMeanwhile(id);
+        if (oldStatus == CopyStatus.ISSUED) borrowRepo.closeOpenByCopyId(id, LocalDate.now());
+
+        // read again now that the update holds the row lock, for the book and barcode it is moving from
+        BookCopy locked = copyRepo.findById(id).orElseThrow();
+        Integer oldBookId = bookIdOf(locked);
+        String oldBarcode = locked.getBarcode();
+        locked.setBarcode(updated.getBarcode());
+        locked.setBook(updated.getBook());
+        BookCopy saved = copyRepo.save(locked);
+        availability.copyUpdated(oldBookId, oldStatus, bookIdOf(saved), status);
+        barcodes.copyUpdated(saved.getId(), oldBarcode, saved.getBarcode(), bookIdOf(saved), status);
+        return ResponseEntity.ok(copyRepo.findDetailedById(id).orElseThrow());
     }
 
+    // Only a copy on the shelf or written off is deleted: one that is out or on the hold shelf still has
+    // a borrow or hold pointing at it
     @DeleteMapping("/{id}")
-    public void deleteCopy(@PathVariable Integer id) {
-        copyRepo.deleteById(id);
+    @Transactional
+    public ResponseEntity<?> deleteCopy(@PathVariable Integer id) {
+        BookCopy existing = copyRepo.findById(id).orElse(null);
+        if (existing == null) return ResponseEntity.ok().build();
+        CopyStatus status = existing.getStatus();
+        if (status == CopyStatus.ISSUED || status == CopyStatus.ON_HOLD) {
+            return ResponseEntity.status(409).body(Map.of("error", "Copy " + id + " is " + status));
+        }
+        // a same-status update takes the row lock, and fails if a borrow claimed the copy meanwhile
+        if (copyRepo.compareAndSetStatus(id, status, status) != 1) return changedMeanwhile(id);
+        BookCopy locked = copyRepo.findById(id).orElseThrow();
+        copyRepo.delete(locked);
+        availability.copyRemoved(bookIdOf(locked), status);
+        barcodes.copyRemoved(locked.getId(), locked.getBarcode());
+        return ResponseEntity.ok().build();
+    }
+
+    private static ResponseEntity<?> changedMeanwhile(Integer id) {
+        return ResponseEntity.status(409).body(Map.of("error", "Copy " + id + " changed while it was being updated"));
     }
 }
@@ -3,19 +3,42 @@ package com.example.catalog.controller;
 import com.example.catalog.entity.BookCopy;
 import com.example.catalog.entity.Borrow;
 import com.example.catalog.entity.Borrow.BorrowStatus;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Hold;
 import com.example.catalog.repository.BookCopyRepository;
 import com.example.catalog.repository.BorrowRepository;
+import com.example.catalog.service.AvailabilityCounters;
+import com.example.catalog.service.BarcodeIndex;
+import com.example.catalog.service.BatchCirculationService;
+import com.example.catalog.service.CopyAllocator;
+import com.example.catalog.service.HoldService;
+import com.example.catalog.service.KeysetPagination;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.catalog.dto.BorrowPayload.intList;
+import static com.example.catalog.dto.BorrowPayload.intOrNull;
+import static com.example.catalog.dto.BorrowPayload.resolveUserIdFromNode;
+import static com.example.catalog.dto.BorrowPayload.textList;
+import static com.example.catalog.dto.BorrowPayload.textOrNull;
 
 @RestController
 @RequestMapping("/api/catalog")
@@ -24,53 +47,118 @@ public class BorrowController {
 	private final Logger log = LoggerFactory.getLogger(BorrowController.class);
 	private final BookCopyRepository copyRepo;
 	private final BorrowRepository borrowRepo;
+	private final AvailabilityCounters availability;
+	private final CopyAllocator allocator;
+	private final BatchCirculationService batchService;
+	private final HoldService holds;
+	private final BarcodeIndex barcodeIndex;
+	private final KeysetPagination pagination;
+	private final ObservationRegistry observations;
+
+	// largest stack a kiosk may scan in one request
+	private static final int MAX_BATCH = 100;
+	// open bounds of the history filters, inside MySQL's DATE range
+	private static final LocalDate FIRST_DATE = LocalDate.of(1000, 1, 1);
+	private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
 
-	public BorrowController(BookCopyRepository copyRepo, BorrowRepository borrowRepo) {
+	public BorrowController(BookCopyRepository copyRepo, BorrowRepository borrowRepo,
+							AvailabilityCounters availability, CopyAllocator allocator,
+							BatchCirculationService batchService, HoldService holds, BarcodeIndex barcodeIndex,
+							KeysetPagination pagination, ObservationRegistry observations) {
 		this.copyRepo = copyRepo;
 		this.borrowRepo = borrowRepo;
+		this.availability = availability;
+		this.allocator = allocator;
+		this.batchService = batchService;
+		this.holds = holds;
+		this.barcodeIndex = barcodeIndex;
+		this.pagination = pagination;
+		this.observations = observations;
 	}
 
-	private Integer intOrNull(JsonNode node) {
-		if (node == null || node.isNull()) return null;
-		if (node.isInt() || node.isLong()) return node.asInt();
-		if (node.isTextual()) {
-			try { return Integer.valueOf(node.asText()); } catch (NumberFormatException ignored) {}
-		}
-		return null;
-	}
-
-	private Integer resolveUserIdFromNode(JsonNode root) {
-		if (root == null || root.isNull()) return null;
-		if (root.has("userId")) { Integer v=intOrNull(root.get("userId")); if (v!=null) return v; }
-		if (root.has("user_id")) { Integer v=intOrNull(root.get("user_id")); if (v!=null) return v; }
-		if (root.has("id")) { Integer v=intOrNull(root.get("id")); if (v!=null) return v; }
-		JsonNode nested = root.get("user");
-		if (nested==null) nested = root.get("userInfo");
-		if (nested!=null && nested.isObject()) {
-			Integer v=intOrNull(nested.get("userId")); if (v!=null) return v;
-			v=intOrNull(nested.get("id")); if (v!=null) return v;
-			v=intOrNull(nested.get("user_id")); if (v!=null) return v;
-		}
-		return null;
+	// Times one phase of a request as a child span of it (see SlowTraceHandler) and as a timer
+	private <T> T phase(String name, Supplier<T> work) {
+		return Observation.createNotStarted(name, observations).observe(work);
+	}
+
+	private Integer bookIdOf(BookCopy copy) {
+		return copy.getBook() != null ? copy.getBook().getId() : null;
+	}
+
+	// Only a copy in circulation is checked in at the desk (see CopyStatus.canCheckIn); a LOST or
+	// DAMAGED one goes back through inventory (PUT /api/catalog/copies/{id})
+	private static boolean canCheckIn(BookCopy copy) {
+		return copy.getStatus() == null || copy.getStatus().canCheckIn();
+	}
+
+	private static ResponseEntity<?> notCheckedIn(BookCopy copy) {
+		return ResponseEntity.status(409).body(Map.of("error", "Copy " + copy.getId() + " is " + copy.getStatus()
+				+ "; return it to stock through inventory"));
+	}
+
+	// A 500 must not commit what the request wrote before it failed
+	private static void rollBack() {
+		TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+	}
+
+	private static ResponseEntity<?> alreadyReturned(Integer borrowId) {
+		return ResponseEntity.status(409).body(Map.of("error", "Borrow " + borrowId + " is already returned"));
+	}
+
+	// Another request checked the copy in first. For a scan it can also mean the index's ISSUED was out
+	// of date: the index is corrected from the row, so the next scan gets the row's answer.
+	private ResponseEntity<?> movedMeanwhile(BookCopy copy, boolean scanned) {
+		if (scanned) barcodeIndex.refresh(copy.getId());
+		return ResponseEntity.status(409).body(Map.of("error", "Copy " + copy.getId() + " was checked in by another request"));
+	}
+
+	// What a check-in did: the hold the copy went to (null when it went back on the shelf);
+	// moved is false when the copy was not ISSUED, so there was nothing to move. LOST stands in
+	// for a copy another request checked in first, once the borrow itself was already closed.
+	private record CheckIn(boolean moved, Hold hold) {
+		static final CheckIn NOTHING = new CheckIn(false, null);
+		static final CheckIn LOST = new CheckIn(false, null);
+	}
+
+	// A copy coming back goes straight to the next hold on its title, if anyone is waiting.
+	// ISSUED -> AVAILABLE is a conditional UPDATE, so of two returns racing for one copy only the
+	// first moves it, hands it to a hold and moves the counters; null for the one that lost.
+	private CheckIn checkIn(BookCopy copy) {
+		if (copy.getStatus() != CopyStatus.ISSUED) return CheckIn.NOTHING;
+		if (copyRepo.compareAndSetStatus(copy.getId(), CopyStatus.ISSUED, CopyStatus.AVAILABLE) != 1) return null;
+		Integer bookId = bookIdOf(copy);
+		// the row stays locked by the update above until commit, so this second move cannot miss
+		Hold hold = holds.assign(bookId, copy.getId()).orElse(null);
+		if (hold != null) copyRepo.compareAndSetStatus(copy.getId(), CopyStatus.AVAILABLE, CopyStatus.ON_HOLD);
+		availability.statusChanged(bookId, CopyStatus.ISSUED, hold != null ? CopyStatus.ON_HOLD : CopyStatus.AVAILABLE);
+		barcodeIndex.statusChanged(copy.getId(), hold != null ? CopyStatus.ON_HOLD : CopyStatus.AVAILABLE);
+		return new CheckIn(true, hold);
 	}
 
 	@PostMapping("/borrow/book")
 	@Transactional
 	public ResponseEntity<?> borrowByBook(@RequestBody JsonNode body) {
 		try {
-			log.info("borrowByBook payload: {}", body == null ? "{}" : body.toString());
+			log.debug("borrowByBook payload: {}", body);
 			Integer bookId = intOrNull(body.get("bookId"));
 			Integer userId = resolveUserIdFromNode(body);
 			Integer days = intOrNull(body.get("days"));
+			Integer issuedBy = intOrNull(body.get("issuedBy"));
+			// "hold": true joins the title's hold queue instead of failing when no copy is free
+			boolean hold = body.path("hold").asBoolean(false);
 			if (bookId == null) return ResponseEntity.badRequest().body(Map.of("error","bookId required"));
 			if (userId == null) return ResponseEntity.badRequest().body(Map.of("error","userId required"));
 
-			Optional<BookCopy> opt = copyRepo.findFirstByBook_IdAndStatus(bookId, "AVAILABLE");
-			if (opt.isEmpty()) return ResponseEntity.status(409).body(Map.of("error","No available copy"));
-
-			BookCopy copy = opt.get();
-			copy.setStatus("ISSUED");
-			copyRepo.save(copy);
+			// the copy set aside for the patron's ready hold first; otherwise claims a distinct
+			// copy even when many requests race for the same title
+			Optional<Integer> claimed = phase("catalog.borrow.allocate",
+					() -> holds.pickUp(userId, bookId, null).or(() -> allocator.claimAny(bookId)));
+			if (claimed.isEmpty()) {
+				if (!hold) return ResponseEntity.status(409).body(Map.of("error","No available copy"));
+				// 202: poll GET /api/catalog/holds/{holdId}?wait=30 and borrow again once it is READY
+				return ResponseEntity.accepted().body(holds.describe(holds.place(bookId, userId)));
+			}
+			Integer copyId = claimed.get();
 
 			LocalDate issuedOn = LocalDate.now();
 			int borrowDays = (days != null && days > 0) ? days : 14;
@@ -78,16 +166,17 @@ public class BorrowController {
 
 			Borrow b = new Borrow();
 			b.setUserId(userId);
-			b.setBookCopyId(copy.getId());
+			b.setBookCopyId(copyId);
 			b.setBookId(bookId);
 			b.setIssuedOn(issuedOn);
 			b.setDueOn(dueOn);
 			b.setStatus(BorrowStatus.ACTIVE);
-			borrowRepo.save(b);
+			b.setIssuedBy(issuedBy);
+			phase("catalog.borrow.record", () -> borrowRepo.save(b));
 
 			return ResponseEntity.ok(Map.of(
 					"status","issued",
-					"bookCopyId", copy.getId(),
+					"bookCopyId", copyId,
 					"bookId", bookId,
 					"borrowId", b.getBorrowId(),
 					"issuedOn", issuedOn.toString(),
@@ -95,6 +184,7 @@ public class BorrowController {
 			));
 		} catch (Exception ex) {
 			log.error("Error in borrowByBook", ex);
+			rollBack();
 			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
 		}
 	}
@@ -103,23 +193,26 @@ public class BorrowController {
 	@Transactional
 	public ResponseEntity<?> borrowSpecific(@RequestBody JsonNode body) {
 		try {
-			log.info("borrowSpecific payload: {}", body == null ? "{}" : body.toString());
+			log.debug("borrowSpecific payload: {}", body);
 			Integer copyId = intOrNull(body.get("bookCopyId"));
+			String barcode = textOrNull(body.get("barcode"));
 			Integer userId = resolveUserIdFromNode(body);
 			Integer days = intOrNull(body.get("days"));
-			if (copyId == null) return ResponseEntity.badRequest().body(Map.of("error","bookCopyId required"));
+			Integer issuedBy = intOrNull(body.get("issuedBy"));
+			if (copyId == null && barcode == null) return ResponseEntity.badRequest().body(Map.of("error","bookCopyId or barcode required"));
 			if (userId == null) return ResponseEntity.badRequest().body(Map.of("error","userId required"));
 
-			Optional<BookCopy> opt = copyRepo.findById(copyId);
+			// a scanned barcode resolves through the in-memory index, without a query
+			Optional<BookCopy> opt = phase("catalog.borrow.lookup",
+					() -> copyId != null ? copyRepo.findById(copyId) : barcodeIndex.find(barcode));
 			if (opt.isEmpty()) return ResponseEntity.status(404).body(Map.of("error","Copy not found"));
 
-			BookCopy copy = opt.get();
-			if (!"AVAILABLE".equalsIgnoreCase(copy.getStatus())) {
-				return ResponseEntity.status(409).body(Map.of("error","Not available"));
-			}
-
-			copy.setStatus("ISSUED");
-			copyRepo.save(copy);
+			BookCopy scanned = opt.get();
+			boolean claimed = claim(scanned, userId);
+			// the index's status can trail the row: the row decides before a scan is turned away
+			BookCopy copy = claimed || copyId != null ? scanned : barcodeIndex.refresh(scanned.getId()).orElse(scanned);
+			if (!claimed && copy != scanned && copy.getStatus() != scanned.getStatus()) claimed = claim(copy, userId);
+			if (!claimed) return ResponseEntity.status(409).body(Map.of("error","Not available"));
 
 			LocalDate issuedOn = LocalDate.now();
 			int borrowDays = (days != null && days > 0) ? days : 14;
@@ -128,12 +221,12 @@ public class BorrowController {
 			Borrow b = new Borrow();
 			b.setUserId(userId);
 			b.setBookCopyId(copy.getId());
-			// if BookCopy entity has getBook() adjust accordingly; else pass copy.getBookId if mapped
-			b.setBookId(copy.getBook() != null ? copy.getBook().getId() : null);
+			b.setBookId(bookIdOf(copy));
 			b.setIssuedOn(issuedOn);
 			b.setDueOn(dueOn);
 			b.setStatus(BorrowStatus.ACTIVE);
-			borrowRepo.save(b);
+			b.setIssuedBy(issuedBy);
+			phase("catalog.borrow.record", () -> borrowRepo.save(b));
 
 			return ResponseEntity.ok(Map.of(
 					"status","issued",
@@ -144,72 +237,188 @@ public class BorrowController {
 			));
 		} catch (Exception ex) {
 			log.error("Error in borrowSpecific", ex);
+			rollBack();
 			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
 		}
 	}
 
+	// a copy on the hold shelf goes only to the patron it is set aside for
+	private boolean claim(BookCopy copy, Integer userId) {
+		return switch (copy.getStatus()) {
+			case AVAILABLE -> phase("catalog.borrow.allocate", () -> allocator.claim(copy.getId(), bookIdOf(copy)));
+			case ON_HOLD -> phase("catalog.borrow.allocate", () -> holds.pickUp(userId, bookIdOf(copy), copy.getId()).isPresent());
+			default -> false;
+		};
+	}
+
 	@PostMapping("/return")
 	@Transactional
 	public ResponseEntity<?> returnCopy(@RequestBody JsonNode body) {
 		try {
-			log.info("return payload: {}", body == null ? "{}" : body.toString());
+			log.debug("return payload: {}", body);
 			Integer copyId = intOrNull(body.get("bookCopyId"));
+			String barcode = textOrNull(body.get("barcode"));
 			Integer borrowId = intOrNull(body.get("borrowId"));
-			if (copyId == null && borrowId == null) return ResponseEntity.badRequest().body(Map.of("error","bookCopyId or borrowId required"));
+			if (copyId == null && barcode == null && borrowId == null) return ResponseEntity.badRequest().body(Map.of("error","bookCopyId, barcode or borrowId required"));
 
-			Optional<BookCopy> copyOpt = copyId != null ? copyRepo.findById(copyId) : Optional.empty();
-			if (copyId != null && copyOpt.isEmpty()) return ResponseEntity.status(404).body(Map.of("error","Copy not found"));
+			boolean scanned = copyId == null && barcode != null;
+			Optional<BookCopy> copyOpt = copyId != null ? copyRepo.findById(copyId)
+					: scanned ? barcodeIndex.find(barcode) : Optional.empty();
+			// a scan is taken at the index's word only when it says ISSUED, which the check-in confirms
+			if (scanned && copyOpt.isPresent() && copyOpt.get().getStatus() != CopyStatus.ISSUED) {
+				copyOpt = barcodeIndex.refresh(copyOpt.get().getId());
+			}
+			if ((copyId != null || barcode != null) && copyOpt.isEmpty()) return ResponseEntity.status(404).body(Map.of("error","Copy not found"));
 
 			BookCopy copy = copyOpt.orElse(null);
+			if (copy != null && !canCheckIn(copy)) return notCheckedIn(copy);
 
-			Borrow borrow = null;
-			if (borrowId != null) {
-				borrow = borrowRepo.findById(borrowId).orElse(null);
-			} else if (copy != null) {
-				List<Borrow> list = borrowRepo.findByBookCopyId(copy.getId());
-				if (!list.isEmpty()) {
-					for (int i=list.size()-1;i>=0;i--) {
-						Borrow b = list.get(i);
-						if (b.getStatus() == BorrowStatus.ACTIVE) { borrow = b; break; }
-					}
-				}
-			}
+			Borrow borrow = phase("catalog.return.lookup", () -> {
+				if (borrowId != null) return borrowRepo.findById(borrowId).orElse(null);
+				if (copy != null) return borrowRepo.findFirstByBookCopyIdAndStatusInOrderByBorrowIdDesc(copy.getId(), Borrow.OPEN_STATUSES).orElse(null);
+				return null;
+			});
 
 			if (borrow == null) {
-				if (copy != null) {
-					copy.setStatus("AVAILABLE");
-					copyRepo.save(copy);
+				if (copy == null) return ResponseEntity.status(404).body(Map.of("error","Borrow not found"));
+				CheckIn in = checkIn(copy);
+				if (in == null) return movedMeanwhile(copy, scanned);
+				if (in.hold() != null) {
+					return ResponseEntity.ok(Map.of("status","returned","holdId",in.hold().getHoldId(),"note","no borrow record found; copy set aside for a hold"));
 				}
-				return ResponseEntity.ok(Map.of("status","returned","note","no borrow record found; copy marked AVAILABLE"));
+				return ResponseEntity.ok(Map.of("status","returned","note","no borrow record found; copy is "
+						+ (in.moved() ? CopyStatus.AVAILABLE : copy.getStatus())));
 			}
+			// a replayed return must not check in a copy that has since gone out to someone else
+			if (!Borrow.OPEN_STATUSES.contains(borrow.getStatus())) return alreadyReturned(borrow.getBorrowId());
 
-			borrow.setReturnedOn(LocalDate.now());
-			borrow.setStatus(BorrowStatus.RETURNED);
-			borrowRepo.save(borrow);
+			BookCopy returned = copy != null ? copy : copyRepo.findById(borrow.getBookCopyId()).orElse(null);
+			if (returned != null && !canCheckIn(returned)) return notCheckedIn(returned);
 
-			if (copy != null) {
-				copy.setStatus("AVAILABLE");
-				copyRepo.save(copy);
-			} else {
-				Optional<BookCopy> c2 = copyRepo.findById(borrow.getBookCopyId());
-				c2.ifPresent(c -> { c.setStatus("AVAILABLE"); copyRepo.save(c); });
+			LocalDate returnedOn = LocalDate.now();
+			CheckIn in = phase("catalog.return.record", () -> {
+				// only one of two concurrent returns of the borrow closes it; the other checks nothing in
+				if (borrowRepo.closeIfOpen(borrow.getBorrowId(), returnedOn) != 1) return null;
+				CheckIn done = returned != null ? checkIn(returned) : CheckIn.NOTHING;
+				return done != null ? done : CheckIn.LOST;
+			});
+			if (in == null) return alreadyReturned(borrow.getBorrowId());
+			if (in == CheckIn.LOST) {
+				rollBack();
+				return movedMeanwhile(returned, scanned);
 			}
 
-			return ResponseEntity.ok(Map.of("status","returned","borrowId",borrow.getBorrowId(),"returnedOn",borrow.getReturnedOn().toString()));
+			Map<String, Object> out = new LinkedHashMap<>();
+			out.put("status", "returned");
+			out.put("borrowId", borrow.getBorrowId());
+			out.put("returnedOn", returnedOn.toString());
+			// the desk puts the copy on the hold shelf for this hold instead of back in the stacks
+			if (in.hold() != null) out.put("holdId", in.hold().getHoldId());
+			return ResponseEntity.ok(out);
 		} catch (Exception ex) {
 			log.error("Error in returnCopy", ex);
+			rollBack();
 			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
 		}
 	}
 
+	// Kiosk checkout: { "userId": 7, "days": 14, "bookCopyIds": [..] and/or "barcodes": [..] }
+	@PostMapping("/borrow/batch")
+	public ResponseEntity<?> borrowBatch(@RequestBody JsonNode body) {
+		try {
+			Integer userId = resolveUserIdFromNode(body);
+			Integer days = intOrNull(body.get("days"));
+			List<Integer> copyIds = intList(body.get("bookCopyIds"));
+			List<String> barcodes = textList(body.get("barcodes"));
+			if (userId == null) return ResponseEntity.badRequest().body(Map.of("error","userId required"));
+			if (copyIds.isEmpty() && barcodes.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error","bookCopyIds or barcodes required"));
+			if (copyIds.size() + barcodes.size() > MAX_BATCH) return ResponseEntity.badRequest().body(Map.of("error","at most " + MAX_BATCH + " items per batch"));
+
+			int borrowDays = (days != null && days > 0) ? days : 14;
+			return ResponseEntity.ok(batchService.borrow(userId, borrowDays, copyIds, barcodes));
+		} catch (Exception ex) {
+			log.error("Error in borrowBatch", ex);
+			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
+		}
+	}
+
+	// Kiosk return: { "bookCopyIds": [..] and/or "barcodes": [..] }
+	@PostMapping("/return/batch")
+	public ResponseEntity<?> returnBatch(@RequestBody JsonNode body) {
+		try {
+			List<Integer> copyIds = intList(body.get("bookCopyIds"));
+			List<String> barcodes = textList(body.get("barcodes"));
+			if (copyIds.isEmpty() && barcodes.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error","bookCopyIds or barcodes required"));
+			if (copyIds.size() + barcodes.size() > MAX_BATCH) return ResponseEntity.badRequest().body(Map.of("error","at most " + MAX_BATCH + " items per batch"));
+
+			return ResponseEntity.ok(batchService.returnAll(copyIds, barcodes));
+		} catch (Exception ex) {
+			log.error("Error in returnBatch", ex);
+			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
+		}
+	}
+
+	// Borrow history, newest first, one keyset page at a time
+	// GET /api/catalog/borrows/user/{userId}?status=ACTIVE,OVERDUE&from=2024-01-01&to=2024-12-31&before={cursor}&size={n}
+	// -> next cursor ("issuedOn_borrowId" of the last row) in X-Next-Cursor
 	@GetMapping("/borrows/user/{userId}")
-	public ResponseEntity<?> getBorrowHistory(@PathVariable Integer userId) {
+	public ResponseEntity<?> getBorrowHistory(@PathVariable Integer userId,
+											  @RequestParam(required = false) List<String> status,
+											  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+											  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+											  @RequestParam(required = false) String before,
+											  @RequestParam(required = false) Integer size) {
 		try {
-			List<Borrow> list = borrowRepo.findByUserIdOrderByIssuedOnDesc(userId);
-			return ResponseEntity.ok(list);
+			List<BorrowStatus> statuses = new ArrayList<>();
+			if (status == null || status.isEmpty()) {
+				statuses.addAll(List.of(BorrowStatus.values()));
+			} else {
+				for (String s : status) {
+					try {
+						statuses.add(BorrowStatus.valueOf(s.trim().toUpperCase()));
+					} catch (IllegalArgumentException e) {
+						return ResponseEntity.badRequest().body(Map.of("error","unknown status: " + s));
+					}
+				}
+			}
+
+			// first page starts above every row; later pages continue below the cursor
+			LocalDate beforeDate = LAST_DATE;
+			Integer beforeId = Integer.MAX_VALUE;
+			if (before != null && !before.isBlank()) {
+				try {
+					int sep = before.indexOf('_');
+					beforeDate = LocalDate.parse(before.substring(0, sep));
+					beforeId = Integer.valueOf(before.substring(sep + 1));
+				} catch (RuntimeException e) {
+					return ResponseEntity.badRequest().body(Map.of("error","invalid cursor"));
+				}
+			}
+
+			Limit limit = pagination.limit(size);
+			List<Borrow> rows = borrowRepo.findHistoryPage(userId, statuses,
+					from != null ? from : FIRST_DATE, to != null ? to : LAST_DATE, beforeDate, beforeId, limit);
+			return pagination.page(rows, limit, b -> b.getIssuedOn() + "_" + b.getBorrowId());
 		} catch (Exception ex) {
 			log.error("Error fetching borrow history for user "+userId, ex);
 			return ResponseEntity.status(500).body(Map.of("error","server error"));
 		}
 	}
+
+	// GET /api/catalog/borrows/user/{userId}/summary -> open-borrow counts and fines, from aggregates only
+	@GetMapping("/borrows/user/{userId}/summary")
+	public ResponseEntity<?> getBorrowSummary(@PathVariable Integer userId) {
+		try {
+			BorrowRepository.OpenCounts open = borrowRepo.countOpenByUser(userId);
+			BigDecimal fines = borrowRepo.sumFinesByUser(userId);
+			return ResponseEntity.ok(Map.of(
+					"userId", userId,
+					"activeCount", open.getActive() != null ? open.getActive() : 0L,
+					"overdueCount", open.getOverdue() != null ? open.getOverdue() : 0L,
+					"totalFines", fines != null ? fines : BigDecimal.ZERO));
+		} catch (Exception ex) {
+			log.error("Error fetching borrow summary for user "+userId, ex);
+			return ResponseEntity.status(500).body(Map.of("error","server error"));
+		}
+	}
 }
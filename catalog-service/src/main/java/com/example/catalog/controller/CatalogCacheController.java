@@ -0,0 +1,73 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.config.SecondLevelCacheConfig;
+import com.example.catalog.service.CatalogVersions;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Second-level cache of catalog reference data: per-region counters, and manual eviction
+// for rows changed outside this service (e.g. authors fixed directly in SQL).
+@RestController
+@RequestMapping("/api/catalog/cache")
+public class CatalogCacheController {
+
+	private final SessionFactory sessionFactory;
+	private final CatalogVersions versions;
+
+	public CatalogCacheController(EntityManagerFactory emf, CatalogVersions versions) {
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.versions = versions;
+	}
+
+	// GET /api/catalog/cache/stats -> { region: { hits, misses, puts, hitRatio } }
+	@GetMapping("/stats")
+	public Map<String, Object> stats() {
+		Statistics stats = sessionFactory.getStatistics();
+		Map<String, Object> out = new LinkedHashMap<>();
+		if (!stats.isStatisticsEnabled()) return out;
+		for (String region : SecondLevelCacheConfig.ENTITY_REGIONS) {
+			out.put(region, describe(stats.getDomainDataRegionStatistics(region)));
+		}
+		out.put(SecondLevelCacheConfig.QUERIES, describe(stats.getQueryRegionStatistics(SecondLevelCacheConfig.QUERIES)));
+		return out;
+	}
+
+	// POST /api/catalog/cache/evict[?region=authors] -> drops one region, or every region;
+	// either way the catalog ETags move too, since HTTP clients may hold the same stale rows
+	@PostMapping("/evict")
+	public ResponseEntity<?> evict(@RequestParam(required = false) String region) {
+		org.hibernate.Cache cache = sessionFactory.getCache();
+		if (region == null || region.isBlank()) {
+			cache.evictAllRegions();
+			versions.invalidateAll();
+			return ResponseEntity.ok(Map.of("evicted", "all"));
+		}
+		if (!SecondLevelCacheConfig.ENTITY_REGIONS.contains(region) && !SecondLevelCacheConfig.QUERIES.equals(region)) {
+			return ResponseEntity.badRequest().body(Map.of("error", "unknown region: " + region,
+					"regions", List.copyOf(stats().keySet())));
+		}
+		cache.evictRegion(region);
+		versions.invalidateAll();
+		return ResponseEntity.ok(Map.of("evicted", region));
+	}
+
+	private static Map<String, Object> describe(CacheRegionStatistics r) {
+		Map<String, Object> m = new LinkedHashMap<>();
+		if (r == null) return m;
+		long hits = r.getHitCount();
+		long misses = r.getMissCount();
+		m.put("hits", hits);
+		m.put("misses", misses);
+		m.put("puts", r.getPutCount());
+		m.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		return m;
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.repository.CatalogExportJdbcRepository.Dataset;
+import com.example.catalog.service.CatalogExporter;
+import com.example.catalog.service.CatalogExporter.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Reporting export, streamed straight from the database cursor.
+// GET /api/catalog/export/{books|copies|borrows}?format=ndjson|csv[&since=2024-06-01T02:00:00][&afterId=n]
+// gzip-compressed when the client sends Accept-Encoding: gzip (e.g. curl --compressed).
+// X-Export-Watermark holds the database time the export started, less catalog.export.watermark-lag:
+// pass it as `since` next time (see CatalogExporter).
+@RestController
+@RequestMapping("/api/catalog/export")
+public class CatalogExportController {
+
+	public static final String WATERMARK_HEADER = "X-Export-Watermark";
+
+	private final CatalogExporter exporter;
+	private final ObjectMapper mapper;
+
+	public CatalogExportController(CatalogExporter exporter, ObjectMapper mapper) {
+		this.exporter = exporter;
+		this.mapper = mapper;
+	}
+
+	@GetMapping("/{dataset}")
+	public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+									@RequestParam(defaultValue = "ndjson") String format,
+									@RequestParam(defaultValue = "0") long afterId,
+									@RequestParam(required = false) String since,
+									@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		Dataset d = CatalogExporter.dataset(dataset);
+		if (d == null) return badRequest("unknown dataset: " + dataset);
+		Format f = Format.parse(format);
+		if (f == null) return badRequest("format must be ndjson or csv");
+		LocalDateTime from;
+		try {
+			from = since == null || since.isBlank() ? null : LocalDateTime.parse(since.trim());
+		} catch (DateTimeParseException e) {
+			return badRequest("since must be an ISO date-time, e.g. 2024-06-01T02:00:00");
+		}
+		boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+		LocalDateTime watermark = exporter.watermark();
+		StreamingResponseBody body = out -> {
+			if (!gzip) {
+				exporter.export(d, f, afterId, from, out);
+				return;
+			}
+			GZIPOutputStream zipped = new GZIPOutputStream(out, 1 << 16);
+			exporter.export(d, f, afterId, from, zipped);
+			zipped.finish();
+		};
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(f.mediaType))
+				.header(WATERMARK_HEADER, watermark.toString())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+						.filename(d.name().toLowerCase(Locale.ROOT) + "." + f.extension).build().toString());
+		if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return response.body(body);
+	}
+
+	// the handler for streamed bodies is chosen by the declared type, so errors are streamed too
+	private ResponseEntity<StreamingResponseBody> badRequest(String message) {
+		return ResponseEntity.badRequest()
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(out -> mapper.writeValue(out, Map.of("error", message)));
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.service.CatalogImporter;
+import com.example.catalog.service.CatalogImporter.Format;
+import com.example.catalog.service.NdjsonStreamer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+// Bulk catalog import; the request body is read as it arrives, never buffered whole.
+//   curl -X POST -H 'Content-Type: text/csv' --data-binary @branch.csv localhost:8081/api/catalog/import
+// CSV needs a header row; columns (or NDJSON fields): isbn, title, author, publisher, category,
+// publicationYear, shelfLocation, barcodes (';'-separated in CSV), copies, status.
+// The same import runs from the command line with --catalog.import.file (see CatalogImportRunner).
+@RestController
+@RequestMapping("/api/catalog/import")
+public class CatalogImportController {
+
+	private final CatalogImporter importer;
+
+	public CatalogImportController(CatalogImporter importer) {
+		this.importer = importer;
+	}
+
+	@PostMapping(consumes = "text/csv")
+	public ResponseEntity<?> importCsv(InputStream body, @RequestParam(required = false) Integer commitSize) throws IOException {
+		return run(body, Format.CSV, commitSize);
+	}
+
+	@PostMapping(consumes = NdjsonStreamer.MEDIA_TYPE)
+	public ResponseEntity<?> importNdjson(InputStream body, @RequestParam(required = false) Integer commitSize) throws IOException {
+		return run(body, Format.NDJSON, commitSize);
+	}
+
+	private ResponseEntity<?> run(InputStream body, Format format, Integer commitSize) throws IOException {
+		if (commitSize != null && commitSize < 1) {
+			return ResponseEntity.badRequest().body(Map.of("error", "commitSize must be positive"));
+		}
+		if (importer.isRunning()) {
+			return ResponseEntity.status(409).body(Map.of("error", "an import is already running"));
+		}
+		try {
+			return ResponseEntity.ok(importer.run(body, format, commitSize));
+		} catch (IllegalStateException ex) {
+			return ResponseEntity.status(409).body(Map.of("error", ex.getMessage()));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.entity.Hold;
+import com.example.catalog.repository.HoldRepository;
+import com.example.catalog.service.HoldService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.catalog.dto.BorrowPayload.intOrNull;
+import static com.example.catalog.dto.BorrowPayload.resolveUserIdFromNode;
+
+@RestController
+@RequestMapping("/api/catalog/holds")
+public class HoldController {
+
+	private final Logger log = LoggerFactory.getLogger(HoldController.class);
+	private final HoldService holds;
+	private final HoldRepository holdRepo;
+	private final long maxWaitMillis;
+
+	public HoldController(HoldService holds, HoldRepository holdRepo,
+						  @Value("${catalog.holds.max-wait:60s}") Duration maxWait) {
+		this.holds = holds;
+		this.holdRepo = holdRepo;
+		this.maxWaitMillis = maxWait.toMillis();
+	}
+
+	// Join a title's queue: { "bookId": 3, "userId": 7 } -> the hold, with its place in the queue.
+	// Placing a hold twice returns the open one.
+	@PostMapping
+	@Transactional
+	public ResponseEntity<?> placeHold(@RequestBody JsonNode body) {
+		try {
+			Integer bookId = intOrNull(body.get("bookId"));
+			Integer userId = resolveUserIdFromNode(body);
+			if (bookId == null) return ResponseEntity.badRequest().body(Map.of("error","bookId required"));
+			if (userId == null) return ResponseEntity.badRequest().body(Map.of("error","userId required"));
+			return ResponseEntity.ok(holds.describe(holds.place(bookId, userId)));
+		} catch (Exception ex) {
+			log.error("Error placing hold", ex);
+			return ResponseEntity.status(500).body(Map.of("error","server error", "detail", ex.toString()));
+		}
+	}
+
+	@GetMapping("/{holdId}")
+	public ResponseEntity<?> getHold(@PathVariable Integer holdId) {
+		return current(holdId);
+	}
+
+	// GET /api/catalog/holds/{holdId}?wait=30 -> long poll: answers as soon as the hold is READY
+	// (or cancelled/expired), or with the still-WAITING hold after `wait` seconds. Waiting requests hold no thread.
+	@GetMapping(value = "/{holdId}", params = "wait")
+	public DeferredResult<ResponseEntity<?>> awaitHold(@PathVariable Integer holdId, @RequestParam int wait) {
+		long waitMillis = Math.max(1, Math.min(wait * 1000L, maxWaitMillis));
+		DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(waitMillis, () -> current(holdId));
+		holds.whenSettled(holdId).thenAccept(hold -> result.setResult(view(hold)));
+		return result;
+	}
+
+	// Cancel; a copy already set aside passes to the next patron in the queue
+	@DeleteMapping("/{holdId}")
+	public ResponseEntity<?> cancelHold(@PathVariable Integer holdId) {
+		return view(holds.cancel(holdId).orElse(null));
+	}
+
+	// A patron's open holds, oldest first
+	@GetMapping("/user/{userId}")
+	public List<Map<String, Object>> getUserHolds(@PathVariable Integer userId) {
+		return holdRepo.findByUserIdAndStatusInOrderByHoldIdAsc(userId, Hold.OPEN_STATUSES).stream()
+				.map(holds::describe)
+				.toList();
+	}
+
+	private ResponseEntity<?> current(Integer holdId) {
+		return view(holdRepo.findById(holdId).orElse(null));
+	}
+
+	private ResponseEntity<?> view(Hold hold) {
+		if (hold == null) return ResponseEntity.status(404).body(Map.of("error","Hold not found"));
+		return ResponseEntity.ok(holds.describe(hold));
+	}
+}
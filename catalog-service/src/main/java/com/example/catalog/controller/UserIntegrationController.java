@@ -3,7 +3,11 @@ package com.example.catalog.controller;
 import com.example.catalog.dto.UserDto;
 import com.example.catalog.service.UserClientService;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/catalog/integration")
@@ -15,8 +19,17 @@ public class UserIntegrationController {
 		this.userClientService = userClientService;
 	}
 
+	// Returns a Mono so the servlet thread is released while the user-service call is in flight
 	@GetMapping(value = "/user/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public UserDto getUser(@PathVariable Integer id) {
-		return userClientService.getUserById(id);
+	public Mono<ResponseEntity<UserDto>> getUser(@PathVariable Integer id) {
+		return userClientService.findUser(id)
+				.map(ResponseEntity::ok)
+				.defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+
+	// hit/miss/eviction counters of the user cache
+	@GetMapping("/user-cache/stats")
+	public Map<String, Object> userCacheStats() {
+		return userClientService.cacheStats();
 	}
 }
@@ -0,0 +1,27 @@
+package com.example.catalog.dto;
+
+// Read-only shape of a book for listings: filled straight from one joined JPQL row
+// (see BookRepository.BOOK_VIEW), so no entities or lazy associations are involved.
+// Serializes to the same JSON as the Book entity.
+public record BookView(Integer id, String title, String isbn, AuthorView author, PublisherView publisher,
+					   CategoryView category, Integer publicationYear, String shelfLocation) {
+
+	// flat constructor used by the JPQL constructor expression; outer-joined columns arrive as nulls
+	public BookView(Integer id, String title, String isbn,
+					Integer authorId, String authorFirstName, String authorLastName,
+					Integer publisherId, String publisherName, String publisherCity, String publisherCountry,
+					Integer categoryId, String categoryName,
+					Integer publicationYear, String shelfLocation) {
+		this(id, title, isbn,
+				authorId == null ? null : new AuthorView(authorId, authorFirstName, authorLastName),
+				publisherId == null ? null : new PublisherView(publisherId, publisherName, publisherCity, publisherCountry),
+				categoryId == null ? null : new CategoryView(categoryId, categoryName),
+				publicationYear, shelfLocation);
+	}
+
+	public record AuthorView(Integer id, String firstName, String lastName) {}
+
+	public record PublisherView(Integer id, String name, String city, String country) {}
+
+	public record CategoryView(Integer id, String name) {}
+}
@@ -0,0 +1,56 @@
+package com.example.catalog.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lenient readers for the loosely-shaped JSON bodies the borrow/return endpoints accept
+// (numbers or numeric strings, userId under several keys or nested in a user object).
+public final class BorrowPayload {
+
+	private BorrowPayload() {}
+
+	public static Integer intOrNull(JsonNode node) {
+		if (node == null || node.isNull()) return null;
+		if (node.isInt() || node.isLong()) return node.asInt();
+		if (node.isTextual()) {
+			try { return Integer.valueOf(node.asText()); } catch (NumberFormatException ignored) {}
+		}
+		return null;
+	}
+
+	public static String textOrNull(JsonNode node) {
+		if (node == null || !node.isValueNode() || node.asText().isBlank()) return null;
+		return node.asText().trim();
+	}
+
+	public static Integer resolveUserIdFromNode(JsonNode root) {
+		if (root == null || root.isNull()) return null;
+		if (root.has("userId")) { Integer v=intOrNull(root.get("userId")); if (v!=null) return v; }
+		if (root.has("user_id")) { Integer v=intOrNull(root.get("user_id")); if (v!=null) return v; }
+		if (root.has("id")) { Integer v=intOrNull(root.get("id")); if (v!=null) return v; }
+		JsonNode nested = root.get("user");
+		if (nested==null) nested = root.get("userInfo");
+		if (nested!=null && nested.isObject()) {
+			Integer v=intOrNull(nested.get("userId")); if (v!=null) return v;
+			v=intOrNull(nested.get("id")); if (v!=null) return v;
+			v=intOrNull(nested.get("user_id")); if (v!=null) return v;
+		}
+		return null;
+	}
+
+	public static List<Integer> intList(JsonNode node) {
+		List<Integer> out = new ArrayList<>();
+		if (node == null || !node.isArray()) return out;
+		for (JsonNode n : node) { Integer v = intOrNull(n); if (v != null) out.add(v); }
+		return out;
+	}
+
+	public static List<String> textList(JsonNode node) {
+		List<String> out = new ArrayList<>();
+		if (node == null || !node.isArray()) return out;
+		for (JsonNode n : node) { if (n.isValueNode() && !n.asText().isBlank()) out.add(n.asText().trim()); }
+		return out;
+	}
+}
@@ -0,0 +1,24 @@
+package com.example.catalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+// One line of a bulk catalog import (CSV with a header row, or NDJSON). A row is a book plus the
+// copies to add for it: one per barcode, and `copies` more without a barcode. Rows sharing an
+// ISBN, in the file or already in the catalog, add copies to the same book. Numbers and the
+// status stay strings here so a bad value is reported against its line instead of ending the read.
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ImportRow(
+		String isbn,
+		String title,
+		String author,
+		String publisher,
+		String category,
+		String publicationYear,
+		String shelfLocation,
+		List<String> barcodes,
+		String copies,
+		String status
+) {
+}
@@ -1,9 +1,19 @@
 package com.example.catalog.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
+
+// second-level cached by id; writes through Hibernate update the cached entry on commit
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Book {
 
     @Id
@@ -17,15 +27,16 @@ public class Book {
     @Column(unique = true)
     private String isbn;
 
-    @ManyToOne
+    // lazy: each query picks its own fetch plan (BookView projections, entity graphs)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private Author author;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "publisher_id")
     private Publisher publisher;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -35,6 +46,12 @@ public class Book {
     @Column(name = "shelf_location")
     private String shelfLocation;
 
+    // set by the database on every write (see V5 migration); the watermark of incremental exports
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false,
+                columnDefinition = "timestamp(3) not null default current_timestamp(3) on update current_timestamp(3)")
+    private LocalDateTime updatedAt;
+
     // getters & setters
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
@@ -59,4 +76,6 @@ public class Book {
 
     public String getShelfLocation() { return shelfLocation; }
     public void setShelfLocation(String shelfLocation) { this.shelfLocation = shelfLocation; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
@@ -1,7 +1,10 @@
 package com.example.catalog.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "book_copies")
 public class BookCopy {
@@ -11,15 +14,23 @@ public class BookCopy {
     @Column(name = "copy_id")
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
     @Column(unique = true)
     private String barcode;
 
-    @Column(nullable = false)
-    private String status;   // AVAILABLE, ISSUED, LOST, DAMAGED
+    // stored by name in a MySQL ENUM column (1 byte), indexed with book_id for allocation
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CopyStatus status = CopyStatus.AVAILABLE;
+
+    // set by the database on every write (see V5 migration); the watermark of incremental exports
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false,
+                columnDefinition = "timestamp(3) not null default current_timestamp(3) on update current_timestamp(3)")
+    private LocalDateTime updatedAt;
 
     // getters & setters
     public Integer getId() { return id; }
@@ -31,6 +42,8 @@ public class BookCopy {
     public String getBarcode() { return barcode; }
     public void setBarcode(String barcode) { this.barcode = barcode; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public CopyStatus getStatus() { return status; }
+    public void setStatus(CopyStatus status) { this.status = status; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
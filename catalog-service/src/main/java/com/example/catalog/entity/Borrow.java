@@ -1,7 +1,11 @@
 package com.example.catalog.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "borrows")
@@ -37,10 +41,27 @@ public class Borrow {
 	@Column(name = "notes")
 	private String notes;
 
+	// staff member who issued the copy; null for self-service and kiosk checkouts
+	@Column(name = "issued_by")
+	private Integer issuedBy;
+
+	// running fine while overdue (see OverdueJob), kept after return
+	@Column(name = "fine_amount", precision = 10, scale = 2)
+	private BigDecimal fineAmount;
+
+	// set by the database on every write (see V5 migration); the watermark of incremental exports
+	@JsonIgnore
+	@Column(name = "updated_at", insertable = false, updatable = false,
+				columnDefinition = "timestamp(3) not null default current_timestamp(3) on update current_timestamp(3)")
+	private LocalDateTime updatedAt;
+
 	public enum BorrowStatus {
 		ACTIVE, RETURNED, OVERDUE
 	}
 
+	// statuses of a borrow whose copy is still out
+	public static final List<BorrowStatus> OPEN_STATUSES = List.of(BorrowStatus.ACTIVE, BorrowStatus.OVERDUE);
+
 	// Getters & setters
 	public Integer getBorrowId() { return borrowId; }
 	public void setBorrowId(Integer borrowId) { this.borrowId = borrowId; }
@@ -68,4 +89,12 @@ public class Borrow {
 
 	public String getNotes() { return notes; }
 	public void setNotes(String notes) { this.notes = notes; }
+
+	public Integer getIssuedBy() { return issuedBy; }
+	public void setIssuedBy(Integer issuedBy) { this.issuedBy = issuedBy; }
+
+	public BigDecimal getFineAmount() { return fineAmount; }
+	public void setFineAmount(BigDecimal fineAmount) { this.fineAmount = fineAmount; }
+
+	public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
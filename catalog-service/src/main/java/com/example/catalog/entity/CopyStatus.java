@@ -0,0 +1,47 @@
+package com.example.catalog.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Lifecycle of a physical copy. Circulation moves AVAILABLE -> ISSUED -> AVAILABLE/LOST/DAMAGED;
+// inventory can also pull a shelved copy as LOST/DAMAGED and put a found or repaired copy back.
+// A copy returned while patrons are waiting is set aside ON_HOLD for the next of them, and goes
+// out as ISSUED when picked up (or back to AVAILABLE when the hold lapses).
+public enum CopyStatus {
+	AVAILABLE, ISSUED, LOST, DAMAGED, ON_HOLD;
+
+	private Set<CopyStatus> next;
+
+	static {
+		AVAILABLE.next = EnumSet.of(ISSUED, LOST, DAMAGED, ON_HOLD);
+		ISSUED.next = EnumSet.of(AVAILABLE, LOST, DAMAGED, ON_HOLD);
+		LOST.next = EnumSet.of(AVAILABLE);
+		DAMAGED.next = EnumSet.of(AVAILABLE);
+		ON_HOLD.next = EnumSet.of(ISSUED, AVAILABLE, LOST, DAMAGED);
+	}
+
+	// staying in the same state is always allowed (e.g. returning a copy that is already AVAILABLE)
+	public boolean canMoveTo(CopyStatus target) {
+		return target == this || next.contains(target);
+	}
+
+	// A copy the circulation desk can check in: it may be set aside for a hold or go back on the shelf.
+	// A LOST or DAMAGED copy returns to stock through inventory instead.
+	public boolean canCheckIn() {
+		return canMoveTo(ON_HOLD) && canMoveTo(AVAILABLE);
+	}
+
+	// Case-insensitive, for path variables and request bodies; null for unknown names.
+	@JsonCreator
+	public static CopyStatus parse(String name) {
+		if (name == null) return null;
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.catalog.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A patron's place in the queue for a title. A returned copy goes to the oldest WAITING hold,
+// which becomes READY with that copy set aside (ON_HOLD) until it is picked up or expires.
+@Entity
+@Table(name = "holds")
+public class Hold {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "hold_id")
+	private Integer holdId;
+
+	@Column(name = "book_id", nullable = false)
+	private Integer bookId;
+
+	@Column(name = "user_id", nullable = false)
+	private Integer userId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, length = 16)
+	private HoldStatus status = HoldStatus.WAITING;
+
+	// the copy set aside once the hold is READY
+	@Column(name = "book_copy_id")
+	private Integer bookCopyId;
+
+	@Column(name = "placed_at", nullable = false)
+	private LocalDateTime placedAt;
+
+	@Column(name = "ready_at")
+	private LocalDateTime readyAt;
+
+	// end of the pickup window of a READY hold
+	@Column(name = "expires_at")
+	private LocalDateTime expiresAt;
+
+	public enum HoldStatus {
+		WAITING, READY, FULFILLED, CANCELLED, EXPIRED
+	}
+
+	// statuses of a hold that still has a claim on the title
+	public static final List<HoldStatus> OPEN_STATUSES = List.of(HoldStatus.WAITING, HoldStatus.READY);
+
+	// Getters & setters
+	public Integer getHoldId() { return holdId; }
+	public void setHoldId(Integer holdId) { this.holdId = holdId; }
+
+	public Integer getBookId() { return bookId; }
+	public void setBookId(Integer bookId) { this.bookId = bookId; }
+
+	public Integer getUserId() { return userId; }
+	public void setUserId(Integer userId) { this.userId = userId; }
+
+	public HoldStatus getStatus() { return status; }
+	public void setStatus(HoldStatus status) { this.status = status; }
+
+	public Integer getBookCopyId() { return bookCopyId; }
+	public void setBookCopyId(Integer bookCopyId) { this.bookCopyId = bookCopyId; }
+
+	public LocalDateTime getPlacedAt() { return placedAt; }
+	public void setPlacedAt(LocalDateTime placedAt) { this.placedAt = placedAt; }
+
+	public LocalDateTime getReadyAt() { return readyAt; }
+	public void setReadyAt(LocalDateTime readyAt) { this.readyAt = readyAt; }
+
+	public LocalDateTime getExpiresAt() { return expiresAt; }
+	public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
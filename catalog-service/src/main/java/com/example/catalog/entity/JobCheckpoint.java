@@ -0,0 +1,50 @@
+package com.example.catalog.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress marker of a chunked background job, so a restarted instance resumes where the last one stopped.
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+
+	@Id
+	@Column(name = "job_name", length = 64)
+	private String jobName;
+
+	@Column(name = "run_date", nullable = false)
+	private LocalDate runDate;
+
+	@Column(name = "last_id", nullable = false)
+	private Integer lastId = 0;
+
+	@Column(name = "completed", nullable = false)
+	private boolean completed;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	public JobCheckpoint() {}
+
+	public JobCheckpoint(String jobName, LocalDate runDate) {
+		this.jobName = jobName;
+		this.runDate = runDate;
+		this.updatedAt = LocalDateTime.now();
+	}
+
+	// Getters & setters
+	public String getJobName() { return jobName; }
+
+	public LocalDate getRunDate() { return runDate; }
+	public void setRunDate(LocalDate runDate) { this.runDate = runDate; }
+
+	public Integer getLastId() { return lastId; }
+	public void setLastId(Integer lastId) { this.lastId = lastId; }
+
+	public boolean isCompleted() { return completed; }
+	public void setCompleted(boolean completed) { this.completed = completed; }
+
+	public LocalDateTime getUpdatedAt() { return updatedAt; }
+	public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
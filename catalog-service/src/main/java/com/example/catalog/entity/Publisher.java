@@ -1,9 +1,15 @@
 package com.example.catalog.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "publishers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "publishers")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Publisher {
 
     @Id
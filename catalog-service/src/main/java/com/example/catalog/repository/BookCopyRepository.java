@@ -1,17 +1,102 @@
 package com.example.catalog.repository;
 
 import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.Optional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookCopyRepository extends JpaRepository<BookCopy, Integer> {
 
+    // Listings serialize each copy with its book, so the book and its associations are
+    // fetched in the same joined query (entity graph) instead of one select per row
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
     List<BookCopy> findByBook_Id(Integer bookId);
 
-    List<BookCopy> findByStatus(String status);
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
+    List<BookCopy> findByStatus(CopyStatus status);
 
-    Optional<BookCopy> findFirstByBook_IdAndStatus(Integer bookId, String status);
+    // index seek on idx_book_copies_book_status (book_id, status)
+    Optional<BookCopy> findFirstByBook_IdAndStatus(Integer bookId, CopyStatus status);
+
+    // keyset page: rows strictly after the cursor, in primary-key order
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
+    List<BookCopy> findByIdGreaterThanOrderByIdAsc(Integer afterId, Limit limit);
+
+    // forward-only cursor for NDJSON streaming; must be consumed inside a transaction
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookCopy> streamAllByOrderByIdAsc();
+
+    // Candidate copies for allocation: a current (locking) read that skips rows other
+    // borrowers have already locked, so concurrent requests fan out over different copies
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // lock timeout -2 is Hibernate's SKIP LOCKED (the deprecated LockOptions.SKIP_LOCKED)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("select c.id from BookCopy c where c.book.id = :bookId and c.status = :status order by c.id")
+    List<Integer> lockCopyIdsByBookAndStatus(Integer bookId, CopyStatus status, Limit limit);
+
+    // Atomic status transition: updates only if the copy is still in the expected state (1 = claimed, 0 = lost the race)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update BookCopy c set c.status = :to where c.id = :id and c.status = :from")
+    int compareAndSetStatus(Integer id, CopyStatus from, CopyStatus to);
+
+    // Batch circulation: resolve and lock every scanned copy in one statement, in id order to avoid deadlocks
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BookCopy c where c.id in :ids order by c.id")
+    List<BookCopy> lockAllByIdIn(Collection<Integer> ids);
+
+    // a copy to hand back to the client: its book comes loaded, since the response is written after the session closes
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
+    Optional<BookCopy> findDetailedById(Integer id);
+
+    // unique index on barcode; what scans fall back to when BarcodeIndex misses
+    @EntityGraph(attributePaths = {"book", "book.author", "book.publisher", "book.category"})
+    Optional<BookCopy> findByBarcode(String barcode);
+
+    // id, barcode, book and status of every barcoded copy, streamed to seed BarcodeIndex; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("select c.id as id, c.barcode as barcode, c.book.id as bookId, c.status as status from BookCopy c where c.barcode is not null")
+    Stream<BarcodeRow> streamBarcodes();
+
+    interface BarcodeRow {
+        Integer getId();
+        String getBarcode();
+        Integer getBookId();
+        CopyStatus getStatus();
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BookCopy c where c.barcode in :barcodes order by c.id")
+    List<BookCopy> lockAllByBarcodeIn(Collection<String> barcodes);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update BookCopy c set c.status = :status where c.id in :ids")
+    int updateStatusByIdIn(Collection<Integer> ids, CopyStatus status);
+
+    // one aggregate row per book, used to seed the in-memory availability counters
+    @Query("select c.book.id as bookId, count(c) as total, "
+            + "sum(case when c.status = com.example.catalog.entity.CopyStatus.AVAILABLE then 1 else 0 end) as available "
+            + "from BookCopy c group by c.book.id")
+    List<CopyCounts> countCopiesByBook();
+
+    interface CopyCounts {
+        Integer getBookId();
+        Long getTotal();
+        Long getAvailable();
+    }
 
 }
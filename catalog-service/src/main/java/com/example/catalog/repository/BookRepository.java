@@ -1,13 +1,51 @@
 package com.example.catalog.repository;
 
+import com.example.catalog.dto.BookView;
 import com.example.catalog.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Integer> {
 
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    // One row per book with its author, publisher and category outer-joined in
+    String BOOK_VIEW = "select new com.example.catalog.dto.BookView(b.id, b.title, b.isbn, "
+            + "a.id, a.firstName, a.lastName, p.id, p.name, p.city, p.country, c.id, c.name, "
+            + "b.publicationYear, b.shelfLocation) "
+            + "from Book b left join b.author a left join b.publisher p left join b.category c ";
 
-    List<Book> findByCategory_NameIgnoreCase(String categoryName);
+    // keyset page: rows strictly after the cursor, in primary-key order
+    @Query(BOOK_VIEW + "where b.id > :afterId order by b.id")
+    List<BookView> findViewsAfter(Integer afterId, Limit limit);
+
+    @Query(BOOK_VIEW + "where b.id in :ids")
+    List<BookView> findViewsByIdIn(Collection<Integer> ids);
+
+    @Query(BOOK_VIEW + "where lower(b.title) like lower(concat('%', :title, '%')) order by b.id")
+    List<BookView> findViewsByTitleContaining(String title);
+
+    // query cache: results stay until a books/authors/publishers/categories write invalidates them
+    // (results a replica served are not cached, see ReplicaAwareRegionFactory)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(BOOK_VIEW + "where lower(c.name) = lower(:categoryName) order by b.id")
+    List<BookView> findViewsByCategoryName(String categoryName);
+
+    // cached query over cached entities: a repeat lookup reads no rows at all
+    @EntityGraph(attributePaths = {"author", "publisher", "category"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Book> findDetailedById(Integer id);
+
+    // forward-only cursor for NDJSON streaming and the search index; must be consumed inside a transaction
+    @EntityGraph(attributePaths = {"author", "publisher", "category"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Book> streamAllByOrderByIdAsc();
 }
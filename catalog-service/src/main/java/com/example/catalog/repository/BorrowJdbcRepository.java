@@ -0,0 +1,56 @@
+package com.example.catalog.repository;
+
+import com.example.catalog.entity.Borrow;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+// Plain JDBC writes for Borrow rows. The entity uses IDENTITY ids, which turns off Hibernate's
+// insert batching, so multi-row inserts go through one batched PreparedStatement instead.
+// Runs on the connection of the surrounding JPA transaction.
+@Repository
+public class BorrowJdbcRepository {
+
+	private static final String INSERT_SQL = "insert into borrows "
+			+ "(user_id, book_copy_id, book_id, issued_on, due_on, status, notes, issued_by) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbc;
+
+	public BorrowJdbcRepository(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	// Inserts all rows in one JDBC batch and sets the generated borrowId on each.
+	public void insertAll(List<Borrow> borrows) {
+		if (borrows.isEmpty()) return;
+		jdbc.execute((Connection con) -> {
+			try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				for (Borrow b : borrows) {
+					ps.setInt(1, b.getUserId());
+					ps.setInt(2, b.getBookCopyId());
+					ps.setInt(3, b.getBookId());
+					ps.setDate(4, Date.valueOf(b.getIssuedOn()));
+					ps.setDate(5, Date.valueOf(b.getDueOn()));
+					ps.setString(6, b.getStatus().name());
+					ps.setString(7, b.getNotes());
+					ps.setObject(8, b.getIssuedBy(), Types.INTEGER);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					for (int i = 0; i < borrows.size() && keys.next(); i++) {
+						borrows.get(i).setBorrowId(keys.getInt(1));
+					}
+				}
+			}
+			return null;
+		});
+	}
+}
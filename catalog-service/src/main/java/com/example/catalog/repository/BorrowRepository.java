@@ -1,11 +1,88 @@
 package com.example.catalog.repository;
 
 import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Borrow.BorrowStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BorrowRepository extends JpaRepository<Borrow, Integer> {
-	List<Borrow> findByUserIdOrderByIssuedOnDesc(Integer userId);
-	List<Borrow> findByBookCopyId(Integer bookCopyId);
+	// History page, newest first: (issued_on, borrow_id) keyset below the cursor, within the
+	// status set and issue-date range. Served by idx_borrows_user_issued (user_id, issued_on).
+	@Query("select b from Borrow b where b.userId = :userId and b.status in :statuses "
+			+ "and b.issuedOn between :from and :to "
+			+ "and b.issuedOn <= :beforeDate and (b.issuedOn < :beforeDate or b.borrowId < :beforeId) "
+			+ "order by b.issuedOn desc, b.borrowId desc")
+	List<Borrow> findHistoryPage(Integer userId, Collection<BorrowStatus> statuses, LocalDate from, LocalDate to,
+								 LocalDate beforeDate, Integer beforeId, Limit limit);
+
+	// The open (active or overdue) borrow of a copy; served by idx_borrows_copy_status (book_copy_id, status)
+	Optional<Borrow> findFirstByBookCopyIdAndStatusInOrderByBorrowIdDesc(Integer bookCopyId, Collection<BorrowStatus> statuses);
+
+	List<Borrow> findByBookCopyIdInAndStatusIn(Collection<Integer> bookCopyIds, Collection<BorrowStatus> statuses);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Borrow b set b.status = com.example.catalog.entity.Borrow.BorrowStatus.RETURNED, b.returnedOn = :returnedOn where b.borrowId in :ids")
+	int markReturned(Collection<Integer> ids, LocalDate returnedOn);
+
+	// closes one borrow only while it is still open, so of two returns of it just one gets 1
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Borrow b set b.status = com.example.catalog.entity.Borrow.BorrowStatus.RETURNED, b.returnedOn = :returnedOn "
+			+ "where b.borrowId = :id and b.status in (com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE, "
+			+ "com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE)")
+	int closeIfOpen(Integer id, LocalDate returnedOn);
+
+	// inventory writing off a copy that is out: its open borrow ends with it
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Borrow b set b.status = com.example.catalog.entity.Borrow.BorrowStatus.RETURNED, b.returnedOn = :returnedOn "
+			+ "where b.bookCopyId = :copyId and b.status in (com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE, "
+			+ "com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE)")
+	int closeOpenByCopyId(Integer copyId, LocalDate returnedOn);
+
+	// overdue job: next chunk of ACTIVE borrows past due, in id order after the checkpoint
+	@Query("select b.borrowId from Borrow b where b.status = com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE and b.dueOn < :today and b.borrowId > :afterId order by b.borrowId")
+	List<Integer> findOverdueIds(LocalDate today, Integer afterId, Limit limit);
+
+	// re-checks ACTIVE so a copy returned since the select is left alone
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Borrow b set b.status = com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE where b.borrowId in :ids and b.status = com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE")
+	int markOverdue(Collection<Integer> ids);
+
+	// overdue job, fines pass: next chunk of OVERDUE borrows in id order after the checkpoint
+	// (the borrows pass has already moved every past-due borrow to OVERDUE); idx_borrows_status_id
+	@Query("select b.borrowId as borrowId, b.dueOn as dueOn from Borrow b where b.status = com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE and b.borrowId > :afterId order by b.borrowId")
+	List<OverdueBorrow> findOverdue(Integer afterId, Limit limit);
+
+	// re-checks OVERDUE so a copy returned since the select keeps the fine it was returned with
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Borrow b set b.fineAmount = :fine where b.borrowId in :ids and b.status = com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE")
+	int setFine(Collection<Integer> ids, BigDecimal fine);
+
+	// fines of open and returned borrows alike; idx_borrows_user_status (user_id, status)
+	@Query("select coalesce(sum(b.fineAmount), 0) from Borrow b where b.userId = :userId")
+	BigDecimal sumFinesByUser(Integer userId);
+
+	// Per-user open-borrow counts from idx_borrows_user_status, without touching returned history
+	@Query("select sum(case when b.status = com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE then 1 else 0 end) as active, "
+			+ "sum(case when b.status = com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE then 1 else 0 end) as overdue "
+			+ "from Borrow b where b.userId = :userId and b.status in ("
+			+ "com.example.catalog.entity.Borrow.BorrowStatus.ACTIVE, com.example.catalog.entity.Borrow.BorrowStatus.OVERDUE)")
+	OpenCounts countOpenByUser(Integer userId);
+
+	interface OverdueBorrow {
+		Integer getBorrowId();
+		LocalDate getDueOn();
+	}
+
+	interface OpenCounts {
+		Long getActive();
+		Long getOverdue();
+	}
 }
@@ -0,0 +1,66 @@
+package com.example.catalog.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Forward-only reads for reporting exports: the extractor walks the result set as rows come off
+// the cursor and never collects them. With useCursorFetch=true on the MySQL URL a positive fetch size
+// makes the server stream the result in fetch-size batches instead of sending it all at once.
+@Repository
+public class CatalogExportJdbcRepository {
+
+	public enum Dataset {
+		BOOKS("select b.book_id, b.title, b.isbn, b.author_id, a.first_name as author_first_name, "
+				+ "a.last_name as author_last_name, b.publisher_id, p.name as publisher_name, "
+				+ "b.category_id, c.name as category_name, b.publication_year, b.shelf_location, b.updated_at "
+				+ "from books b left join authors a on a.author_id = b.author_id "
+				+ "left join publishers p on p.publisher_id = b.publisher_id "
+				+ "left join categories c on c.category_id = b.category_id", "b.book_id", "b.updated_at"),
+		COPIES("select copy_id, book_id, barcode, status, updated_at from book_copies", "copy_id", "updated_at"),
+		BORROWS("select borrow_id, user_id, book_copy_id, book_id, issued_on, due_on, returned_on, status, notes, "
+				+ "issued_by, fine_amount, updated_at from borrows", "borrow_id", "updated_at");
+
+		private final String select;
+		private final String id;
+		private final String updatedAt;
+
+		Dataset(String select, String id, String updatedAt) {
+			this.select = select;
+			this.id = id;
+			this.updatedAt = updatedAt;
+		}
+	}
+
+	private final JdbcTemplate jdbc;
+
+	public CatalogExportJdbcRepository(DataSource dataSource, @Value("${catalog.export.fetch-size:1000}") int fetchSize) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.jdbc.setFetchSize(fetchSize);
+	}
+
+	// Database clock; the export watermark is taken from it (see CatalogExporter).
+	public LocalDateTime now() {
+		return jdbc.queryForObject("select current_timestamp(3)", Timestamp.class).toLocalDateTime();
+	}
+
+	// Rows with id > afterId and, when given, updated at or after `since`, in id order.
+	public <T> T read(Dataset dataset, long afterId, LocalDateTime since, ResultSetExtractor<T> extractor) {
+		List<Object> args = new ArrayList<>(2);
+		StringBuilder sql = new StringBuilder(dataset.select).append(" where ").append(dataset.id).append(" > ?");
+		args.add(afterId);
+		if (since != null) {
+			sql.append(" and ").append(dataset.updatedAt).append(" >= ?");
+			args.add(Timestamp.valueOf(since));
+		}
+		sql.append(" order by ").append(dataset.id);
+		return jdbc.query(sql.toString(), extractor, args.toArray());
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.catalog.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Plain JDBC reads and batched inserts for the bulk catalog import (see CatalogImporter). All
+// catalog entities use IDENTITY ids, so JPA would insert them one statement at a time.
+// Runs on the connection of the surrounding JPA transaction.
+@Repository
+public class CatalogImportJdbcRepository {
+
+	public record AuthorRow(Integer id, String firstName, String lastName) {}
+
+	public record NamedRow(Integer id, String name) {}
+
+	public record NewBook(String title, String isbn, Integer authorId, Integer publisherId, Integer categoryId,
+						  Integer publicationYear, String shelfLocation) {}
+
+	public record NewCopy(int bookId, String barcode, String status) {}
+
+	private final JdbcTemplate jdbc;
+	private final NamedParameterJdbcTemplate named;
+
+	public CatalogImportJdbcRepository(JdbcTemplate jdbc, NamedParameterJdbcTemplate named) {
+		this.jdbc = jdbc;
+		this.named = named;
+	}
+
+	// --- reference data, loaded once per import for the dedupe maps ---
+
+	public List<AuthorRow> findAllAuthors() {
+		return jdbc.query("select author_id, first_name, last_name from authors",
+				(rs, i) -> new AuthorRow(rs.getInt(1), rs.getString(2), rs.getString(3)));
+	}
+
+	public List<NamedRow> findAllPublishers() {
+		return jdbc.query("select publisher_id, name from publishers", (rs, i) -> new NamedRow(rs.getInt(1), rs.getString(2)));
+	}
+
+	public List<NamedRow> findAllCategories() {
+		return jdbc.query("select category_id, name from categories", (rs, i) -> new NamedRow(rs.getInt(1), rs.getString(2)));
+	}
+
+	// --- per-chunk lookups ---
+
+	public Map<String, Integer> findBookIdsByIsbn(Collection<String> isbns) {
+		Map<String, Integer> ids = new HashMap<>();
+		if (isbns.isEmpty()) return ids;
+		named.query("select isbn, book_id from books where isbn in (:isbns)", Map.of("isbns", isbns),
+				rs -> {
+					ids.put(rs.getString(1), rs.getInt(2));
+				});
+		return ids;
+	}
+
+	public Set<String> findExistingBarcodes(Collection<String> barcodes) {
+		if (barcodes.isEmpty()) return Set.of();
+		return new HashSet<>(named.queryForList("select barcode from book_copies where barcode in (:barcodes)",
+				Map.of("barcodes", barcodes), String.class));
+	}
+
+	// --- batched inserts; each returns the generated ids in input order ---
+
+	public List<Integer> insertAuthors(List<AuthorRow> authors) {
+		return insert("insert into authors (first_name, last_name) values (?, ?)", authors, (ps, a) -> {
+			ps.setString(1, a.firstName());
+			ps.setString(2, a.lastName());
+		});
+	}
+
+	public List<Integer> insertPublishers(List<String> names) {
+		return insert("insert into publishers (name) values (?)", names, (ps, name) -> ps.setString(1, name));
+	}
+
+	public List<Integer> insertCategories(List<String> names) {
+		return insert("insert into categories (name) values (?)", names, (ps, name) -> ps.setString(1, name));
+	}
+
+	public List<Integer> insertBooks(List<NewBook> books) {
+		return insert("insert into books (title, isbn, author_id, publisher_id, category_id, publication_year, shelf_location) "
+				+ "values (?, ?, ?, ?, ?, ?, ?)", books, (ps, b) -> {
+			ps.setString(1, b.title());
+			ps.setString(2, b.isbn());
+			setInt(ps, 3, b.authorId());
+			setInt(ps, 4, b.publisherId());
+			setInt(ps, 5, b.categoryId());
+			setInt(ps, 6, b.publicationYear());
+			ps.setString(7, b.shelfLocation());
+		});
+	}
+
+	// generated copy ids, in row order
+	public List<Integer> insertCopies(List<NewCopy> copies) {
+		return insert("insert into book_copies (book_id, barcode, status) values (?, ?, ?)", copies, (ps, c) -> {
+			ps.setInt(1, c.bookId());
+			ps.setString(2, c.barcode());
+			ps.setString(3, c.status());
+		});
+	}
+
+	private interface Binder<T> {
+		void bind(PreparedStatement ps, T row) throws SQLException;
+	}
+
+	private <T> List<Integer> insert(String sql, List<T> rows, Binder<T> binder) {
+		List<Integer> ids = new ArrayList<>(rows.size());
+		if (rows.isEmpty()) return ids;
+		jdbc.execute((Connection con) -> {
+			try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+				for (T row : rows) {
+					binder.bind(ps, row);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					while (keys.next()) ids.add(keys.getInt(1));
+				}
+			}
+			return null;
+		});
+		if (ids.size() != rows.size()) {
+			throw new IllegalStateException("expected " + rows.size() + " generated ids, got " + ids.size());
+		}
+		return ids;
+	}
+
+	private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+		if (value == null) ps.setNull(index, Types.INTEGER);
+		else ps.setInt(index, value);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.catalog.repository;
+
+import com.example.catalog.entity.Hold;
+import com.example.catalog.entity.Hold.HoldStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldRepository extends JpaRepository<Hold, Integer> {
+
+	// A patron's open hold on a title; served by idx_holds_user_status (user_id, status)
+	Optional<Hold> findFirstByUserIdAndBookIdAndStatusIn(Integer userId, Integer bookId, Collection<HoldStatus> statuses);
+
+	List<Hold> findByUserIdAndStatusInOrderByHoldIdAsc(Integer userId, Collection<HoldStatus> statuses);
+
+	// every open hold in arrival order, to seed the in-memory queues at startup
+	@Query("select h.holdId as holdId, h.bookId as bookId, h.userId as userId, h.status as status from Hold h "
+			+ "where h.status in (com.example.catalog.entity.Hold.HoldStatus.WAITING, "
+			+ "com.example.catalog.entity.Hold.HoldStatus.READY) order by h.holdId")
+	List<OpenHold> findAllOpen();
+
+	// head of one title's queue from idx_holds_book_status, used until the in-memory queues are loaded
+	@Query("select h.holdId from Hold h where h.bookId = :bookId "
+			+ "and h.status = com.example.catalog.entity.Hold.HoldStatus.WAITING order by h.holdId")
+	List<Integer> findWaitingIds(Integer bookId, Limit limit);
+
+	// WAITING -> READY with the copy set aside; 0 when the hold was cancelled or served meanwhile
+	@Modifying(flushAutomatically = true)
+	@Query("update Hold h set h.status = com.example.catalog.entity.Hold.HoldStatus.READY, h.bookCopyId = :copyId, "
+			+ "h.readyAt = :readyAt, h.expiresAt = :expiresAt "
+			+ "where h.holdId = :holdId and h.status = com.example.catalog.entity.Hold.HoldStatus.WAITING")
+	int markReady(Integer holdId, Integer copyId, LocalDateTime readyAt, LocalDateTime expiresAt);
+
+	// Atomic status transition, as for copies (1 = moved, 0 = not in the expected state)
+	@Modifying(flushAutomatically = true)
+	@Query("update Hold h set h.status = :to where h.holdId = :holdId and h.status = :from")
+	int compareAndSetStatus(Integer holdId, HoldStatus from, HoldStatus to);
+
+	// READY holds whose pickup window has closed; idx_holds_status_expires
+	@Query("select h.holdId from Hold h where h.status = com.example.catalog.entity.Hold.HoldStatus.READY "
+			+ "and h.expiresAt < :now order by h.holdId")
+	List<Integer> findExpiredIds(LocalDateTime now, Limit limit);
+
+	interface OpenHold {
+		Integer getHoldId();
+		Integer getBookId();
+		Integer getUserId();
+		HoldStatus getStatus();
+	}
+}
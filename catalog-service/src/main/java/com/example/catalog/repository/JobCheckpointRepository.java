@@ -0,0 +1,7 @@
+package com.example.catalog.repository;
+
+import com.example.catalog.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
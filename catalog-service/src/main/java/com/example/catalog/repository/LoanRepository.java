@@ -1,7 +0,0 @@
-package com.example.catalog.repository;
-
-import com.example.catalog.entity.Loan;
-import org.springframework.data.jpa.repository.JpaRepository;
-
-public interface LoanRepository extends JpaRepository<Loan, Integer> {
-}
@@ -0,0 +1,25 @@
+package com.example.catalog.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Defers in-memory bookkeeping until the surrounding transaction commits, so readers never see
+// state for a write that is later rolled back; runs immediately when there is no transaction.
+final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	static void run(Runnable update) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			update.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				update.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,225 @@
+package com.example.catalog.service;
+
+import com.example.catalog.service.AvailabilityCounters.Counts;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes availability changes to Server-Sent Events subscribers, each watching a set of book ids.
+// A change never blocks the request that made it: the book is only marked dirty for the subscribers
+// watching it and a drain is queued on a small sender pool. The drain sends the counts as they are
+// at send time, so a slow subscriber gets the latest counts of each book once instead of a backlog,
+// and its pending work is bounded by the number of books it watches. Failed connections are dropped.
+// SseEmitter.send blocks while the client is not reading, so a send that takes longer than the send
+// timeout drops its subscriber and a replacement sender is started; the stuck thread is released when
+// the container's write timeout fails the write, and the pool shrinks back.
+@Component
+public class AvailabilityBroadcaster {
+
+	private final AvailabilityCounters availability;
+	private final Map<Integer, Set<Subscriber>> byBook = new ConcurrentHashMap<>();
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	// subscribers with a send in progress, watched for sends that take too long
+	private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+	private final ThreadPoolExecutor senders;
+	private final ScheduledExecutorService timer;
+	private final int maxSubscribers;
+	private final int maxBooks;
+	private final long timeoutMillis;
+	private final long sendTimeoutNanos;
+
+	public AvailabilityBroadcaster(AvailabilityCounters availability,
+								   @Value("${catalog.availability.stream.max-subscribers:1000}") int maxSubscribers,
+								   @Value("${catalog.availability.stream.max-books:200}") int maxBooks,
+								   @Value("${catalog.availability.stream.timeout:30m}") Duration timeout,
+								   @Value("${catalog.availability.stream.heartbeat:30s}") Duration heartbeat,
+								   @Value("${catalog.availability.stream.send-threads:2}") int sendThreads,
+								   @Value("${catalog.availability.stream.send-timeout:5s}") Duration sendTimeout) {
+		this.availability = availability;
+		this.maxSubscribers = maxSubscribers;
+		this.maxBooks = maxBooks;
+		this.timeoutMillis = timeout.toMillis();
+		this.sendTimeoutNanos = sendTimeout.toNanos();
+		this.senders = new ThreadPoolExecutor(sendThreads, sendThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				r -> daemon(r, "availability-sse"));
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "availability-sse-timer"));
+		// proxies drop idle connections, and a dead client is only noticed when a write fails
+		timer.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+		long check = Math.max(10, sendTimeout.toMillis() / 2);
+		timer.scheduleWithFixedDelay(this::expireSlowSends, check, check, TimeUnit.MILLISECONDS);
+		availability.onChange(this::changed);
+	}
+
+	private static Thread daemon(Runnable r, String name) {
+		Thread t = new Thread(r, name);
+		t.setDaemon(true);
+		return t;
+	}
+
+	public int maxBooks() {
+		return maxBooks;
+	}
+
+	public int subscriberCount() {
+		return subscribers.size();
+	}
+
+	// Null when the subscriber limit is reached. The current counts of every watched book are sent
+	// first (once the counters are loaded), then one event per change.
+	public SseEmitter subscribe(Set<Integer> bookIds) {
+		if (subscribers.size() >= maxSubscribers) return null;
+		Subscriber s = new Subscriber(newEmitter(timeoutMillis), bookIds);
+		s.emitter.onCompletion(() -> remove(s));
+		s.emitter.onTimeout(() -> remove(s));
+		s.emitter.onError(e -> remove(s));
+		subscribers.add(s);
+		for (Integer id : bookIds) byBook.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(s);
+		if (availability.isReady()) {
+			s.dirty.addAll(bookIds);
+			schedule(s);
+		}
+		return s.emitter;
+	}
+
+	protected SseEmitter newEmitter(long timeoutMillis) {
+		return new SseEmitter(timeoutMillis);
+	}
+
+	private void changed(int bookId) {
+		Set<Subscriber> watching = byBook.get(bookId);
+		if (watching == null) return;
+		for (Subscriber s : watching) {
+			s.dirty.add(bookId);
+			schedule(s);
+		}
+	}
+
+	private void heartbeat() {
+		for (Subscriber s : subscribers) {
+			s.heartbeatDue = true;
+			schedule(s);
+		}
+	}
+
+	// at most one drain per subscriber is queued or running, so its sends never overlap
+	private void schedule(Subscriber s) {
+		if (!s.scheduled.compareAndSet(false, true)) return;
+		try {
+			senders.execute(() -> drain(s));
+		} catch (RejectedExecutionException e) {
+			s.scheduled.set(false);
+		}
+	}
+
+	private void drain(Subscriber s) {
+		try {
+			do {
+				for (Integer bookId : s.dirty) {
+					if (!s.dirty.remove(bookId)) continue;
+					Counts c = availability.counts(bookId);
+					send(s, SseEmitter.event().name("availability").data(Map.of(
+							"bookId", bookId,
+							"totalCopies", c.total(),
+							"availableCopies", c.available()), MediaType.APPLICATION_JSON));
+				}
+				if (s.heartbeatDue) {
+					s.heartbeatDue = false;
+					send(s, SseEmitter.event().comment("keepalive"));
+				}
+				s.scheduled.set(false);
+				// a change that arrived after the loop above but before the flag was cleared
+			} while (!s.dirty.isEmpty() && s.scheduled.compareAndSet(false, true));
+		} catch (Exception e) {
+			// the connection is gone (or already completed); the container completes the emitter
+			remove(s);
+			// a send that timed out may still have gone through; close the stream so the client reconnects
+			if (s.state.get() == EXPIRED) s.emitter.completeWithError(e);
+		}
+	}
+
+	private void send(Subscriber s, SseEmitter.SseEventBuilder event) throws IOException {
+		s.sendingSince = System.nanoTime();
+		s.state.set(SENDING);
+		sending.add(s);
+		try {
+			s.emitter.send(event);
+		} finally {
+			sending.remove(s);
+			if (!s.state.compareAndSet(SENDING, IDLE)) senderReleased();
+		}
+		if (s.state.get() == EXPIRED) throw new IOException("send took longer than the send timeout");
+	}
+
+	// Either this or the send itself moves the subscriber out of SENDING, so each stuck sender is
+	// replaced once and released once.
+	private void expireSlowSends() {
+		long now = System.nanoTime();
+		for (Subscriber s : sending) {
+			if (now - s.sendingSince > sendTimeoutNanos && s.state.compareAndSet(SENDING, EXPIRED)) {
+				remove(s);
+				senderStuck();
+			}
+		}
+	}
+
+	// grow the maximum before the core size and shrink in the reverse order, as ThreadPoolExecutor requires
+	private synchronized void senderStuck() {
+		senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+		senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+	}
+
+	private synchronized void senderReleased() {
+		senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+		senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+	}
+
+	private void remove(Subscriber s) {
+		if (!subscribers.remove(s)) return;
+		for (Integer id : s.bookIds) {
+			byBook.computeIfPresent(id, (k, set) -> {
+				set.remove(s);
+				return set.isEmpty() ? null : set;
+			});
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		timer.shutdownNow();
+		senders.shutdownNow();
+		for (Subscriber s : subscribers) s.emitter.complete();
+	}
+
+	private static final int IDLE = 0, SENDING = 1, EXPIRED = 2;
+
+	private static final class Subscriber {
+		final SseEmitter emitter;
+		final Set<Integer> bookIds;
+		final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final AtomicInteger state = new AtomicInteger(IDLE);
+		volatile long sendingSince;
+		volatile boolean heartbeatDue;
+
+		Subscriber(SseEmitter emitter, Set<Integer> bookIds) {
+			this.emitter = emitter;
+			this.bookIds = bookIds;
+		}
+	}
+}
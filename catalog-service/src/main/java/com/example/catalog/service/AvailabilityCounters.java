@@ -0,0 +1,231 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository.CopyCounts;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+// Per-book total/available copy counts kept in memory so availability reads skip the database.
+// Both counts are packed into one AtomicLong (total in the high 32 bits, available in the low 32)
+// and updated with CAS, so a reader never sees one count moved without the other.
+// Deltas share a read lock so they stay concurrent; a rebuild takes the write lock only to swap.
+// Callers report a delta only for a change their conditional UPDATE actually made (see CopyAllocator),
+// and reconcile() periodically checks the counts against the database.
+@Component
+public class AvailabilityCounters {
+
+	private volatile ConcurrentHashMap<Integer, AtomicLong> counts = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+	// catalog-wide sums for the copy gauges, moved by the same deltas as the per-book counts
+	private final AtomicLong allCopies = new AtomicLong();
+	private final AtomicLong allAvailable = new AtomicLong();
+	// told the book id after each change to its counts (see AvailabilityBroadcaster)
+	private volatile IntConsumer listener = bookId -> {};
+	private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+	// {total, available} deltas per book since startRebuild, replayed onto the rebuilt counts
+	private volatile ConcurrentHashMap<Integer, int[]> replay;
+	// reconcile: packed {counted, stored} for each book whose counts differed from the database last pass
+	private final Map<Integer, long[]> suspects = new HashMap<>();
+
+	public record Counts(int total, int available) {}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	// Call right before the query of rebuild() or reconcile(): a delta that commits while the query runs
+	// is applied to the counts being replaced, so it is also kept here for the rebuilt ones. One whose
+	// commit the query already sees but whose after-commit callback comes later is counted twice by a
+	// rebuild; the next reconcile passes put it right.
+	public void startRebuild() {
+		replay = new ConcurrentHashMap<>();
+	}
+
+	public void rebuild(List<CopyCounts> rows) {
+		ConcurrentHashMap<Integer, AtomicLong> fresh = new ConcurrentHashMap<>(Math.max(16, rows.size() * 2));
+		long copies = 0, available = 0;
+		for (CopyCounts row : rows) {
+			if (row.getBookId() == null) continue;
+			fresh.put(row.getBookId(), new AtomicLong(pack(toInt(row.getTotal()), toInt(row.getAvailable()))));
+			copies += toInt(row.getTotal());
+			available += toInt(row.getAvailable());
+		}
+		swapLock.writeLock().lock();
+		try {
+			if (replay != null) {
+				for (Map.Entry<Integer, int[]> e : replay.entrySet()) {
+					long before = move(fresh, e.getKey(), e.getValue()[0], e.getValue()[1]);
+					long after = moved(before, e.getValue()[0], e.getValue()[1]);
+					copies += total(after) - total(before);
+					available += available(after) - available(before);
+				}
+			}
+			this.counts = fresh;
+			allCopies.set(copies);
+			allAvailable.set(available);
+			this.ready = true;
+		} finally {
+			replay = null;
+			swapLock.writeLock().unlock();
+		}
+	}
+
+	// Compares the counts with rows from countCopiesByBook(), queried after startRebuild(), and returns
+	// the books corrected. A book moved while the query ran is skipped, and a mismatch is corrected only
+	// when the previous pass saw the very same one: a delta whose callback is still on its way after the
+	// commit the query saw shows up once, then lands, and is never mistaken for drift.
+	public synchronized List<Integer> reconcile(List<CopyCounts> rows) {
+		Map<Integer, Long> stored = new HashMap<>(Math.max(16, rows.size() * 2));
+		for (CopyCounts row : rows) {
+			if (row.getBookId() != null) stored.put(row.getBookId(), pack(toInt(row.getTotal()), toInt(row.getAvailable())));
+		}
+		List<Integer> corrected = new ArrayList<>();
+		Map<Integer, long[]> mismatched = new HashMap<>();
+		swapLock.writeLock().lock();
+		try {
+			Set<Integer> moved = replay != null ? replay.keySet() : Set.of();
+			Set<Integer> books = new HashSet<>(stored.keySet());
+			books.addAll(counts.keySet());
+			for (Integer bookId : books) {
+				if (moved.contains(bookId)) continue;
+				AtomicLong c = counts.get(bookId);
+				long counted = c == null ? 0 : c.get();
+				long actual = stored.getOrDefault(bookId, 0L);
+				if (counted == actual) continue;
+				long[] last = suspects.get(bookId);
+				if (last == null || last[0] != counted || last[1] != actual) {
+					mismatched.put(bookId, new long[]{counted, actual});
+					continue;
+				}
+				counts.computeIfAbsent(bookId, id -> new AtomicLong()).set(actual);
+				allCopies.addAndGet(total(actual) - total(counted));
+				allAvailable.addAndGet(available(actual) - available(counted));
+				corrected.add(bookId);
+			}
+		} finally {
+			replay = null;
+			swapLock.writeLock().unlock();
+		}
+		suspects.clear();
+		suspects.putAll(mismatched);
+		corrected.forEach(listener::accept);
+		return corrected;
+	}
+
+	public int total(Integer bookId) {
+		AtomicLong c = counts.get(bookId);
+		return c == null ? 0 : total(c.get());
+	}
+
+	public int available(Integer bookId) {
+		AtomicLong c = counts.get(bookId);
+		return c == null ? 0 : available(c.get());
+	}
+
+	// both counts from one read, so they always belong together
+	public Counts counts(Integer bookId) {
+		AtomicLong c = counts.get(bookId);
+		long packed = c == null ? 0 : c.get();
+		return new Counts(total(packed), available(packed));
+	}
+
+	public void onChange(IntConsumer listener) {
+		this.listener = listener;
+	}
+
+	public long totalCopies() {
+		return allCopies.get();
+	}
+
+	public long availableCopies() {
+		return allAvailable.get();
+	}
+
+	// --- mutations; applied after commit when called inside a transaction ---
+
+	public void copyAdded(Integer bookId, CopyStatus status) {
+		AfterCommit.run(() -> add(bookId, 1, isAvailable(status) ? 1 : 0));
+	}
+
+	public void copyRemoved(Integer bookId, CopyStatus status) {
+		AfterCommit.run(() -> add(bookId, -1, isAvailable(status) ? -1 : 0));
+	}
+
+	public void statusChanged(Integer bookId, CopyStatus from, CopyStatus to) {
+		int delta = (isAvailable(to) ? 1 : 0) - (isAvailable(from) ? 1 : 0);
+		if (delta != 0) AfterCommit.run(() -> add(bookId, 0, delta));
+	}
+
+	public void copyUpdated(Integer oldBookId, CopyStatus oldStatus, Integer newBookId, CopyStatus newStatus) {
+		if (oldBookId != null && oldBookId.equals(newBookId)) {
+			statusChanged(newBookId, oldStatus, newStatus);
+			return;
+		}
+		copyRemoved(oldBookId, oldStatus);
+		copyAdded(newBookId, newStatus);
+	}
+
+	private void add(Integer bookId, int totalDelta, int availableDelta) {
+		if (bookId == null) return;
+		swapLock.readLock().lock();
+		try {
+			long before = move(counts, bookId, totalDelta, availableDelta);
+			long after = moved(before, totalDelta, availableDelta);
+			allCopies.addAndGet(total(after) - total(before));
+			allAvailable.addAndGet(available(after) - available(before));
+			ConcurrentHashMap<Integer, int[]> pending = replay;
+			if (pending != null) {
+				pending.merge(bookId, new int[]{totalDelta, availableDelta},
+						(a, b) -> new int[]{a[0] + b[0], a[1] + b[1]});
+			}
+		} finally {
+			swapLock.readLock().unlock();
+		}
+		listener.accept(bookId);
+	}
+
+	// returns the packed counts before the move
+	private static long move(Map<Integer, AtomicLong> counts, Integer bookId, int totalDelta, int availableDelta) {
+		return counts.computeIfAbsent(bookId, id -> new AtomicLong()).getAndUpdate(v -> moved(v, totalDelta, availableDelta));
+	}
+
+	private static long moved(long packed, int totalDelta, int availableDelta) {
+		return pack(Math.max(0, total(packed) + totalDelta), Math.max(0, available(packed) + availableDelta));
+	}
+
+	private static boolean isAvailable(CopyStatus status) {
+		return status == CopyStatus.AVAILABLE;
+	}
+
+	// Strong validator for an availability response built from these counts: the counts are the whole
+	// representation, so equal counts mean an identical body, whichever instance or restart produced it.
+	public static String etag(Integer bookId, Counts counts) {
+		return "\"a" + bookId + "-" + Long.toString(pack(counts.total(), counts.available()), 36) + "\"";
+	}
+
+	private static long pack(int total, int available) {
+		return ((long) total << 32) | (available & 0xffffffffL);
+	}
+
+	private static int total(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	private static int available(long packed) {
+		return (int) packed;
+	}
+
+	private static int toInt(Long n) {
+		return n == null ? 0 : n.intValue();
+	}
+}
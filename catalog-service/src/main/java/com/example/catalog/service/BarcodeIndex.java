@@ -0,0 +1,302 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookCopyRepository.BarcodeRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Barcode -> copy for the scanner endpoints, kept in memory so a scan resolves without a query.
+// Two primitive tables, no object per entry:
+//  - barcodes: open addressing over longs, a 32-bit hash of the barcode in the high half and the copy
+//    id in the low half (8 bytes a slot, at most half full);
+//  - copies: one long per copy id (ids are dense), holding the book id, the status and a second
+//    24-bit hash of the copy's barcode.
+// A scan must match both hashes, so an unknown barcode passes for another copy's with odds of about
+// n / 2^56. Lookups take no lock; writers are serialized and a resize swaps in a new array.
+// The status follows each move once it commits, so it can trail the row by a moment, or for longer
+// if a rebuild read an older row. Callers act on it only where a conditional UPDATE confirms it, and
+// check the row (refresh) before turning a scan away.
+@Component
+public class BarcodeIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(BarcodeIndex.class);
+	private static final int MIN_BITS = 10;
+	private static final CopyStatus[] STATUSES = CopyStatus.values();
+
+	private final BookCopyRepository copyRepo;
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private volatile Table table = new Table(MIN_BITS);
+	private volatile AtomicLongArray copies = new AtomicLongArray(1 << MIN_BITS);
+
+	public BarcodeIndex(BookCopyRepository copyRepo) {
+		this.copyRepo = copyRepo;
+	}
+
+	private static final class Table {
+		final AtomicLongArray slots;
+		final int bits;
+		final int mask;
+		int size;
+
+		Table(int bits) {
+			this.bits = bits;
+			this.slots = new AtomicLongArray(1 << bits);
+			this.mask = (1 << bits) - 1;
+		}
+
+		int home(int hash) {
+			return (hash * 0x9E3779B9) >>> (32 - bits);
+		}
+	}
+
+	public int size() {
+		return table.size;
+	}
+
+	// The copy with this barcode as the index knows it: a detached BookCopy with its id, barcode,
+	// status and a Book holding only its id, read without a query. Only for reading those fields;
+	// a barcode the index does not hold is looked up in the database.
+	public Optional<BookCopy> find(String barcode) {
+		if (barcode == null || barcode.isEmpty()) return Optional.empty();
+		int id = copyId(barcode);
+		if (id != 0) {
+			long record = record(id);
+			if (record != 0) return Optional.of(copy(id, barcode, record));
+		}
+		return copyRepo.findByBarcode(barcode);
+	}
+
+	// The copy with this barcode read from the database, with its book loaded; the indexed id saves
+	// the barcode query when it still matches.
+	public Optional<BookCopy> load(String barcode) {
+		if (barcode == null || barcode.isEmpty()) return Optional.empty();
+		int id = copyId(barcode);
+		if (id != 0 && record(id) != 0) {
+			Optional<BookCopy> copy = copyRepo.findDetailedById(id);
+			if (copy.isPresent() && barcode.equals(copy.get().getBarcode())) return copy;
+		}
+		return copyRepo.findByBarcode(barcode);
+	}
+
+	// Reads the copy's row and puts what it says into the index, for when a scan's status turned
+	// out not to hold.
+	public Optional<BookCopy> refresh(Integer copyId) {
+		Optional<BookCopy> copy = copyRepo.findDetailedById(copyId);
+		copy.filter(c -> c.getBarcode() != null).ifPresent(c -> {
+			writeLock.lock();
+			try {
+				if (record(copyId) != 0) setRecord(copyId, record(c.getBarcode(), bookIdOf(c), c.getStatus()));
+			} finally {
+				writeLock.unlock();
+			}
+		});
+		return copy;
+	}
+
+	// indexed copy id, or 0
+	public int copyId(String barcode) {
+		if (barcode == null) return 0;
+		int hash = hash(barcode);
+		int check = check(barcode);
+		Table t = table;
+		for (int i = t.home(hash), n = 0; n <= t.mask; i = (i + 1) & t.mask, n++) {
+			long slot = t.slots.get(i);
+			if (slot == 0) return 0;
+			if ((int) (slot >>> 32) == hash && (int) (record((int) slot) >>> 40) == check) return (int) slot;
+		}
+		return 0;
+	}
+
+	// Replaces the whole index; writers wait until the new one is swapped in.
+	public void rebuild(Iterator<BarcodeRow> rows) {
+		writeLock.lock();
+		try {
+			long start = System.nanoTime();
+			Table fresh = new Table(MIN_BITS);
+			AtomicLongArray records = new AtomicLongArray(1 << MIN_BITS);
+			while (rows.hasNext()) {
+				BarcodeRow row = rows.next();
+				if (row.getBarcode() == null || row.getId() == null) continue;
+				fresh = insert(fresh, slot(row.getBarcode(), row.getId()));
+				records = withRecord(records, row.getId(), record(row.getBarcode(), row.getBookId(), row.getStatus()));
+			}
+			table = fresh;
+			copies = records;
+			log.info("Barcode index built: {} barcodes in {} slots, {} ms", fresh.size, fresh.slots.length(),
+					(System.nanoTime() - start) / 1_000_000);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// --- mutations; applied after commit when called inside a transaction ---
+
+	public void copyAdded(Integer copyId, String barcode, Integer bookId, CopyStatus status) {
+		copyUpdated(copyId, null, barcode, bookId, status);
+	}
+
+	public void copyUpdated(Integer copyId, String oldBarcode, String newBarcode, Integer bookId, CopyStatus status) {
+		if (copyId == null || (oldBarcode == null && newBarcode == null)) return;
+		AfterCommit.run(() -> {
+			writeLock.lock();
+			try {
+				if (oldBarcode != null && !oldBarcode.equals(newBarcode)) remove(table, slot(oldBarcode, copyId));
+				if (newBarcode == null) {
+					setRecord(copyId, 0);
+					return;
+				}
+				if (!newBarcode.equals(oldBarcode)) table = insert(table, slot(newBarcode, copyId));
+				setRecord(copyId, record(newBarcode, bookId, status));
+			} finally {
+				writeLock.unlock();
+			}
+		});
+	}
+
+	public void copyRemoved(Integer copyId, String barcode) {
+		copyUpdated(copyId, barcode, null, null, null);
+	}
+
+	// A circulation move; copies without a barcode are not held and are skipped.
+	public void statusChanged(Integer copyId, CopyStatus to) {
+		if (copyId == null) return;
+		AfterCommit.run(() -> {
+			writeLock.lock();
+			try {
+				long record = record(copyId);
+				if (record != 0) setRecord(copyId, (record & ~STATUS_BITS) | ((long) (to.ordinal() + 1) << 32));
+			} finally {
+				writeLock.unlock();
+			}
+		});
+	}
+
+	// --- copy records: check hash (24 bits) | status ordinal + 1 (8 bits) | book id (32 bits); 0 = none ---
+
+	private static final long STATUS_BITS = 0xffL << 32;
+
+	private long record(int copyId) {
+		AtomicLongArray records = copies;
+		return copyId > 0 && copyId < records.length() ? records.get(copyId) : 0;
+	}
+
+	private static long record(String barcode, Integer bookId, CopyStatus status) {
+		return ((long) check(barcode) << 40) | ((long) (status.ordinal() + 1) << 32)
+				| ((bookId != null ? bookId : 0) & 0xffffffffL);
+	}
+
+	private static BookCopy copy(int copyId, String barcode, long record) {
+		BookCopy copy = new BookCopy();
+		copy.setId(copyId);
+		copy.setBarcode(barcode);
+		copy.setStatus(STATUSES[(int) ((record & STATUS_BITS) >>> 32) - 1]);
+		Book book = new Book();
+		book.setId((int) record);
+		copy.setBook(book);
+		return copy;
+	}
+
+	// under the write lock
+	private void setRecord(int copyId, long record) {
+		copies = withRecord(copies, copyId, record);
+	}
+
+	private static AtomicLongArray withRecord(AtomicLongArray records, int copyId, long record) {
+		if (copyId <= 0) return records;
+		if (copyId >= records.length()) {
+			if (record == 0) return records;
+			int length = records.length();
+			while (length <= copyId) length <<= 1;
+			AtomicLongArray bigger = new AtomicLongArray(length);
+			for (int i = 0; i < records.length(); i++) bigger.set(i, records.get(i));
+			records = bigger;
+		}
+		records.set(copyId, record);
+		return records;
+	}
+
+	private static Integer bookIdOf(BookCopy copy) {
+		return copy.getBook() != null ? copy.getBook().getId() : null;
+	}
+
+	// --- table operations, under the write lock ---
+
+	private static Table insert(Table t, long slot) {
+		if ((t.size + 1) * 2 > t.slots.length()) t = grow(t);
+		int hash = (int) (slot >>> 32);
+		for (int i = t.home(hash); ; i = (i + 1) & t.mask) {
+			long s = t.slots.get(i);
+			if (s == slot) return t;
+			if (s == 0) {
+				t.slots.set(i, slot);
+				t.size++;
+				return t;
+			}
+		}
+	}
+
+	private static Table grow(Table t) {
+		Table bigger = new Table(t.bits + 1);
+		for (int i = 0; i < t.slots.length(); i++) {
+			long s = t.slots.get(i);
+			if (s != 0) insert(bigger, s);
+		}
+		return bigger;
+	}
+
+	// Backward-shift delete: later entries of the probe run move up so no tombstones are left.
+	private static void remove(Table t, long slot) {
+		int hash = (int) (slot >>> 32);
+		int i = t.home(hash);
+		for (long s; (s = t.slots.get(i)) != slot; i = (i + 1) & t.mask) {
+			if (s == 0) return;
+		}
+		for (int j = (i + 1) & t.mask; ; j = (j + 1) & t.mask) {
+			long s = t.slots.get(j);
+			if (s == 0) break;
+			int k = t.home((int) (s >>> 32));
+			// entries whose home lies cyclically in (i, j] stay where they are
+			if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) continue;
+			t.slots.set(i, s);
+			i = j;
+		}
+		t.slots.set(i, 0);
+		t.size--;
+	}
+
+	private static long slot(String barcode, int copyId) {
+		return ((long) hash(barcode) << 32) | (copyId & 0xffffffffL);
+	}
+
+	// FNV-1a over the chars, finished with the murmur3 mixer and folded to 32 bits
+	static int hash(String barcode) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < barcode.length(); i++) {
+			h ^= barcode.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	// the second, independent hash kept in the copy record: String's own (cached) hash, remixed, top 24 bits
+	static int check(String barcode) {
+		int h = barcode.hashCode() * 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		return (h ^ (h >>> 16)) >>> 8;
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Borrow.BorrowStatus;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Hold;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BorrowJdbcRepository;
+import com.example.catalog.repository.BorrowRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Kiosk checkout/return of a whole stack of copies in one transaction: copies are resolved and
+// locked in one query per identifier kind, status changes are single bulk UPDATEs and new
+// borrow rows go out as one JDBC batch. Each scanned item gets its own result entry, and an item
+// whose copy can't make the move (CopyStatus.canMoveTo) fails on its own without being written.
+@Service
+public class BatchCirculationService {
+
+	private final BookCopyRepository copyRepo;
+	private final BorrowRepository borrowRepo;
+	private final BorrowJdbcRepository borrowJdbc;
+	private final AvailabilityCounters availability;
+	private final HoldService holds;
+	private final BarcodeIndex barcodeIndex;
+
+	public BatchCirculationService(BookCopyRepository copyRepo, BorrowRepository borrowRepo,
+								   BorrowJdbcRepository borrowJdbc, AvailabilityCounters availability,
+								   HoldService holds, BarcodeIndex barcodeIndex) {
+		this.copyRepo = copyRepo;
+		this.borrowRepo = borrowRepo;
+		this.borrowJdbc = borrowJdbc;
+		this.availability = availability;
+		this.holds = holds;
+		this.barcodeIndex = barcodeIndex;
+	}
+
+	@Transactional
+	public Map<String, Object> borrow(Integer userId, int days, List<Integer> copyIds, List<String> barcodes) {
+		List<Item> items = resolve(copyIds, barcodes);
+		LocalDate issuedOn = LocalDate.now();
+		LocalDate dueOn = issuedOn.plusDays(days);
+
+		List<Item> issuing = new ArrayList<>();
+		List<Borrow> borrows = new ArrayList<>();
+		for (Item item : items) {
+			if (item.error != null) continue;
+			// a copy on the hold shelf is issued only to the patron it is set aside for
+			CopyStatus from = item.copy.getStatus();
+			boolean pickedUp = from == CopyStatus.ON_HOLD
+					&& holds.pickUp(userId, bookIdOf(item.copy), item.copy.getId()).isPresent();
+			if (!from.canMoveTo(CopyStatus.ISSUED) || (from != CopyStatus.AVAILABLE && !pickedUp)) {
+				item.error = "Not available";
+				continue;
+			}
+			Borrow b = new Borrow();
+			b.setUserId(userId);
+			b.setBookCopyId(item.copy.getId());
+			b.setBookId(bookIdOf(item.copy));
+			b.setIssuedOn(issuedOn);
+			b.setDueOn(dueOn);
+			b.setStatus(BorrowStatus.ACTIVE);
+			item.borrow = b;
+			issuing.add(item);
+			borrows.add(b);
+		}
+
+		if (!issuing.isEmpty()) {
+			// rows are locked above, so every copy in this set flips in the one statement
+			copyRepo.updateStatusByIdIn(copyIds(issuing), CopyStatus.ISSUED);
+			borrowJdbc.insertAll(borrows);
+			for (Item item : issuing) {
+				availability.statusChanged(bookIdOf(item.copy), item.copy.getStatus(), CopyStatus.ISSUED);
+				barcodeIndex.statusChanged(item.copy.getId(), CopyStatus.ISSUED);
+			}
+		}
+
+		List<Map<String, Object>> results = new ArrayList<>(items.size());
+		for (Item item : items) {
+			Map<String, Object> r = item.describe();
+			if (item.borrow != null) {
+				r.put("status", "issued");
+				r.put("borrowId", item.borrow.getBorrowId());
+				r.put("dueOn", dueOn.toString());
+			}
+			results.add(r);
+		}
+		return summary("issued", issuing.size(), items.size(), results);
+	}
+
+	@Transactional
+	public Map<String, Object> returnAll(List<Integer> copyIds, List<String> barcodes) {
+		List<Item> items = resolve(copyIds, barcodes);
+		List<Item> found = new ArrayList<>();
+		for (Item item : items) {
+			if (item.error == null) found.add(item);
+		}
+
+		LocalDate returnedOn = LocalDate.now();
+		List<Item> returning = new ArrayList<>();
+		if (!found.isEmpty()) {
+			// latest open (active or overdue) borrow per copy, found in one query
+			Map<Integer, Borrow> activeByCopy = new HashMap<>();
+			for (Borrow b : borrowRepo.findByBookCopyIdInAndStatusIn(copyIds(found), Borrow.OPEN_STATUSES)) {
+				activeByCopy.merge(b.getBookCopyId(), b, (x, y) -> x.getBorrowId() > y.getBorrowId() ? x : y);
+			}
+			// only copies that are out on a borrow and can come back into circulation are returned
+			for (Item item : found) {
+				Borrow open = activeByCopy.get(item.copy.getId());
+				if (!item.copy.getStatus().canCheckIn()) {
+					item.error = "Copy is " + item.copy.getStatus();
+				} else if (open == null) {
+					item.error = "No open borrow";
+				} else {
+					item.borrow = open;
+					returning.add(item);
+				}
+			}
+		}
+		if (!returning.isEmpty()) {
+			List<Integer> borrowIds = new ArrayList<>();
+			for (Item item : returning) borrowIds.add(item.borrow.getBorrowId());
+			borrowRepo.markReturned(borrowIds, returnedOn);
+			// copies of titles with a queue go to the next hold; the rest back on the shelf
+			List<Integer> shelved = new ArrayList<>();
+			List<Integer> held = new ArrayList<>();
+			for (Item item : returning) {
+				if (item.copy.getStatus() == CopyStatus.ON_HOLD) continue;
+				item.hold = holds.assign(bookIdOf(item.copy), item.copy.getId()).orElse(null);
+				(item.hold != null ? held : shelved).add(item.copy.getId());
+				availability.statusChanged(bookIdOf(item.copy), item.copy.getStatus(),
+						item.hold != null ? CopyStatus.ON_HOLD : CopyStatus.AVAILABLE);
+				barcodeIndex.statusChanged(item.copy.getId(), item.hold != null ? CopyStatus.ON_HOLD : CopyStatus.AVAILABLE);
+			}
+			if (!shelved.isEmpty()) copyRepo.updateStatusByIdIn(shelved, CopyStatus.AVAILABLE);
+			if (!held.isEmpty()) copyRepo.updateStatusByIdIn(held, CopyStatus.ON_HOLD);
+		}
+
+		List<Map<String, Object>> results = new ArrayList<>(items.size());
+		for (Item item : items) {
+			Map<String, Object> r = item.describe();
+			if (item.error == null) {
+				r.put("status", "returned");
+				r.put("borrowId", item.borrow.getBorrowId());
+				r.put("returnedOn", returnedOn.toString());
+				if (item.hold != null) r.put("holdId", item.hold.getHoldId());
+			}
+			results.add(r);
+		}
+		return summary("returned", returning.size(), items.size(), results);
+	}
+
+	// One entry per scanned identifier, in request order; unknown and repeated scans become errors.
+	private List<Item> resolve(List<Integer> copyIds, List<String> barcodes) {
+		Map<Integer, BookCopy> byId = new HashMap<>();
+		Map<String, BookCopy> byBarcode = new HashMap<>();
+		if (!copyIds.isEmpty()) {
+			for (BookCopy c : copyRepo.lockAllByIdIn(new HashSet<>(copyIds))) byId.put(c.getId(), c);
+		}
+		if (!barcodes.isEmpty()) {
+			for (BookCopy c : copyRepo.lockAllByBarcodeIn(new HashSet<>(barcodes))) byBarcode.put(c.getBarcode(), c);
+		}
+
+		List<Item> items = new ArrayList<>(copyIds.size() + barcodes.size());
+		Set<Integer> seen = new HashSet<>();
+		for (Integer id : copyIds) items.add(new Item(id, null, byId.get(id), seen));
+		for (String barcode : barcodes) items.add(new Item(null, barcode, byBarcode.get(barcode), seen));
+		return items;
+	}
+
+	private static List<Integer> copyIds(List<Item> items) {
+		List<Integer> ids = new ArrayList<>(items.size());
+		for (Item item : items) ids.add(item.copy.getId());
+		return ids;
+	}
+
+	private static Integer bookIdOf(BookCopy copy) {
+		return copy.getBook() != null ? copy.getBook().getId() : null;
+	}
+
+	private static Map<String, Object> summary(String okKey, int ok, int total, List<Map<String, Object>> results) {
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put(okKey, ok);
+		out.put("failed", total - ok);
+		out.put("results", results);
+		return out;
+	}
+
+	private static final class Item {
+		final Integer requestedId;
+		final String requestedBarcode;
+		final BookCopy copy;
+		String error;
+		Borrow borrow;
+		Hold hold;
+
+		Item(Integer requestedId, String requestedBarcode, BookCopy copy, Set<Integer> seen) {
+			this.requestedId = requestedId;
+			this.requestedBarcode = requestedBarcode;
+			this.copy = copy;
+			if (copy == null) error = "Copy not found";
+			else if (!seen.add(copy.getId())) error = "Duplicate scan";
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> r = new LinkedHashMap<>();
+			if (requestedBarcode != null) r.put("barcode", requestedBarcode);
+			r.put("bookCopyId", copy != null ? copy.getId() : requestedId);
+			if (error != null) {
+				r.put("status", "error");
+				r.put("error", error);
+			}
+			return r;
+		}
+	}
+}
@@ -0,0 +1,534 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// In-process inverted index over title, ISBN, author, publisher and category.
+// Terms live in a sorted map so a query token can match as a prefix; postings are
+// immutable sorted arrays swapped on write, so searches never take a lock.
+@Component
+public class BookSearchIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+	// field bits stored per posting; weights drive ranking
+	static final byte TITLE = 1, AUTHOR = 2, ISBN = 4, PUBLISHER = 8, CATEGORY = 16;
+	private static final byte[] FIELDS = {TITLE, AUTHOR, ISBN, PUBLISHER, CATEGORY};
+	private static final float[] WEIGHTS = {4f, 3f, 6f, 1f, 1f};
+	private static final float EXACT_BOOST = 2f;
+	private static final float[] WEIGHT_BY_MASK = new float[32];
+
+	static {
+		for (int mask = 0; mask < WEIGHT_BY_MASK.length; mask++) {
+			for (int i = 0; i < FIELDS.length; i++) {
+				if ((mask & FIELDS[i]) != 0) WEIGHT_BY_MASK[mask] += WEIGHTS[i];
+			}
+		}
+	}
+
+	// shorter tokens only match whole terms; longer ones expand to the most frequent
+	// MAX_EXPANSIONS terms among the first MAX_SCANNED_TERMS sharing the prefix
+	private static final int MIN_PREFIX = 2;
+	private static final int MAX_EXPANSIONS = 64;
+	private static final int MAX_SCANNED_TERMS = 4096;
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern DIGIT_HYPHEN = Pattern.compile("(?<=\\d)-(?=\\d)");
+	private static final Pattern SPLIT = Pattern.compile("[^\\p{Alnum}]+");
+
+	private volatile ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+	private volatile ConcurrentHashMap<Integer, Doc> docs = new ConcurrentHashMap<>();
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private volatile boolean ready;
+	private static final TreeMap<Integer, Byte> EMPTY_ADDS = new TreeMap<>();
+	// writes seen since startRebuild, by book id (null = removed); replayed onto the rebuilt index
+	private Map<Integer, Doc> replay;
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public int size() {
+		return docs.size();
+	}
+
+	// Call before the rebuild reads the database: a write that commits after that read started
+	// but lands before rebuild takes the lock would otherwise be overwritten by the older snapshot.
+	public void startRebuild() {
+		writeLock.lock();
+		try {
+			replay = new HashMap<>();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// Replaces the whole index; writers wait until the new one is swapped in.
+	public void rebuild(Iterator<Book> books) {
+		writeLock.lock();
+		try {
+			long start = System.nanoTime();
+			ConcurrentHashMap<Integer, Doc> newDocs = new ConcurrentHashMap<>();
+			TreeMap<String, PostingsBuilder> builders = new TreeMap<>();
+			while (books.hasNext()) {
+				Book b = books.next();
+				if (b.getId() == null) continue;
+				Doc doc = Doc.of(b);
+				newDocs.put(b.getId(), doc);
+				for (int i = 0; i < doc.terms.length; i++) {
+					builders.computeIfAbsent(doc.terms[i], t -> new PostingsBuilder()).add(b.getId(), doc.masks[i]);
+				}
+			}
+			ConcurrentSkipListMap<String, Postings> newTerms = new ConcurrentSkipListMap<>();
+			builders.forEach((term, pb) -> newTerms.put(term, pb.build()));
+			if (replay != null) {
+				replay.forEach((id, doc) -> apply(newTerms, newDocs, id, doc));
+			}
+			this.terms = newTerms;
+			this.docs = newDocs;
+			this.ready = true;
+			log.info("Search index built: {} books, {} terms in {} ms",
+					newDocs.size(), newTerms.size(), (System.nanoTime() - start) / 1_000_000);
+		} finally {
+			replay = null;
+			writeLock.unlock();
+		}
+	}
+
+	public void put(Book book) {
+		if (book == null || book.getId() == null) return;
+		Doc doc = Doc.of(book);
+		write(book.getId(), doc);
+	}
+
+	// Indexes many books under one lock hold: each touched term is rewritten once for the whole
+	// batch, where put copies the term's posting array again for every book that has it.
+	public void putAll(Collection<Book> books) {
+		Map<Integer, Doc> batch = new LinkedHashMap<>();
+		for (Book b : books) {
+			if (b != null && b.getId() != null) batch.put(b.getId(), Doc.of(b));
+		}
+		if (batch.isEmpty()) return;
+		writeLock.lock();
+		try {
+			Map<String, TreeMap<Integer, Byte>> added = new HashMap<>();
+			Map<String, Set<Integer>> dropped = new HashMap<>();
+			batch.forEach((id, doc) -> {
+				Doc old = docs.put(id, doc);
+				if (old != null) {
+					for (String term : old.terms) dropped.computeIfAbsent(term, t -> new HashSet<>()).add(id);
+				}
+				for (int i = 0; i < doc.terms.length; i++) {
+					added.computeIfAbsent(doc.terms[i], t -> new TreeMap<>()).put(id, doc.masks[i]);
+				}
+				if (replay != null) replay.put(id, doc);
+			});
+			Set<String> touched = new HashSet<>(added.keySet());
+			touched.addAll(dropped.keySet());
+			for (String term : touched) {
+				TreeMap<Integer, Byte> in = added.getOrDefault(term, EMPTY_ADDS);
+				Set<Integer> out = dropped.getOrDefault(term, Set.of());
+				terms.compute(term, (t, p) -> Postings.merged(p, in, out));
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	public void remove(Integer bookId) {
+		if (bookId == null) return;
+		write(bookId, null);
+	}
+
+	private void write(Integer bookId, Doc doc) {
+		writeLock.lock();
+		try {
+			apply(terms, docs, bookId, doc);
+			if (replay != null) replay.put(bookId, doc);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// Returns matching book ids, best first. Every query token must match (exactly or as a prefix).
+	public List<Integer> search(String query, int limit) {
+		String[] tokens = distinctTokens(query);
+		if (tokens.length == 0 || limit <= 0) return List.of();
+
+		NavigableMap<String, Postings> termsNow = this.terms;
+		List<List<Postings>> matches = new ArrayList<>(tokens.length);
+		for (String token : tokens) {
+			List<Postings> m = matching(termsNow, token);
+			if (m.isEmpty()) return List.of();
+			matches.add(m);
+		}
+		// materialize the most selective token, then probe the others so the candidate set only shrinks
+		matches.sort(Comparator.comparingLong(BookSearchIndex::docCount));
+		Hits hits = Hits.unionAll(matches.get(0));
+		for (int i = 1; i < matches.size() && hits.size > 0; i++) {
+			hits = hits.probe(matches.get(i));
+		}
+		return hits.top(limit);
+	}
+
+	// The exact term (boosted) plus its most frequent prefix expansions.
+	private List<Postings> matching(NavigableMap<String, Postings> termsNow, String token) {
+		List<Postings> out = new ArrayList<>();
+		Postings exact = termsNow.get(token);
+		if (exact != null) out.add(exact.boosted(EXACT_BOOST));
+		if (token.length() < MIN_PREFIX) return out;
+		PriorityQueue<Postings> widest = new PriorityQueue<>(Comparator.comparingInt((Postings p) -> p.ids.length));
+		int scanned = 0;
+		for (Map.Entry<String, Postings> e : prefixRange(termsNow, token).entrySet()) {
+			if (++scanned > MAX_SCANNED_TERMS) break;
+			if (e.getKey().length() == token.length()) continue;
+			widest.offer(e.getValue());
+			if (widest.size() > MAX_EXPANSIONS) widest.poll();
+		}
+		out.addAll(widest);
+		return out;
+	}
+
+	private static long docCount(List<Postings> postings) {
+		long n = 0;
+		for (Postings p : postings) n += p.ids.length;
+		return n;
+	}
+
+	private static NavigableMap<String, Postings> prefixRange(NavigableMap<String, Postings> termsNow, String prefix) {
+		return termsNow.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+	}
+
+	// doc == null removes the book; otherwise its old terms are unposted and the new ones posted
+	private static void apply(ConcurrentSkipListMap<String, Postings> terms, ConcurrentHashMap<Integer, Doc> docs,
+							  Integer bookId, Doc doc) {
+		Doc old = doc != null ? docs.put(bookId, doc) : docs.remove(bookId);
+		if (old != null) {
+			for (String term : old.terms) {
+				terms.computeIfPresent(term, (t, p) -> p.without(bookId));
+			}
+		}
+		if (doc == null) return;
+		int id = bookId;
+		for (int i = 0; i < doc.terms.length; i++) {
+			byte mask = doc.masks[i];
+			terms.merge(doc.terms[i], Postings.of(id, mask), (p, n) -> p.with(id, mask));
+		}
+	}
+
+	private static String[] distinctTokens(String text) {
+		return tokenize(text).stream().distinct().toArray(String[]::new);
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null || text.isBlank()) return List.of();
+		String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		folded = DIGIT_HYPHEN.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll("");
+		List<String> out = new ArrayList<>();
+		for (String t : SPLIT.split(folded)) {
+			if (!t.isEmpty()) out.add(t);
+		}
+		return out;
+	}
+
+	private static float weight(byte mask) {
+		return WEIGHT_BY_MASK[mask & 0x1f];
+	}
+
+	// Terms of one book with the fields each appears in; kept so updates can unpost old terms.
+	private static final class Doc {
+		final String[] terms;
+		final byte[] masks;
+
+		private Doc(String[] terms, byte[] masks) {
+			this.terms = terms;
+			this.masks = masks;
+		}
+
+		static Doc of(Book b) {
+			Map<String, Byte> fields = new LinkedHashMap<>();
+			add(fields, b.getTitle(), TITLE);
+			add(fields, b.getIsbn(), ISBN);
+			Author a = b.getAuthor();
+			if (a != null) {
+				add(fields, a.getFirstName(), AUTHOR);
+				add(fields, a.getLastName(), AUTHOR);
+			}
+			if (b.getPublisher() != null) add(fields, b.getPublisher().getName(), PUBLISHER);
+			if (b.getCategory() != null) add(fields, b.getCategory().getName(), CATEGORY);
+			String[] terms = new String[fields.size()];
+			byte[] masks = new byte[fields.size()];
+			int i = 0;
+			for (Map.Entry<String, Byte> e : fields.entrySet()) {
+				terms[i] = e.getKey();
+				masks[i++] = e.getValue();
+			}
+			return new Doc(terms, masks);
+		}
+
+		private static void add(Map<String, Byte> fields, String text, byte field) {
+			for (String t : tokenize(text)) {
+				fields.merge(t, field, (x, y) -> (byte) (x | y));
+			}
+		}
+	}
+
+	// Sorted, immutable posting list: book ids plus the field bits the term occurs in.
+	private static final class Postings {
+		final int[] ids;
+		final byte[] masks;
+		// query-time multiplier, only set on the short-lived copy made for an exact match
+		final float boost;
+
+		private Postings(int[] ids, byte[] masks) {
+			this(ids, masks, 1f);
+		}
+
+		private Postings(int[] ids, byte[] masks, float boost) {
+			this.ids = ids;
+			this.masks = masks;
+			this.boost = boost;
+		}
+
+		Postings boosted(float by) {
+			return new Postings(ids, masks, boost * by);
+		}
+
+		float score(int pos) {
+			return weight(masks[pos]) * boost;
+		}
+
+		static Postings of(int id, byte mask) {
+			return new Postings(new int[]{id}, new byte[]{mask});
+		}
+
+		Postings with(int id, byte mask) {
+			int pos = Arrays.binarySearch(ids, id);
+			if (pos >= 0) {
+				byte[] m = masks.clone();
+				m[pos] = mask;
+				return new Postings(ids, m);
+			}
+			int at = -pos - 1;
+			int[] i2 = new int[ids.length + 1];
+			byte[] m2 = new byte[ids.length + 1];
+			System.arraycopy(ids, 0, i2, 0, at);
+			System.arraycopy(masks, 0, m2, 0, at);
+			i2[at] = id;
+			m2[at] = mask;
+			System.arraycopy(ids, at, i2, at + 1, ids.length - at);
+			System.arraycopy(masks, at, m2, at + 1, ids.length - at);
+			return new Postings(i2, m2);
+		}
+
+		// p (may be null) minus the dropped ids, plus the added ones (which win over a drop of
+		// the same id); null when nothing is left
+		static Postings merged(Postings p, TreeMap<Integer, Byte> added, Set<Integer> dropped) {
+			int have = p == null ? 0 : p.ids.length;
+			int[] i2 = new int[have + added.size()];
+			byte[] m2 = new byte[have + added.size()];
+			Iterator<Map.Entry<Integer, Byte>> adds = added.entrySet().iterator();
+			Map.Entry<Integer, Byte> next = adds.hasNext() ? adds.next() : null;
+			int i = 0, n = 0;
+			while (i < have || next != null) {
+				if (next == null || (i < have && p.ids[i] < next.getKey())) {
+					if (!dropped.contains(p.ids[i])) {
+						i2[n] = p.ids[i];
+						m2[n++] = p.masks[i];
+					}
+					i++;
+				} else {
+					if (i < have && p.ids[i] == next.getKey()) i++;
+					i2[n] = next.getKey();
+					m2[n++] = next.getValue();
+					next = adds.hasNext() ? adds.next() : null;
+				}
+			}
+			return n == 0 ? null : new Postings(Arrays.copyOf(i2, n), Arrays.copyOf(m2, n));
+		}
+
+		// returning null drops the term from the dictionary
+		Postings without(int id) {
+			int pos = Arrays.binarySearch(ids, id);
+			if (pos < 0) return this;
+			if (ids.length == 1) return null;
+			int[] i2 = new int[ids.length - 1];
+			byte[] m2 = new byte[ids.length - 1];
+			System.arraycopy(ids, 0, i2, 0, pos);
+			System.arraycopy(masks, 0, m2, 0, pos);
+			System.arraycopy(ids, pos + 1, i2, pos, ids.length - pos - 1);
+			System.arraycopy(masks, pos + 1, m2, pos, ids.length - pos - 1);
+			return new Postings(i2, m2);
+		}
+	}
+
+	// Scored candidate set: ids sorted ascending with a parallel score array, merged linearly.
+	private static final class Hits {
+		static final Hits EMPTY = new Hits(new int[0], new float[0], 0);
+
+		final int[] ids;
+		final float[] scores;
+		final int size;
+
+		private Hits(int[] ids, float[] scores, int size) {
+			this.ids = ids;
+			this.scores = scores;
+			this.size = size;
+		}
+
+		static Hits of(Postings p) {
+			float[] scores = new float[p.ids.length];
+			for (int i = 0; i < scores.length; i++) scores[i] = p.score(i);
+			return new Hits(p.ids, scores, p.ids.length);
+		}
+
+		// always merges the two smallest lists first, so long posting lists are copied once
+		static Hits unionAll(List<Postings> postings) {
+			if (postings.isEmpty()) return EMPTY;
+			PriorityQueue<Hits> bySize = new PriorityQueue<>(Comparator.comparingInt((Hits h) -> h.size));
+			for (Postings p : postings) bySize.add(of(p));
+			while (bySize.size() > 1) {
+				bySize.add(bySize.poll().union(bySize.poll()));
+			}
+			return bySize.poll();
+		}
+
+		Hits union(Hits o) {
+			if (size == 0) return o;
+			if (o.size == 0) return this;
+			int[] ri = new int[size + o.size];
+			float[] rs = new float[size + o.size];
+			int i = 0, j = 0, n = 0;
+			while (i < size || j < o.size) {
+				if (j == o.size || (i < size && ids[i] < o.ids[j])) {
+					ri[n] = ids[i]; rs[n++] = scores[i++];
+				} else if (i == size || o.ids[j] < ids[i]) {
+					ri[n] = o.ids[j]; rs[n++] = o.scores[j++];
+				} else {
+					ri[n] = ids[i]; rs[n++] = scores[i++] + o.scores[j++];
+				}
+			}
+			return new Hits(ri, rs, n);
+		}
+
+		// Keeps candidates found in any of the postings, adding their score. Whichever side is
+		// much shorter is binary-searched in the other; similar sizes are merged linearly.
+		Hits probe(List<Postings> postings) {
+			float[] add = new float[size];
+			for (Postings p : postings) {
+				if ((long) size * 20 < p.ids.length) seek(p, add);
+				else if ((long) p.ids.length * 20 < size) lookup(p, add);
+				else merge(p, add);
+			}
+			int[] ri = new int[size];
+			float[] rs = new float[size];
+			int n = 0;
+			for (int i = 0; i < size; i++) {
+				if (add[i] > 0f) {
+					ri[n] = ids[i];
+					rs[n++] = scores[i] + add[i];
+				}
+			}
+			return new Hits(ri, rs, n);
+		}
+
+		private void merge(Postings p, float[] add) {
+			int i = 0, j = 0;
+			while (i < size && j < p.ids.length) {
+				if (ids[i] < p.ids[j]) i++;
+				else if (p.ids[j] < ids[i]) j++;
+				else add[i++] += p.score(j++);
+			}
+		}
+
+		private void lookup(Postings p, float[] add) {
+			int from = 0;
+			for (int j = 0; j < p.ids.length && from < size; j++) {
+				int pos = Arrays.binarySearch(ids, from, size, p.ids[j]);
+				if (pos >= 0) {
+					add[pos] += p.score(j);
+					from = pos + 1;
+				} else {
+					from = -pos - 1;
+				}
+			}
+		}
+
+		private void seek(Postings p, float[] add) {
+			int from = 0;
+			for (int i = 0; i < size && from < p.ids.length; i++) {
+				int pos = Arrays.binarySearch(p.ids, from, p.ids.length, ids[i]);
+				if (pos >= 0) {
+					add[i] += p.score(pos);
+					from = pos + 1;
+				} else {
+					from = -pos - 1;
+				}
+			}
+		}
+
+		// highest score first, lower id breaks ties; a k-sized min-heap over positions
+		List<Integer> top(int limit) {
+			int k = Math.min(limit, size);
+			PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> scores[a] != scores[b]
+					? Float.compare(scores[a], scores[b]) : Integer.compare(ids[b], ids[a]));
+			for (int i = 0; i < size; i++) {
+				if (heap.size() < k) {
+					heap.offer(i);
+				} else if (k > 0 && scores[i] > scores[heap.peek()]) {
+					heap.poll();
+					heap.offer(i);
+				}
+			}
+			List<Integer> out = new ArrayList<>(heap.size());
+			while (!heap.isEmpty()) out.add(ids[heap.poll()]);
+			Collections.reverse(out);
+			return out;
+		}
+	}
+
+	private static final class PostingsBuilder {
+		int[] ids = new int[4];
+		byte[] masks = new byte[4];
+		int size;
+
+		void add(int id, byte mask) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				masks = Arrays.copyOf(masks, size * 2);
+			}
+			ids[size] = id;
+			masks[size++] = mask;
+		}
+
+		// books stream in id order, so the arrays are already sorted
+		Postings build() {
+			return new Postings(Arrays.copyOf(ids, size), Arrays.copyOf(masks, size));
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.catalog.service;
+
+import com.example.catalog.repository.CatalogExportJdbcRepository.Dataset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Command-line export for the nightly reports: starts the service without its web server, writes
+// books, copies and borrows to gzip files in one directory, prints a summary and exits.
+//   java -jar catalog-service.jar --spring.main.web-application-type=none \
+//        --catalog.export.dir=/reports [--catalog.export.format=csv] [--catalog.export.since=<last watermark>]
+// Files are named <dataset>-<watermark>.<format>.gz; the summary's watermark is the next run's `since`
+// (see CatalogExporter for the lag it is taken back by). The serving instance's background work is
+// off for the run (BackgroundJobsConfig).
+@Component
+@ConditionalOnProperty("catalog.export.dir")
+public class CatalogExportRunner implements ApplicationRunner {
+
+	private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+	private final CatalogExporter exporter;
+	private final ObjectMapper mapper;
+	private final ConfigurableApplicationContext context;
+	private final Path dir;
+	private final String format;
+	private final String since;
+
+	public CatalogExportRunner(CatalogExporter exporter, ObjectMapper mapper, ConfigurableApplicationContext context,
+							   @Value("${catalog.export.dir}") String dir,
+							   @Value("${catalog.export.format:csv}") String format,
+							   @Value("${catalog.export.since:}") String since) {
+		this.exporter = exporter;
+		this.mapper = mapper;
+		this.context = context;
+		this.dir = Path.of(dir);
+		this.format = format;
+		this.since = since;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		CatalogExporter.Format f = CatalogExporter.Format.parse(format);
+		if (f == null) throw new IllegalArgumentException("catalog.export.format must be ndjson or csv: " + format);
+		LocalDateTime from = since.isBlank() ? null : LocalDateTime.parse(since.trim());
+		Files.createDirectories(dir);
+
+		LocalDateTime watermark = exporter.watermark();
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("watermark", watermark.toString());
+		summary.put("since", from == null ? null : from.toString());
+		for (Dataset d : Dataset.values()) {
+			String name = d.name().toLowerCase(Locale.ROOT);
+			Path file = dir.resolve(name + "-" + FILE_STAMP.format(watermark) + "." + f.extension + ".gz");
+			long rows;
+			try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 1 << 16)) {
+				rows = exporter.export(d, f, 0, from, out);
+			}
+			summary.put(name, Map.of("file", file.toString(), "rows", rows));
+		}
+		System.out.println(mapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(summary));
+		System.exit(SpringApplication.exit(context, () -> 0));
+	}
+}
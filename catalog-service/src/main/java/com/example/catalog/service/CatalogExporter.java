@@ -0,0 +1,221 @@
+package com.example.catalog.service;
+
+import com.example.catalog.repository.CatalogExportJdbcRepository;
+import com.example.catalog.repository.CatalogExportJdbcRepository.Dataset;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+// Reporting export of books, copies and borrows as NDJSON or CSV: one flat record per row with
+// the table's column names, written while the JDBC cursor advances, so memory use does not grow
+// with the table. Incremental runs pass the watermark of the previous run as `since` (rows
+// updated at or after it) and/or the last exported id as `afterId`. updated_at is stamped when a
+// row is written but the row is only seen once its transaction commits, so a write still open when
+// the export starts would fall behind the watermark for good; the watermark is therefore the
+// database time minus catalog.export.watermark-lag, set longer than the longest transaction. Rows
+// changed within that lag appear in two runs, so consumers should upsert by id. Deletions are not exported.
+@Service
+public class CatalogExporter {
+
+	public enum Format {
+		NDJSON(NdjsonStreamer.MEDIA_TYPE, "ndjson"),
+		CSV("text/csv", "csv");
+
+		public final String mediaType;
+		public final String extension;
+
+		Format(String mediaType, String extension) {
+			this.mediaType = mediaType;
+			this.extension = extension;
+		}
+
+		public static Format parse(String name) {
+			if (name == null) return null;
+			try {
+				return valueOf(name.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+
+	public static Dataset dataset(String name) {
+		if (name == null) return null;
+		try {
+			return Dataset.valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private final CatalogExportJdbcRepository jdbc;
+	private final JsonFactory json;
+	private final Duration watermarkLag;
+
+	public CatalogExporter(CatalogExportJdbcRepository jdbc, ObjectMapper mapper,
+						   @Value("${catalog.export.watermark-lag:5m}") Duration watermarkLag) {
+		this.jdbc = jdbc;
+		this.json = mapper.getFactory();
+		this.watermarkLag = watermarkLag;
+	}
+
+	// Read before the export starts; the `since` of the next incremental run
+	public LocalDateTime watermark() {
+		return jdbc.now().minus(watermarkLag);
+	}
+
+	// Writes every matching row to `out` (left open) and returns the row count.
+	public long export(Dataset dataset, Format format, long afterId, LocalDateTime since, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+		RowWriter rows = format == Format.CSV ? new CsvRows(writer) : new NdjsonRows(json.createGenerator(writer));
+		long count;
+		try {
+			count = jdbc.read(dataset, afterId, since, rs -> {
+				long n = 0;
+				try {
+					rows.start(rs.getMetaData());
+					while (rs.next()) {
+						rows.write(rs);
+						n++;
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return n;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		rows.finish();
+		writer.flush();
+		return count;
+	}
+
+	private interface RowWriter {
+		void start(ResultSetMetaData meta) throws SQLException, IOException;
+
+		void write(ResultSet rs) throws SQLException, IOException;
+
+		void finish() throws IOException;
+	}
+
+	private static final class NdjsonRows implements RowWriter {
+		private final JsonGenerator gen;
+		private String[] names;
+
+		NdjsonRows(JsonGenerator gen) {
+			this.gen = gen;
+			gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			gen.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void start(ResultSetMetaData meta) throws SQLException {
+			names = labels(meta);
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			gen.writeStartObject();
+			for (int i = 0; i < names.length; i++) {
+				Object v = rs.getObject(i + 1);
+				gen.writeFieldName(names[i]);
+				if (v == null) gen.writeNull();
+				else if (v instanceof Integer n) gen.writeNumber(n);
+				else if (v instanceof Long n) gen.writeNumber(n);
+				else if (v instanceof BigDecimal n) gen.writeNumber(n);
+				else if (v instanceof Number n) gen.writeNumber(n.toString());
+				else gen.writeString(text(v));
+			}
+			gen.writeEndObject();
+			gen.writeRaw('\n');
+		}
+
+		@Override
+		public void finish() throws IOException {
+			gen.close();
+		}
+	}
+
+	// RFC 4180: a header row, fields quoted only when they contain a separator, quote or line break
+	private static final class CsvRows implements RowWriter {
+		private final Writer out;
+		private int columns;
+
+		CsvRows(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void start(ResultSetMetaData meta) throws SQLException, IOException {
+			String[] names = labels(meta);
+			columns = names.length;
+			for (int i = 0; i < columns; i++) {
+				if (i > 0) out.write(',');
+				out.write(names[i]);
+			}
+			out.write("\r\n");
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			for (int i = 0; i < columns; i++) {
+				if (i > 0) out.write(',');
+				Object v = rs.getObject(i + 1);
+				if (v != null) field(text(v));
+			}
+			out.write("\r\n");
+		}
+
+		private void field(String s) throws IOException {
+			boolean quote = false;
+			for (int i = 0; i < s.length() && !quote; i++) {
+				char c = s.charAt(i);
+				quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+			}
+			if (!quote) {
+				out.write(s);
+				return;
+			}
+			out.write('"');
+			out.write(s.replace("\"", "\"\""));
+			out.write('"');
+		}
+
+		@Override
+		public void finish() {
+		}
+	}
+
+	private static String[] labels(ResultSetMetaData meta) throws SQLException {
+		String[] names = new String[meta.getColumnCount()];
+		for (int i = 0; i < names.length; i++) names[i] = meta.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+		return names;
+	}
+
+	// dates and timestamps as ISO-8601, everything else as the driver renders it
+	private static String text(Object v) {
+		if (v instanceof Timestamp t) return t.toLocalDateTime().toString();
+		if (v instanceof Date d) return d.toLocalDate().toString();
+		return v.toString();
+	}
+}
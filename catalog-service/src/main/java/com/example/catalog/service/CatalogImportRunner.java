@@ -0,0 +1,53 @@
+package com.example.catalog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+// Command-line import: starts the service without its web server, imports one file, prints the
+// report and exits (status 1 when any row failed or the file could not be read to the end).
+//   java -jar catalog-service.jar --spring.main.web-application-type=none \
+//        --catalog.import.file=branch.csv [--catalog.import.commit-size=5000]
+// The format comes from the extension: .csv, or .ndjson/.jsonl.
+@Component
+@ConditionalOnProperty("catalog.import.file")
+public class CatalogImportRunner implements ApplicationRunner {
+
+	private final CatalogImporter importer;
+	private final ObjectMapper mapper;
+	private final ConfigurableApplicationContext context;
+	private final Path file;
+
+	public CatalogImportRunner(CatalogImporter importer, ObjectMapper mapper, ConfigurableApplicationContext context,
+							   @Value("${catalog.import.file}") String file) {
+		this.importer = importer;
+		this.mapper = mapper;
+		this.context = context;
+		this.file = Path.of(file);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		CatalogImporter.Format format = CatalogImporter.formatOf(file.getFileName().toString());
+		if (format == null) throw new IllegalArgumentException("expected a .csv, .ndjson or .jsonl file: " + file);
+		Map<String, Object> report;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+			report = importer.run(in, format, null);
+		}
+		System.out.println(mapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+		boolean clean = Boolean.TRUE.equals(report.get("completed")) && ((Number) report.get("failed")).longValue() == 0;
+		System.exit(SpringApplication.exit(context, () -> clean ? 0 : 1));
+	}
+}
@@ -0,0 +1,450 @@
+package com.example.catalog.service;
+
+import com.example.catalog.dto.ImportRow;
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Publisher;
+import com.example.catalog.repository.CatalogImportJdbcRepository;
+import com.example.catalog.repository.CatalogImportJdbcRepository.AuthorRow;
+import com.example.catalog.repository.CatalogImportJdbcRepository.NamedRow;
+import com.example.catalog.repository.CatalogImportJdbcRepository.NewBook;
+import com.example.catalog.repository.CatalogImportJdbcRepository.NewCopy;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bulk catalog import. Rows are read one at a time from a CSV or NDJSON stream and written in
+// chunks of commit-size rows, each chunk one transaction of JDBC batches, so only the current
+// chunk is ever held in memory. Authors, publishers and categories are matched by name through
+// maps loaded once per import; books are matched by ISBN, one query per chunk. A matched book
+// only gets the row's copies, its own fields are left alone. Bad rows are reported and skipped.
+@Service
+public class CatalogImporter {
+
+	public enum Format { CSV, NDJSON }
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogImporter.class);
+	private static final int MAX_COPIES_PER_ROW = 1000;
+	private static final CsvSchema CSV_SCHEMA = CsvSchema.emptySchema().withHeader().withArrayElementSeparator(";");
+
+	private final CatalogImportJdbcRepository jdbc;
+	private final ObjectReader ndjsonReader;
+	private final ObjectReader csvReader;
+	private final AvailabilityCounters availability;
+	private final BookSearchIndex searchIndex;
+	private final BarcodeIndex barcodes;
+	private final CatalogVersions versions;
+	private final SessionFactory sessionFactory;
+	private final TransactionTemplate tx;
+	private final int commitSize;
+	private final int maxReportedErrors;
+	// one import at a time: the dedupe maps of two concurrent runs would not see each other's rows
+	private final ReentrantLock running = new ReentrantLock();
+
+	public CatalogImporter(CatalogImportJdbcRepository jdbc, ObjectMapper mapper,
+						   AvailabilityCounters availability, BookSearchIndex searchIndex, BarcodeIndex barcodes,
+						   CatalogVersions versions, EntityManagerFactory emf, PlatformTransactionManager txManager,
+						   @Value("${catalog.import.commit-size:1000}") int commitSize,
+						   @Value("${catalog.import.max-reported-errors:1000}") int maxReportedErrors) {
+		this.jdbc = jdbc;
+		this.ndjsonReader = mapper.readerFor(ImportRow.class).with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+		this.csvReader = new CsvMapper().enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+				.readerFor(ImportRow.class).with(CSV_SCHEMA);
+		this.availability = availability;
+		this.searchIndex = searchIndex;
+		this.barcodes = barcodes;
+		this.versions = versions;
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.tx = new TransactionTemplate(txManager);
+		this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.commitSize = commitSize;
+		this.maxReportedErrors = maxReportedErrors;
+	}
+
+	public boolean isRunning() {
+		return running.isLocked();
+	}
+
+	public static Format formatOf(String fileName) {
+		String name = fileName.toLowerCase(Locale.ROOT);
+		if (name.endsWith(".csv")) return Format.CSV;
+		if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) return Format.NDJSON;
+		return null;
+	}
+
+	// Reads the stream to the end (or to the first unreadable input) and returns the report.
+	public Map<String, Object> run(InputStream in, Format format, Integer commitSizeOverride) throws IOException {
+		int size = commitSizeOverride != null ? commitSizeOverride : commitSize;
+		if (size < 1) throw new IllegalArgumentException("commit size must be positive");
+		if (!running.tryLock()) throw new IllegalStateException("an import is already running");
+		try (MappingIterator<ImportRow> rows = (format == Format.CSV ? csvReader : ndjsonReader).readValues(in)) {
+			return new Run(size).readAll(rows);
+		} finally {
+			running.unlock();
+		}
+	}
+
+	private static final class RowException extends RuntimeException {
+		RowException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	private record Pending(long rowNo, ImportRow row, String isbn, String title, String author, String publisher,
+						   String category, Integer year, List<String> barcodes, int extraCopies, CopyStatus status) {}
+
+	private final class Run {
+
+		private final int size;
+		private final long start = System.nanoTime();
+		private final Map<String, Integer> authors = new HashMap<>();
+		private final Map<String, Integer> publishers = new HashMap<>();
+		private final Map<String, Integer> categories = new HashMap<>();
+		private final List<Map<String, Object>> errors = new ArrayList<>();
+
+		private List<Pending> chunk;
+		private final Set<String> chunkBarcodes = new HashSet<>();
+		private long rowsRead, imported, failed, booksCreated, booksMatched, copiesCreated;
+		private long authorsCreated, publishersCreated, categoriesCreated;
+		private boolean completed = true;
+		private boolean truncated;
+
+		Run(int size) {
+			this.size = size;
+			this.chunk = new ArrayList<>(size);
+			tx.executeWithoutResult(s -> {
+				for (AuthorRow a : jdbc.findAllAuthors()) authors.putIfAbsent(authorKey(a.firstName(), a.lastName()), a.id());
+				for (NamedRow p : jdbc.findAllPublishers()) publishers.putIfAbsent(key(p.name()), p.id());
+				for (NamedRow c : jdbc.findAllCategories()) categories.putIfAbsent(key(c.name()), c.id());
+			});
+		}
+
+		Map<String, Object> readAll(MappingIterator<ImportRow> rows) {
+			while (true) {
+				try {
+					if (!rows.hasNextValue()) break;
+				} catch (IOException ex) {
+					stop("unreadable input after row " + rowsRead + ": " + ex.getMessage());
+					break;
+				}
+				rowsRead++;
+				try {
+					accept(validate(rowsRead, rows.nextValue()));
+				} catch (RowException | JsonMappingException ex) {
+					error(rowsRead, ex instanceof JsonMappingException jme ? jme.getOriginalMessage() : ex.getMessage());
+					continue;
+				} catch (IOException ex) {
+					error(rowsRead, ex.getMessage());
+					stop("unreadable input at row " + rowsRead);
+					break;
+				}
+				if (chunk.size() >= size) flush();
+			}
+			flush();
+			return report();
+		}
+
+		private void accept(Pending p) {
+			chunk.add(p);
+			chunkBarcodes.addAll(p.barcodes());
+		}
+
+		private Pending validate(long rowNo, ImportRow row) {
+			if (row == null) throw new RowException("empty row");
+			String title = trim(row.title());
+			if (title == null) throw new RowException("title is required");
+			Integer year = null;
+			if (trim(row.publicationYear()) != null) {
+				try {
+					year = Integer.valueOf(trim(row.publicationYear()));
+				} catch (NumberFormatException e) {
+					throw new RowException("publicationYear is not a number: " + row.publicationYear());
+				}
+			}
+			int extra = 0;
+			if (trim(row.copies()) != null) {
+				try {
+					extra = Integer.parseInt(trim(row.copies()));
+				} catch (NumberFormatException e) {
+					extra = -1;
+				}
+				if (extra < 0 || extra > MAX_COPIES_PER_ROW) {
+					throw new RowException("copies must be between 0 and " + MAX_COPIES_PER_ROW + ": " + row.copies());
+				}
+			}
+			CopyStatus status = CopyStatus.AVAILABLE;
+			if (trim(row.status()) != null) {
+				status = CopyStatus.parse(row.status());
+				if (status == null) throw new RowException("unknown status: " + row.status());
+			}
+			List<String> barcodes = new ArrayList<>();
+			if (row.barcodes() != null) {
+				for (String b : row.barcodes()) {
+					String barcode = trim(b);
+					if (barcode == null) continue;
+					if (chunkBarcodes.contains(barcode) || barcodes.contains(barcode)) {
+						throw new RowException("duplicate barcode: " + barcode);
+					}
+					barcodes.add(barcode);
+				}
+			}
+			if (barcodes.size() + extra > MAX_COPIES_PER_ROW) throw new RowException("too many copies in one row");
+			return new Pending(rowNo, row, trim(row.isbn()), title, trim(row.author()), trim(row.publisher()),
+					trim(row.category()), year, barcodes, extra, status);
+		}
+
+		// --- one chunk, one transaction ---
+
+		private void flush() {
+			if (chunk.isEmpty()) return;
+			List<Pending> rows = chunk;
+			chunk = new ArrayList<>(size);
+			chunkBarcodes.clear();
+			Chunk result;
+			try {
+				result = tx.execute(s -> write(rows));
+			} catch (RuntimeException ex) {
+				String reason = "chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+				log.warn("Import chunk of {} rows (from row {}) failed: {}", rows.size(), rows.get(0).rowNo(), reason);
+				for (Pending p : rows) error(p.rowNo(), reason);
+				return;
+			}
+			// the ids only exist once the chunk has committed
+			authors.putAll(result.authors);
+			publishers.putAll(result.publishers);
+			categories.putAll(result.categories);
+			authorsCreated += result.authors.size();
+			publishersCreated += result.publishers.size();
+			categoriesCreated += result.categories.size();
+			booksCreated += result.booksCreated;
+			booksMatched += result.booksMatched;
+			copiesCreated += result.copiesCreated;
+			imported += rows.size() - result.rejected.size();
+			result.rejected.forEach(this::error);
+			// these rows bypassed Hibernate, so cached query results may be missing them
+			sessionFactory.getCache().evictQueryRegions();
+			log.info("Import: {} rows read, {} imported, {} failed ({} rows/s)", rowsRead, imported, failed, rowsPerSecond());
+		}
+
+		private Chunk write(List<Pending> rows) {
+			Chunk c = new Chunk();
+
+			Set<String> taken = jdbc.findExistingBarcodes(rows.stream().flatMap(p -> p.barcodes().stream()).toList());
+			List<Pending> accepted = new ArrayList<>(rows.size());
+			for (Pending p : rows) {
+				String clash = p.barcodes().stream().filter(taken::contains).findFirst().orElse(null);
+				if (clash != null) c.rejected.put(p.rowNo(), "barcode already exists: " + clash);
+				else accepted.add(p);
+			}
+
+			resolveReferences(accepted, c);
+
+			// books: existing by ISBN, else one new row per ISBN (or per row without one)
+			Map<String, Integer> existing = jdbc.findBookIdsByIsbn(
+					accepted.stream().map(Pending::isbn).filter(i -> i != null).distinct().toList());
+			List<NewBook> newBooks = new ArrayList<>();
+			List<Pending> newBookRows = new ArrayList<>();
+			Map<String, Integer> slotByIsbn = new HashMap<>();
+			int[] slots = new int[accepted.size()];
+			for (int i = 0; i < accepted.size(); i++) {
+				Pending p = accepted.get(i);
+				if (p.isbn() != null && existing.containsKey(p.isbn())) {
+					slots[i] = -1;
+					c.booksMatched++;
+					continue;
+				}
+				Integer slot = p.isbn() == null ? null : slotByIsbn.get(p.isbn());
+				if (slot != null) {
+					c.booksMatched++;
+				} else {
+					slot = newBooks.size();
+					newBooks.add(new NewBook(p.title(), p.isbn(), c.idOf(authors, c.authors, key(p.author())),
+							c.idOf(publishers, c.publishers, key(p.publisher())),
+							c.idOf(categories, c.categories, key(p.category())), p.year(), trim(p.row().shelfLocation())));
+					newBookRows.add(p);
+					if (p.isbn() != null) slotByIsbn.put(p.isbn(), slot);
+				}
+				slots[i] = slot;
+			}
+			List<Integer> bookIds = jdbc.insertBooks(newBooks);
+			c.booksCreated = newBooks.size();
+
+			List<NewCopy> copies = new ArrayList<>();
+			for (int i = 0; i < accepted.size(); i++) {
+				Pending p = accepted.get(i);
+				int bookId = slots[i] < 0 ? existing.get(p.isbn()) : bookIds.get(slots[i]);
+				for (String barcode : p.barcodes()) copies.add(new NewCopy(bookId, barcode, p.status().name()));
+				for (int n = 0; n < p.extraCopies(); n++) copies.add(new NewCopy(bookId, null, p.status().name()));
+			}
+			List<Integer> copyIds = jdbc.insertCopies(copies);
+			c.copiesCreated = copies.size();
+
+			// in-memory structures follow once the chunk commits
+			for (int i = 0; i < copies.size(); i++) {
+				NewCopy copy = copies.get(i);
+				availability.copyAdded(copy.bookId(), CopyStatus.valueOf(copy.status()));
+				if (copy.barcode() != null) {
+					barcodes.copyAdded(copyIds.get(i), copy.barcode(), copy.bookId(), CopyStatus.valueOf(copy.status()));
+				}
+			}
+			List<Book> indexed = new ArrayList<>(newBooks.size());
+			for (int i = 0; i < newBooks.size(); i++) indexed.add(toBook(bookIds.get(i), newBookRows.get(i)));
+			AfterCommit.run(() -> searchIndex.putAll(indexed));
+			versions.catalogChanged();
+			return c;
+		}
+
+		private void resolveReferences(List<Pending> rows, Chunk c) {
+			Map<String, AuthorRow> newAuthors = new LinkedHashMap<>();
+			Map<String, String> newPublishers = new LinkedHashMap<>();
+			Map<String, String> newCategories = new LinkedHashMap<>();
+			for (Pending p : rows) {
+				String author = key(p.author());
+				if (author != null && !authors.containsKey(author)) {
+					newAuthors.computeIfAbsent(author, k -> splitName(p.author()));
+				}
+				String publisher = key(p.publisher());
+				if (publisher != null && !publishers.containsKey(publisher)) newPublishers.putIfAbsent(publisher, p.publisher());
+				String category = key(p.category());
+				if (category != null && !categories.containsKey(category)) newCategories.putIfAbsent(category, p.category());
+			}
+			putAll(c.authors, newAuthors.keySet(), jdbc.insertAuthors(List.copyOf(newAuthors.values())));
+			putAll(c.publishers, newPublishers.keySet(), jdbc.insertPublishers(List.copyOf(newPublishers.values())));
+			putAll(c.categories, newCategories.keySet(), jdbc.insertCategories(List.copyOf(newCategories.values())));
+		}
+
+		// --- reporting ---
+
+		private void error(long rowNo, String message) {
+			failed++;
+			if (errors.size() < maxReportedErrors) errors.add(Map.of("row", rowNo, "error", message));
+			else truncated = true;
+		}
+
+		private void stop(String reason) {
+			completed = false;
+			log.warn("Import stopped: {}", reason);
+			errors.add(Map.of("row", rowsRead, "error", reason));
+		}
+
+		private long rowsPerSecond() {
+			long nanos = Math.max(1, System.nanoTime() - start);
+			return rowsRead * 1_000_000_000L / nanos;
+		}
+
+		private Map<String, Object> report() {
+			Map<String, Object> r = new LinkedHashMap<>();
+			r.put("completed", completed);
+			r.put("rows", rowsRead);
+			r.put("imported", imported);
+			r.put("failed", failed);
+			r.put("booksCreated", booksCreated);
+			r.put("booksMatched", booksMatched);
+			r.put("copiesCreated", copiesCreated);
+			r.put("authorsCreated", authorsCreated);
+			r.put("publishersCreated", publishersCreated);
+			r.put("categoriesCreated", categoriesCreated);
+			r.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+			r.put("rowsPerSecond", rowsPerSecond());
+			r.put("errors", errors);
+			r.put("errorsTruncated", truncated);
+			return r;
+		}
+	}
+
+	// ids created by one chunk; merged into the run's maps only after it commits
+	private static final class Chunk {
+		final Map<String, Integer> authors = new HashMap<>();
+		final Map<String, Integer> publishers = new HashMap<>();
+		final Map<String, Integer> categories = new HashMap<>();
+		final Map<Long, String> rejected = new LinkedHashMap<>();
+		long booksCreated, booksMatched, copiesCreated;
+
+		Integer idOf(Map<String, Integer> known, Map<String, Integer> created, String key) {
+			if (key == null) return null;
+			Integer id = known.get(key);
+			return id != null ? id : created.get(key);
+		}
+	}
+
+	private static Book toBook(Integer id, Pending p) {
+		Book b = new Book();
+		b.setId(id);
+		b.setTitle(p.title());
+		b.setIsbn(p.isbn());
+		if (p.author() != null) {
+			AuthorRow name = splitName(p.author());
+			Author a = new Author();
+			a.setFirstName(name.firstName());
+			a.setLastName(name.lastName());
+			b.setAuthor(a);
+		}
+		if (p.publisher() != null) {
+			Publisher pub = new Publisher();
+			pub.setName(p.publisher());
+			b.setPublisher(pub);
+		}
+		if (p.category() != null) {
+			Category cat = new Category();
+			cat.setName(p.category());
+			b.setCategory(cat);
+		}
+		return b;
+	}
+
+	private static void putAll(Map<String, Integer> target, Iterable<String> keys, List<Integer> ids) {
+		int i = 0;
+		for (String k : keys) target.put(k, ids.get(i++));
+	}
+
+	// the last word is the last name, everything before it the first name; one word is a first name
+	private static AuthorRow splitName(String fullName) {
+		String name = fullName.trim().replaceAll("\\s+", " ");
+		int cut = name.lastIndexOf(' ');
+		return cut < 0 ? new AuthorRow(null, name, null) : new AuthorRow(null, name.substring(0, cut), name.substring(cut + 1));
+	}
+
+	private static String authorKey(String firstName, String lastName) {
+		return key((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName));
+	}
+
+	private static String key(String name) {
+		String t = trim(name);
+		return t == null ? null : t.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	private static String trim(String s) {
+		if (s == null) return null;
+		String t = s.trim();
+		return t.isEmpty() ? null : t;
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.catalog.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version counters behind the catalog ETags. Every book write takes the next value of one sequence:
+// the book remembers it, and the sequence itself is the version of the catalog as a whole. Bumps are
+// applied after commit, so a reader that sees a new version also sees the data it stands for.
+@Component
+public class CatalogVersions {
+
+	// counters restart at zero, so tags from an earlier run must not validate against this one
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private final AtomicLong sequence = new AtomicLong();
+	private final ConcurrentHashMap<Integer, Long> books = new ConcurrentHashMap<>();
+	// books not written since the last invalidateAll() are at this version
+	private volatile long floor;
+
+	public void bookChanged(Integer bookId) {
+		if (bookId == null) return;
+		AfterCommit.run(() -> books.merge(bookId, sequence.incrementAndGet(), Math::max));
+	}
+
+	// Books added in bulk: only listings change, no book that was already served
+	public void catalogChanged() {
+		AfterCommit.run(sequence::incrementAndGet);
+	}
+
+	// For changes made behind the service's back (e.g. reference data fixed in SQL and evicted from the cache)
+	public void invalidateAll() {
+		floor = sequence.incrementAndGet();
+		books.clear();
+	}
+
+	public String catalogEtag() {
+		return "\"c" + epoch + "-" + sequence.get() + "\"";
+	}
+
+	public String bookEtag(Integer bookId) {
+		long v = Math.max(floor, books.getOrDefault(bookId, 0L));
+		return "\"b" + bookId + "-" + epoch + "-" + v + "\"";
+	}
+}
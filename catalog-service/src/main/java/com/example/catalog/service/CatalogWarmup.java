@@ -0,0 +1,145 @@
+package com.example.catalog.service;
+
+import com.example.catalog.config.ReadRouting;
+import com.example.catalog.entity.Book;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookCopyRepository.BarcodeRow;
+import com.example.catalog.repository.BookRepository;
+import com.example.catalog.repository.HoldRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Loads the in-memory catalog structures from the database once the app is up (BackgroundJobsConfig).
+// Reads go through a forward-only cursor; the persistence context is cleared as rows pass.
+@Component
+public class CatalogWarmup {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+	private static final int CLEAR_EVERY = 1000;
+
+	private final BookRepository bookRepo;
+	private final BookCopyRepository copyRepo;
+	private final BookSearchIndex searchIndex;
+	private final AvailabilityCounters availability;
+	private final HoldRepository holdRepo;
+	private final HoldService holds;
+	private final BarcodeIndex barcodes;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTx;
+
+	public CatalogWarmup(BookRepository bookRepo, BookCopyRepository copyRepo,
+						 BookSearchIndex searchIndex, AvailabilityCounters availability,
+						 HoldRepository holdRepo, HoldService holds, BarcodeIndex barcodes,
+						 EntityManager entityManager, PlatformTransactionManager txManager) {
+		this.bookRepo = bookRepo;
+		this.copyRepo = copyRepo;
+		this.searchIndex = searchIndex;
+		this.availability = availability;
+		this.holdRepo = holdRepo;
+		this.holds = holds;
+		this.barcodes = barcodes;
+		this.entityManager = entityManager;
+		this.readOnlyTx = new TransactionTemplate(txManager);
+		this.readOnlyTx.setReadOnly(true);
+	}
+
+	// From the primary even when replicas are configured: the counters and queues built here are
+	// then moved by the writes committed on the primary, so they must start from its state
+	public void warmUp() {
+		ReadRouting.onPrimary(this::loadAll);
+	}
+
+	private void loadAll() {
+		try {
+			rebuildAvailability();
+		} catch (Exception ex) {
+			// availability reads fall back to the database until the counters are ready
+			log.error("Failed to load availability counters", ex);
+		}
+		try {
+			rebuildHolds();
+		} catch (Exception ex) {
+			// returns and borrows read the queue heads from the database until the queues are loaded
+			log.error("Failed to load hold queues", ex);
+		}
+		try {
+			rebuildBarcodeIndex();
+		} catch (Exception ex) {
+			// scans look barcodes up in the database until the index is built
+			log.error("Failed to build barcode index", ex);
+		}
+		try {
+			rebuildSearchIndex();
+		} catch (Exception ex) {
+			// search falls back to the database until the index is ready
+			log.error("Failed to build search index", ex);
+		}
+	}
+
+	// synchronized with the reconcile pass: both track the deltas committed during their query
+	public synchronized void rebuildAvailability() {
+		readOnlyTx.executeWithoutResult(status -> {
+			availability.startRebuild();
+			availability.rebuild(copyRepo.countCopiesByBook());
+		});
+	}
+
+	// Checks the availability counters against the copies table (see AvailabilityCounters.reconcile)
+	@Scheduled(fixedDelayString = "${catalog.availability.reconcile-interval:300000}",
+			initialDelayString = "${catalog.availability.reconcile-interval:300000}")
+	public synchronized void reconcileAvailability() {
+		if (!availability.isReady()) return;
+		ReadRouting.onPrimary(() -> readOnlyTx.executeWithoutResult(status -> {
+			availability.startRebuild();
+			List<Integer> corrected = availability.reconcile(copyRepo.countCopiesByBook());
+			if (!corrected.isEmpty()) log.warn("Corrected availability counters of {} books: {}", corrected.size(), corrected);
+		}));
+	}
+
+	public void rebuildHolds() {
+		readOnlyTx.executeWithoutResult(status -> holds.rebuild(holdRepo.findAllOpen()));
+	}
+
+	public void rebuildBarcodeIndex() {
+		readOnlyTx.executeWithoutResult(status -> {
+			try (Stream<BarcodeRow> rows = copyRepo.streamBarcodes()) {
+				barcodes.rebuild(rows.iterator());
+			}
+		});
+	}
+
+	public void rebuildSearchIndex() {
+		searchIndex.startRebuild();
+		readOnlyTx.executeWithoutResult(status -> {
+			try (Stream<Book> books = bookRepo.streamAllByOrderByIdAsc()) {
+				searchIndex.rebuild(clearing(books.iterator()));
+			}
+		});
+	}
+
+	private <T> Iterator<T> clearing(Iterator<T> rows) {
+		return new Iterator<>() {
+			int n;
+
+			@Override
+			public boolean hasNext() {
+				return rows.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (++n % CLEAR_EVERY == 0) entityManager.clear();
+				return rows.next();
+			}
+		};
+	}
+}
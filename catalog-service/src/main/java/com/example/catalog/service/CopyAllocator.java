@@ -0,0 +1,53 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+// Hands out distinct copies to concurrent borrowers without locking the whole table.
+// Candidates come from a SKIP LOCKED read so contenders spread over different rows, and the
+// AVAILABLE -> ISSUED flip is a conditional UPDATE, so a copy can only ever be claimed once.
+@Component
+public class CopyAllocator {
+
+	private static final int CANDIDATES = 4;
+	private static final int MAX_ATTEMPTS = 5;
+
+	private final BookCopyRepository copyRepo;
+	private final AvailabilityCounters availability;
+	private final BarcodeIndex barcodes;
+
+	public CopyAllocator(BookCopyRepository copyRepo, AvailabilityCounters availability, BarcodeIndex barcodes) {
+		this.copyRepo = copyRepo;
+		this.availability = availability;
+		this.barcodes = barcodes;
+	}
+
+	// Claims any available copy of the book; empty when none is left.
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Optional<Integer> claimAny(Integer bookId) {
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			List<Integer> candidates = copyRepo.lockCopyIdsByBookAndStatus(bookId, CopyStatus.AVAILABLE, Limit.of(CANDIDATES));
+			if (candidates.isEmpty()) return Optional.empty();
+			for (Integer copyId : candidates) {
+				if (claim(copyId, bookId)) return Optional.of(copyId);
+			}
+		}
+		return Optional.empty();
+	}
+
+	// Claims one specific copy; false if it is not AVAILABLE (any more).
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean claim(Integer copyId, Integer bookId) {
+		if (copyRepo.compareAndSetStatus(copyId, CopyStatus.AVAILABLE, CopyStatus.ISSUED) != 1) return false;
+		availability.statusChanged(bookId, CopyStatus.AVAILABLE, CopyStatus.ISSUED);
+		barcodes.statusChanged(copyId, CopyStatus.ISSUED);
+		return true;
+	}
+}
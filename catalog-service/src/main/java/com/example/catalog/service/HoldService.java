@@ -0,0 +1,277 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Hold;
+import com.example.catalog.entity.Hold.HoldStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.HoldRepository;
+import com.example.catalog.repository.HoldRepository.OpenHold;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Per-title FIFO hold queues. The holds table is the record; the WAITING hold ids of each title are
+// also kept in memory in arrival order (and the READY ones by patron), so a return finds the next
+// patron, and a borrow finds a ready hold, without a query. Every hold transition is a conditional
+// UPDATE, so two returns racing for the head of a queue serve two different holds. The in-memory
+// state and anyone long-polling a hold are updated after commit.
+@Service
+public class HoldService {
+
+	private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+	// queue heads tried per title until the in-memory queues are loaded
+	private static final int CANDIDATES = 8;
+	private static final int EXPIRY_CHUNK = 100;
+
+	private final HoldRepository holdRepo;
+	private final BookCopyRepository copyRepo;
+	private final AvailabilityCounters availability;
+	private final BarcodeIndex barcodes;
+	private final TransactionTemplate tx;
+	private final Duration pickupWindow;
+
+	private final Map<Integer, Queue<Integer>> waiting = new ConcurrentHashMap<>();
+	// userId << 32 | bookId of every READY hold
+	private final Set<Long> readyFor = ConcurrentHashMap.newKeySet();
+	private final Map<Integer, CompletableFuture<Hold>> waiters = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+
+	public HoldService(HoldRepository holdRepo, BookCopyRepository copyRepo, AvailabilityCounters availability,
+					   BarcodeIndex barcodes, PlatformTransactionManager txManager,
+					   @Value("${catalog.holds.pickup-window:3d}") Duration pickupWindow) {
+		this.holdRepo = holdRepo;
+		this.copyRepo = copyRepo;
+		this.availability = availability;
+		this.barcodes = barcodes;
+		this.tx = new TransactionTemplate(txManager);
+		this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.pickupWindow = pickupWindow;
+	}
+
+	public void rebuild(List<OpenHold> rows) {
+		waiting.clear();
+		readyFor.clear();
+		for (OpenHold row : rows) {
+			if (row.getStatus() == HoldStatus.WAITING) queue(row.getBookId()).add(row.getHoldId());
+			else readyFor.add(key(row.getUserId(), row.getBookId()));
+		}
+		ready = true;
+	}
+
+	public boolean hasWaiting(Integer bookId) {
+		if (bookId == null) return false;
+		if (!ready) return !holdRepo.findWaitingIds(bookId, Limit.of(1)).isEmpty();
+		Queue<Integer> q = waiting.get(bookId);
+		return q != null && !q.isEmpty();
+	}
+
+	// 1-based place in the title's queue; 0 once the hold is no longer waiting
+	public int position(Hold hold) {
+		if (hold.getStatus() != HoldStatus.WAITING) return 0;
+		Queue<Integer> q = waiting.get(hold.getBookId());
+		int i = 1;
+		if (q != null) {
+			for (Integer id : q) {
+				if (id.equals(hold.getHoldId())) return i;
+				i++;
+			}
+		}
+		// a hold placed in this transaction joins the end of the queue when it commits
+		return i;
+	}
+
+	// Joins the title's queue. A patron has at most one open hold per title; asking again returns it.
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Hold place(Integer bookId, Integer userId) {
+		Optional<Hold> open = holdRepo.findFirstByUserIdAndBookIdAndStatusIn(userId, bookId, Hold.OPEN_STATUSES);
+		if (open.isPresent()) return open.get();
+		Hold hold = new Hold();
+		hold.setBookId(bookId);
+		hold.setUserId(userId);
+		hold.setStatus(HoldStatus.WAITING);
+		hold.setPlacedAt(LocalDateTime.now());
+		holdRepo.save(hold);
+		AfterCommit.run(() -> {
+			queue(bookId).add(hold.getHoldId());
+			// a copy may have come back between the failed borrow and this commit, with nobody queued yet
+			if (availability.available(bookId) > 0) promote(bookId);
+		});
+		return hold;
+	}
+
+	// Hands a copy that is coming back (or being released) to the oldest waiting hold on its title.
+	// The caller sets the copy ON_HOLD when a hold is returned and AVAILABLE otherwise.
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Optional<Hold> assign(Integer bookId, Integer copyId) {
+		if (!hasWaiting(bookId)) return Optional.empty();
+		LocalDateTime now = LocalDateTime.now();
+		Iterable<Integer> candidates = ready ? waiting.get(bookId) : holdRepo.findWaitingIds(bookId, Limit.of(CANDIDATES));
+		for (Integer holdId : candidates) {
+			if (holdRepo.markReady(holdId, copyId, now, now.plus(pickupWindow)) != 1) continue;
+			Hold hold = holdRepo.findById(holdId).orElseThrow();
+			hold.setStatus(HoldStatus.READY);
+			hold.setBookCopyId(copyId);
+			hold.setReadyAt(now);
+			hold.setExpiresAt(now.plus(pickupWindow));
+			changed(hold);
+			return Optional.of(hold);
+		}
+		return Optional.empty();
+	}
+
+	// Issues the copy set aside for the patron's READY hold on the title (only that copy, when given);
+	// returns its id, or empty when the patron has no ready hold.
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Optional<Integer> pickUp(Integer userId, Integer bookId, Integer copyId) {
+		if (userId == null || bookId == null) return Optional.empty();
+		if (ready && !readyFor.contains(key(userId, bookId))) return Optional.empty();
+		Hold hold = holdRepo.findFirstByUserIdAndBookIdAndStatusIn(userId, bookId, List.of(HoldStatus.READY)).orElse(null);
+		if (hold == null || (copyId != null && !copyId.equals(hold.getBookCopyId()))) return Optional.empty();
+		if (holdRepo.compareAndSetStatus(hold.getHoldId(), HoldStatus.READY, HoldStatus.FULFILLED) != 1) return Optional.empty();
+		if (copyRepo.compareAndSetStatus(hold.getBookCopyId(), CopyStatus.ON_HOLD, CopyStatus.ISSUED) != 1) {
+			throw new IllegalStateException("Copy " + hold.getBookCopyId() + " of hold " + hold.getHoldId() + " is no longer on hold");
+		}
+		availability.statusChanged(bookId, CopyStatus.ON_HOLD, CopyStatus.ISSUED);
+		barcodes.statusChanged(hold.getBookCopyId(), CopyStatus.ISSUED);
+		hold.setStatus(HoldStatus.FULFILLED);
+		changed(hold);
+		return Optional.of(hold.getBookCopyId());
+	}
+
+	// Withdraws a hold; a copy already set aside for it passes to the next patron or back to the shelf.
+	@Transactional
+	public Optional<Hold> cancel(Integer holdId) {
+		Hold hold = holdRepo.findById(holdId).orElse(null);
+		if (hold == null) return Optional.empty();
+		close(hold, HoldStatus.CANCELLED);
+		return Optional.of(hold);
+	}
+
+	// READY holds not picked up within the pickup window lapse, in short transactions of one hold each.
+	@Scheduled(cron = "${catalog.holds.expiry-cron:0 */10 * * * *}")
+	public void scheduledExpiry() {
+		try {
+			int expired = expire(LocalDateTime.now());
+			if (expired > 0) log.info("Expired {} uncollected holds", expired);
+		} catch (Exception ex) {
+			log.error("Hold expiry failed; it is retried on the next run", ex);
+		}
+	}
+
+	public int expire(LocalDateTime now) {
+		int total = 0;
+		List<Integer> ids;
+		do {
+			ids = holdRepo.findExpiredIds(now, Limit.of(EXPIRY_CHUNK));
+			for (Integer id : ids) {
+				Boolean expired = tx.execute(s -> holdRepo.findById(id).map(h -> close(h, HoldStatus.EXPIRED)).orElse(false));
+				if (Boolean.TRUE.equals(expired)) total++;
+			}
+		} while (ids.size() == EXPIRY_CHUNK);
+		return total;
+	}
+
+	// Completes once the hold stops WAITING (ready, cancelled, expired), with the hold as it is then.
+	public CompletableFuture<Hold> whenSettled(Integer holdId) {
+		CompletableFuture<Hold> settled = waiters.computeIfAbsent(holdId, id -> new CompletableFuture<>());
+		// registered before the read, so a change committed in between is not missed
+		Hold hold = holdRepo.findById(holdId).orElse(null);
+		if (hold == null || hold.getStatus() != HoldStatus.WAITING) {
+			waiters.remove(holdId, settled);
+			settled.complete(hold);
+		}
+		return settled;
+	}
+
+	public Map<String, Object> describe(Hold hold) {
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("holdId", hold.getHoldId());
+		out.put("bookId", hold.getBookId());
+		out.put("userId", hold.getUserId());
+		out.put("status", hold.getStatus().name());
+		int position = position(hold);
+		if (position > 0) out.put("position", position);
+		if (hold.getBookCopyId() != null) out.put("bookCopyId", hold.getBookCopyId());
+		if (hold.getExpiresAt() != null) out.put("expiresAt", hold.getExpiresAt().toString());
+		return out;
+	}
+
+	private boolean close(Hold hold, HoldStatus to) {
+		HoldStatus from = hold.getStatus();
+		if (from != HoldStatus.WAITING && from != HoldStatus.READY) return false;
+		if (holdRepo.compareAndSetStatus(hold.getHoldId(), from, to) != 1) return false;
+		hold.setStatus(to);
+		changed(hold);
+		if (from == HoldStatus.READY && hold.getBookCopyId() != null) release(hold.getBookId(), hold.getBookCopyId());
+		return true;
+	}
+
+	private void release(Integer bookId, Integer copyId) {
+		if (assign(bookId, copyId).isPresent()) return;
+		if (copyRepo.compareAndSetStatus(copyId, CopyStatus.ON_HOLD, CopyStatus.AVAILABLE) == 1) {
+			availability.statusChanged(bookId, CopyStatus.ON_HOLD, CopyStatus.AVAILABLE);
+			barcodes.statusChanged(copyId, CopyStatus.AVAILABLE);
+		}
+	}
+
+	// Sets shelved copies aside for waiting holds, for copies that became AVAILABLE while the queue was empty.
+	private void promote(Integer bookId) {
+		try {
+			tx.executeWithoutResult(s -> {
+				while (hasWaiting(bookId)) {
+					// locked, so the AVAILABLE -> ON_HOLD flip below cannot lose to a borrower
+					List<Integer> copies = copyRepo.lockCopyIdsByBookAndStatus(bookId, CopyStatus.AVAILABLE, Limit.of(1));
+					if (copies.isEmpty() || assign(bookId, copies.get(0)).isEmpty()) return;
+					copyRepo.compareAndSetStatus(copies.get(0), CopyStatus.AVAILABLE, CopyStatus.ON_HOLD);
+					availability.statusChanged(bookId, CopyStatus.AVAILABLE, CopyStatus.ON_HOLD);
+					barcodes.statusChanged(copies.get(0), CopyStatus.ON_HOLD);
+				}
+			});
+		} catch (Exception ex) {
+			log.warn("Could not set an available copy of book {} aside for its holds", bookId, ex);
+		}
+	}
+
+	private void changed(Hold hold) {
+		Integer holdId = hold.getHoldId();
+		Integer bookId = hold.getBookId();
+		long key = key(hold.getUserId(), bookId);
+		HoldStatus status = hold.getStatus();
+		AfterCommit.run(() -> {
+			Queue<Integer> q = waiting.get(bookId);
+			if (q != null) q.remove(holdId);
+			if (status == HoldStatus.READY) readyFor.add(key);
+			else readyFor.remove(key);
+			CompletableFuture<Hold> settled = waiters.remove(holdId);
+			if (settled != null) settled.complete(hold);
+		});
+	}
+
+	private Queue<Integer> queue(Integer bookId) {
+		return waiting.computeIfAbsent(bookId, id -> new ConcurrentLinkedQueue<>());
+	}
+
+	private static long key(Integer userId, Integer bookId) {
+		return ((long) userId << 32) | (bookId & 0xffffffffL);
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.catalog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Cursor (keyset) paging on the primary key: "WHERE id > :after ORDER BY id LIMIT :size"
+// stays an index range scan no matter how deep the client pages.
+@Component
+public class KeysetPagination {
+
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	private final int defaultSize;
+	private final int maxSize;
+
+	public KeysetPagination(@Value("${catalog.pagination.default-size:100}") int defaultSize,
+							@Value("${catalog.pagination.max-size:1000}") int maxSize) {
+		this.defaultSize = defaultSize;
+		this.maxSize = maxSize;
+	}
+
+	public Limit limit(Integer requestedSize) {
+		return Limit.of(size(requestedSize));
+	}
+
+	public int size(Integer requestedSize) {
+		if (requestedSize == null || requestedSize <= 0) return defaultSize;
+		return Math.min(requestedSize, maxSize);
+	}
+
+	// Body stays a plain JSON array (existing clients keep working); the cursor for the
+	// next page travels in a header and is omitted on the last page. The cursor is usually
+	// the last row's id, or a composite key for listings ordered on something else.
+	public <T> ResponseEntity<List<T>> page(List<T> rows, Limit limit, Function<T, ?> cursorOf) {
+		ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+		if (!rows.isEmpty() && rows.size() == limit.max()) {
+			ok.header(NEXT_CURSOR_HEADER, String.valueOf(cursorOf.apply(rows.get(rows.size() - 1))));
+		}
+		return ok.body(rows);
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.catalog.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes rows as newline-delimited JSON while they come off the JDBC cursor.
+// The persistence context is cleared every few hundred rows so heap stays flat for any table size.
+@Component
+public class NdjsonStreamer {
+
+	public static final String MEDIA_TYPE = "application/x-ndjson";
+
+	private static final int CLEAR_EVERY = 500;
+
+	private final ObjectWriter writer;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTx;
+
+	public NdjsonStreamer(ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager txManager) {
+		this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.entityManager = entityManager;
+		this.readOnlyTx = new TransactionTemplate(txManager);
+		this.readOnlyTx.setReadOnly(true);
+	}
+
+	// The body runs after the controller returns, so the cursor gets its own read-only transaction.
+	public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows) {
+		return out -> readOnlyTx.executeWithoutResult(status -> {
+			try (Stream<T> stream = rows.get()) {
+				write(stream.iterator(), out);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public <T> void write(Iterator<T> rows, OutputStream out) throws IOException {
+		try (JsonGenerator gen = writer.createGenerator(out)) {
+			gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			gen.setRootValueSeparator(null);
+			int n = 0;
+			while (rows.hasNext()) {
+				writer.writeValue(gen, rows.next());
+				gen.writeRaw('\n');
+				if (++n % CLEAR_EVERY == 0) {
+					gen.flush();
+					entityManager.clear();
+				}
+			}
+			gen.flush();
+		}
+	}
+}
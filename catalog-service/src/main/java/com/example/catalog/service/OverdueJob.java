@@ -0,0 +1,179 @@
+package com.example.catalog.service;
+
+import com.example.catalog.entity.JobCheckpoint;
+import com.example.catalog.repository.BorrowRepository;
+import com.example.catalog.repository.BorrowRepository.OverdueBorrow;
+import com.example.catalog.repository.JobCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Nightly overdue pass: flips ACTIVE borrows past their due date to OVERDUE and writes the
+// running fine of every OVERDUE borrow. Work is done in keyset chunks, each in its
+// own short transaction that also advances a checkpoint row, so circulation requests only ever
+// wait on one chunk's row locks and a restarted instance picks up after the last committed chunk.
+@Component
+public class OverdueJob {
+
+	static final String BORROWS_JOB = "overdue-borrows";
+	static final String FINES_JOB = "overdue-fines";
+
+	private final Logger log = LoggerFactory.getLogger(OverdueJob.class);
+	private final BorrowRepository borrowRepo;
+	private final JobCheckpointRepository checkpoints;
+	private final TransactionTemplate tx;
+
+	private final int chunkSize;
+	private final long pauseMillis;
+	private final LocalTime windowEnd;
+	private final BigDecimal finePerDay;
+	private final BigDecimal maxFine;
+
+	public OverdueJob(BorrowRepository borrowRepo, JobCheckpointRepository checkpoints,
+					  PlatformTransactionManager txManager,
+					  @Value("${catalog.overdue.chunk-size:500}") int chunkSize,
+					  @Value("${catalog.overdue.pause:50ms}") Duration pause,
+					  @Value("${catalog.overdue.window-end:06:00}") String windowEnd,
+					  @Value("${catalog.overdue.fine-per-day:0.50}") BigDecimal finePerDay,
+					  @Value("${catalog.overdue.max-fine:20.00}") BigDecimal maxFine) {
+		this.borrowRepo = borrowRepo;
+		this.checkpoints = checkpoints;
+		this.tx = new TransactionTemplate(txManager);
+		this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.chunkSize = chunkSize;
+		this.pauseMillis = pause.toMillis();
+		this.windowEnd = LocalTime.parse(windowEnd);
+		this.finePerDay = finePerDay;
+		this.maxFine = maxFine;
+	}
+
+	// Fires repeatedly through the off-hours window; once today's pass is complete the later
+	// firings are no-ops, and an interrupted pass is resumed by the next one.
+	@Scheduled(cron = "${catalog.overdue.cron:0 */15 1-5 * * *}")
+	public void scheduled() {
+		try {
+			run(LocalDate.now(), windowEnd);
+		} catch (Exception ex) {
+			log.error("Overdue job failed; it resumes from its checkpoint on the next run", ex);
+		}
+	}
+
+	// Returns the number of borrows marked overdue and fined in this call.
+	public Map<String, Integer> run(LocalDate today, LocalTime stopAt) {
+		int marked = markOverdueBorrows(today, stopAt);
+		int fined = borrowsPassDone(today) ? applyFines(today, stopAt) : 0;
+		Map<String, Integer> out = new LinkedHashMap<>();
+		out.put("markedOverdue", marked);
+		out.put("fined", fined);
+		return out;
+	}
+
+	private int markOverdueBorrows(LocalDate today, LocalTime stopAt) {
+		int total = 0;
+		JobCheckpoint cp = checkpoint(BORROWS_JOB, today);
+		while (!cp.isCompleted() && withinWindow(stopAt)) {
+			int after = cp.getLastId();
+			int[] count = new int[1];
+			cp = tx.execute(status -> {
+				List<Integer> ids = borrowRepo.findOverdueIds(today, after, Limit.of(chunkSize));
+				if (!ids.isEmpty()) count[0] = borrowRepo.markOverdue(ids);
+				return advance(BORROWS_JOB, today, ids.isEmpty() ? after : ids.get(ids.size() - 1), ids.size() < chunkSize);
+			});
+			total += count[0];
+			pause(cp);
+		}
+		if (cp.isCompleted()) log.info("Overdue borrows pass for {} complete ({} marked this run)", today, total);
+		return total;
+	}
+
+	private boolean borrowsPassDone(LocalDate today) {
+		return checkpoints.findById(BORROWS_JOB)
+				.map(cp -> cp.isCompleted() && today.equals(cp.getRunDate()))
+				.orElse(false);
+	}
+
+	private int applyFines(LocalDate today, LocalTime stopAt) {
+		int total = 0;
+		JobCheckpoint cp = checkpoint(FINES_JOB, today);
+		while (!cp.isCompleted() && withinWindow(stopAt)) {
+			int after = cp.getLastId();
+			int[] count = new int[1];
+			cp = tx.execute(status -> {
+				List<OverdueBorrow> borrows = borrowRepo.findOverdue(after, Limit.of(chunkSize));
+				// the fine depends only on the due date, so one UPDATE per distinct due date in the chunk
+				Map<LocalDate, List<Integer>> byDueDate = new HashMap<>();
+				for (OverdueBorrow b : borrows) {
+					byDueDate.computeIfAbsent(b.getDueOn(), d -> new ArrayList<>()).add(b.getBorrowId());
+				}
+				byDueDate.forEach((due, ids) -> count[0] += borrowRepo.setFine(ids, fine(due, today)));
+				return advance(FINES_JOB, today, borrows.isEmpty() ? after : borrows.get(borrows.size() - 1).getBorrowId(), borrows.size() < chunkSize);
+			});
+			total += count[0];
+			pause(cp);
+		}
+		if (cp.isCompleted()) log.info("Overdue fines pass for {} complete ({} borrows fined this run)", today, total);
+		return total;
+	}
+
+	BigDecimal fine(LocalDate dueDate, LocalDate today) {
+		long days = ChronoUnit.DAYS.between(dueDate, today);
+		BigDecimal fine = finePerDay.multiply(BigDecimal.valueOf(Math.max(days, 0)));
+		return fine.min(maxFine);
+	}
+
+	// Today's checkpoint for the job; a checkpoint from an earlier day starts a fresh pass.
+	private JobCheckpoint checkpoint(String job, LocalDate today) {
+		return tx.execute(status -> {
+			JobCheckpoint cp = checkpoints.findById(job).orElseGet(() -> new JobCheckpoint(job, today));
+			if (!today.equals(cp.getRunDate())) {
+				cp.setRunDate(today);
+				cp.setLastId(0);
+				cp.setCompleted(false);
+			}
+			cp.setUpdatedAt(LocalDateTime.now());
+			return checkpoints.save(cp);
+		});
+	}
+
+	private JobCheckpoint advance(String job, LocalDate today, int lastId, boolean completed) {
+		JobCheckpoint cp = checkpoints.findById(job).orElseGet(() -> new JobCheckpoint(job, today));
+		cp.setRunDate(today);
+		cp.setLastId(lastId);
+		cp.setCompleted(completed);
+		cp.setUpdatedAt(LocalDateTime.now());
+		return checkpoints.save(cp);
+	}
+
+	private static boolean withinWindow(LocalTime stopAt) {
+		return stopAt == null || LocalTime.now().isBefore(stopAt);
+	}
+
+	// gives the row locks and connection back to circulation traffic between chunks
+	private void pause(JobCheckpoint cp) {
+		if (cp.isCompleted() || pauseMillis <= 0) return;
+		try {
+			Thread.sleep(pauseMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Overdue job interrupted", e);
+		}
+	}
+}
@@ -1,23 +1,118 @@
 package com.example.catalog.service;
 
+import com.example.catalog.config.UserServiceProperties;
 import com.example.catalog.dto.UserDto;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Looks users up in the .NET user-service through a bounded local cache.
+// Concurrent lookups of one id share a single remote call, 404s are remembered for a short
+// while, and entries past refreshAfter are reloaded in the background while the cached copy
+// keeps being served (and kept if the reload fails).
 @Service
 public class UserClientService {
 
 	private final WebClient userServiceWebClient;
+	private final Duration timeout;
+	private final AsyncLoadingCache<Integer, Optional<UserDto>> cache;
 
-	public UserClientService(WebClient userServiceWebClient) {
+	public UserClientService(WebClient userServiceWebClient, UserServiceProperties props,
+							 @Nullable MeterRegistry registry) {
 		this.userServiceWebClient = userServiceWebClient;
+		this.timeout = props.getTimeout();
+		UserServiceProperties.Cache c = props.getCache();
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(c.getMaxSize())
+				.expireAfter(new FoundOrMissingExpiry(c.getTtl(), c.getNegativeTtl()))
+				.refreshAfterWrite(c.getRefreshAfter())
+				.recordStats()
+				.buildAsync((id, executor) -> fetch(id));
+		// cache.gets{result=hit|miss}, cache.evictions, cache.size, ... tagged cache=user-client
+		if (registry != null) CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "user-client");
 	}
 
+	// null when the user-service has no such user
 	public UserDto getUserById(Integer userId) {
+		return getUserAsync(userId).join().orElse(null);
+	}
+
+	public CompletableFuture<Optional<UserDto>> getUserAsync(Integer userId) {
+		return cache.get(userId);
+	}
+
+	// Non-blocking lookup; empty when the user does not exist
+	public Mono<UserDto> findUser(Integer userId) {
+		return Mono.fromFuture(() -> getUserAsync(userId)).flatMap(Mono::justOrEmpty);
+	}
+
+	public void evict(Integer userId) {
+		cache.synchronous().invalidate(userId);
+	}
+
+	public Map<String, Object> cacheStats() {
+		CacheStats s = cache.synchronous().stats();
+		Map<String, Object> out = new LinkedHashMap<>();
+		out.put("size", cache.synchronous().estimatedSize());
+		out.put("hits", s.hitCount());
+		out.put("misses", s.missCount());
+		out.put("hitRate", s.hitRate());
+		out.put("loads", s.loadCount());
+		out.put("loadFailures", s.loadFailureCount());
+		out.put("evictions", s.evictionCount());
+		out.put("averageLoadMillis", s.averageLoadPenalty() / 1_000_000.0);
+		return out;
+	}
+
+	private CompletableFuture<Optional<UserDto>> fetch(Integer userId) {
 		return userServiceWebClient.get()
 				.uri("/api/users/{id}", userId)
 				.retrieve()
 				.bodyToMono(UserDto.class)
-				.block(); // sync for simplicity
+				.map(Optional::of)
+				.onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty()))
+				.defaultIfEmpty(Optional.empty())
+				.timeout(timeout)
+				.toFuture();
+	}
+
+	// found users and 404s expire on different clocks; reads don't extend either
+	private static final class FoundOrMissingExpiry implements Expiry<Integer, Optional<UserDto>> {
+		private final long foundNanos;
+		private final long missingNanos;
+
+		FoundOrMissingExpiry(Duration found, Duration missing) {
+			this.foundNanos = found.toNanos();
+			this.missingNanos = missing.toNanos();
+		}
+
+		@Override
+		public long expireAfterCreate(Integer key, Optional<UserDto> value, long currentTime) {
+			return value.isPresent() ? foundNanos : missingNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(Integer key, Optional<UserDto> value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(Integer key, Optional<UserDto> value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
 	}
 }
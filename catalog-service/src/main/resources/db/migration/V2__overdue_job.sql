@@ -0,0 +1,12 @@
+-- V1 is the hand-created library_db schema (baselined, see spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name   VARCHAR(64) NOT NULL PRIMARY KEY,
+    run_date   DATE        NOT NULL,
+    last_id    INT         NOT NULL DEFAULT 0,
+    completed  BOOLEAN     NOT NULL DEFAULT FALSE,
+    updated_at DATETIME    NOT NULL
+);
+
+-- keyset scans of open borrows in id order
+CREATE INDEX idx_borrows_status_id ON borrows (status, borrow_id);
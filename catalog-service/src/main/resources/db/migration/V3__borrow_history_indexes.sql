@@ -0,0 +1,9 @@
+-- borrow history pages: user_id = ? [and issued_on range] order by issued_on desc, borrow_id desc
+-- (InnoDB appends the primary key, so the index also covers the borrow_id tie-break)
+CREATE INDEX idx_borrows_user_issued ON borrows (user_id, issued_on);
+
+-- open borrow of a copy on return
+CREATE INDEX idx_borrows_copy_status ON borrows (book_copy_id, status);
+
+-- per-user summary counts and fine totals
+CREATE INDEX idx_borrows_user_status ON borrows (user_id, status);
@@ -0,0 +1,22 @@
+-- book_copies.status goes from free-form VARCHAR to a 1-byte ENUM (see CopyStatus),
+-- indexed with book_id so allocation is an index seek on (book_id, status).
+
+-- spellings the old column accepted
+UPDATE book_copies SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE book_copies SET status = 'ISSUED' WHERE status IN ('BORROWED', 'CHECKED_OUT', 'ON_LOAN');
+
+-- anything else is kept for review and the copy is taken out of circulation
+CREATE TABLE book_copy_status_legacy (
+    copy_id INT NOT NULL PRIMARY KEY,
+    status  VARCHAR(255)
+);
+INSERT INTO book_copy_status_legacy (copy_id, status)
+SELECT copy_id, status FROM book_copies
+WHERE status IS NULL OR status NOT IN ('AVAILABLE', 'ISSUED', 'LOST', 'DAMAGED');
+UPDATE book_copies SET status = 'DAMAGED'
+WHERE status IS NULL OR status NOT IN ('AVAILABLE', 'ISSUED', 'LOST', 'DAMAGED');
+
+ALTER TABLE book_copies
+    MODIFY status ENUM('AVAILABLE', 'ISSUED', 'LOST', 'DAMAGED') NOT NULL DEFAULT 'AVAILABLE';
+
+CREATE INDEX idx_book_copies_book_status ON book_copies (book_id, status);
@@ -0,0 +1,13 @@
+-- Incremental exports pick up rows changed since the last run's watermark. The column is
+-- maintained by MySQL on every insert and update, including the JDBC and bulk JPQL writes
+-- that bypass Hibernate; existing rows start at the time of the migration.
+ALTER TABLE books
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+ALTER TABLE book_copies
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+ALTER TABLE borrows
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+CREATE INDEX idx_books_updated ON books (updated_at);
+CREATE INDEX idx_book_copies_updated ON book_copies (updated_at);
+CREATE INDEX idx_borrows_updated ON borrows (updated_at);
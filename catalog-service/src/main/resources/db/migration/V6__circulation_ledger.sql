@@ -0,0 +1,39 @@
+-- Borrow and Loan become one circulation ledger: borrows takes over the loan-only columns
+-- (issued_by, fine_amount) and every loan row is merged into it. Fines, history and the
+-- overdue pass then read and write borrows alone.
+ALTER TABLE borrows
+    ADD COLUMN issued_by INT NULL,
+    ADD COLUMN fine_amount DECIMAL(10, 2) NULL;
+
+-- a loan recorded next to its borrow (same copy, member and issue date) only adds its columns
+UPDATE borrows b
+JOIN loans l ON l.copy_id = b.book_copy_id AND l.member_id = b.user_id AND l.issue_date = b.issued_on
+SET b.issued_by = l.issued_by, b.fine_amount = l.fine_amount;
+
+-- every other loan becomes a borrow of its own; missing dates fall back to the 14-day default
+INSERT INTO borrows (user_id, book_copy_id, book_id, issued_on, due_on, returned_on, status, notes, issued_by, fine_amount)
+SELECT l.member_id, l.copy_id, c.book_id,
+       COALESCE(l.issue_date, l.due_date - INTERVAL 14 DAY, CURRENT_DATE),
+       COALESCE(l.due_date, l.issue_date + INTERVAL 14 DAY, CURRENT_DATE + INTERVAL 14 DAY),
+       l.return_date,
+       CASE WHEN l.return_date IS NOT NULL THEN 'RETURNED'
+            WHEN l.due_date < CURRENT_DATE THEN 'OVERDUE'
+            ELSE 'ACTIVE' END,
+       CONCAT('loan ', l.loan_id),
+       l.issued_by, l.fine_amount
+FROM loans l
+JOIN book_copies c ON c.copy_id = l.copy_id
+WHERE NOT EXISTS (SELECT 1 FROM borrows b
+                  WHERE b.book_copy_id = l.copy_id AND b.user_id = l.member_id AND b.issued_on = l.issue_date);
+
+-- the old table is kept for review (including loans of copies that no longer exist, which are
+-- not merged); readers of loans see the same rows as borrows through a view
+RENAME TABLE loans TO loans_pre_v6;
+CREATE VIEW loans AS
+SELECT borrow_id AS loan_id, book_copy_id AS copy_id, user_id AS member_id, issued_by,
+       issued_on AS issue_date, due_on AS due_date, returned_on AS return_date, fine_amount
+FROM borrows;
+
+-- due-date lookups (status = ? and due_on < ?); member queries use idx_borrows_user_status and
+-- idx_borrows_user_issued, copy queries idx_borrows_copy_status, the keyset passes idx_borrows_status_id
+CREATE INDEX idx_borrows_status_due ON borrows (status, due_on);
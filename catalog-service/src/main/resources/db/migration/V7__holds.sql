@@ -0,0 +1,22 @@
+-- Per-title hold queue. Patrons who find no copy wait here instead of retrying the borrow;
+-- returns hand the copy to the oldest WAITING hold and set it aside as ON_HOLD.
+CREATE TABLE holds (
+    hold_id      INT         NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    book_id      INT         NOT NULL,
+    user_id      INT         NOT NULL,
+    status       VARCHAR(16) NOT NULL,
+    book_copy_id INT         NULL,
+    placed_at    DATETIME    NOT NULL,
+    ready_at     DATETIME    NULL,
+    expires_at   DATETIME    NULL
+);
+
+-- queue of a title in arrival order: book_id = ? and status = 'WAITING' order by hold_id
+CREATE INDEX idx_holds_book_status ON holds (book_id, status, hold_id);
+-- a patron's open holds, and the one-open-hold-per-title check
+CREATE INDEX idx_holds_user_status ON holds (user_id, status);
+-- pickup-window sweep: status = 'READY' and expires_at < ?
+CREATE INDEX idx_holds_status_expires ON holds (status, expires_at);
+
+ALTER TABLE book_copies
+    MODIFY status ENUM('AVAILABLE', 'ISSUED', 'LOST', 'DAMAGED', 'ON_HOLD') NOT NULL DEFAULT 'AVAILABLE';
@@ -0,0 +1,6 @@
+-- Replica lag probe (ReplicaLagMonitor): the primary rewrites the single row every check, in
+-- epoch milliseconds, and each replica's copy of it shows how far that replica trails.
+CREATE TABLE replication_heartbeat (
+    id      INT    NOT NULL PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
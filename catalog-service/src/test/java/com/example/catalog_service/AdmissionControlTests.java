@@ -0,0 +1,157 @@
+package com.example.catalog_service;
+
+import com.example.catalog.config.AdmissionControlInterceptor;
+import com.example.catalog.config.AdmissionProperties;
+import com.example.catalog.config.PatronIdFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTests {
+
+	private static final String BORROW = "/api/catalog/borrow/book";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void patronsOverTheirRateGet429WithRetryAfter() throws Exception {
+		AdmissionProperties props = new AdmissionProperties();
+		props.setUserRate(0.5);
+		props.setUserBurst(2);
+		AdmissionControlInterceptor admission = new AdmissionControlInterceptor(props, registry);
+
+		assertTrue(admit(admission, "7").admitted);
+		assertTrue(admit(admission, "7").admitted);
+		Attempt third = admit(admission, "7");
+		assertFalse(third.admitted);
+		assertEquals(429, third.response.getStatus());
+		assertEquals("2", third.response.getHeader("Retry-After"));
+		// other patrons have their own buckets
+		assertTrue(admit(admission, "8").admitted);
+		assertEquals(1.0, registry.get("catalog.admission.rejected").tag("reason", "rate_limited").counter().count());
+	}
+
+	@Test
+	void patronsNamedByTheRequestGetTheirOwnBuckets() throws Exception {
+		AdmissionProperties props = new AdmissionProperties();
+		props.setUserRate(0.5);
+		props.setUserBurst(2);
+		AdmissionControlInterceptor admission = new AdmissionControlInterceptor(props, registry);
+
+		// two patrons at one kiosk, no sign-in: each is limited on its own
+		assertTrue(anonymous(admission, "10.0.0.1", "7").admitted);
+		assertTrue(anonymous(admission, "10.0.0.1", "7").admitted);
+		assertEquals(429, anonymous(admission, "10.0.0.1", "7").response.getStatus());
+		assertTrue(anonymous(admission, "10.0.0.1", "8").admitted);
+	}
+
+	@Test
+	void thePatronNamedInAJsonBodyHasABucketAndTheBodyStillReachesTheController() throws Exception {
+		AdmissionProperties props = new AdmissionProperties();
+		props.setUserRate(0.5);
+		props.setUserBurst(1);
+		AdmissionControlInterceptor admission = new AdmissionControlInterceptor(props, registry);
+		PatronIdFilter filter = new PatronIdFilter(new ObjectMapper());
+		String body = "{\"bookId\":3,\"userId\":7}";
+
+		List<Integer> statuses = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("POST", BORROW);
+			request.setContentType("application/json");
+			request.setContent(body.getBytes(StandardCharsets.UTF_8));
+			request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, BORROW);
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, (req, res) -> {
+				if (admission.preHandle((HttpServletRequest) req, response, null)) {
+					assertEquals(body, new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+				}
+			});
+			statuses.add(response.getStatus());
+		}
+		assertEquals(List.of(200, 429), statuses);
+	}
+
+	@Test
+	void everyRequestAlsoCountsAgainstItsAddress() throws Exception {
+		AdmissionProperties props = new AdmissionProperties();
+		props.setAddressRate(0.5);
+		props.setAddressBurst(3);
+		AdmissionControlInterceptor admission = new AdmissionControlInterceptor(props, registry);
+
+		// a fresh user id per request buys a fresh patron bucket, but not a fresh address one
+		for (int i = 0; i < 3; i++) assertTrue(anonymous(admission, "10.0.0.1", "user-" + i).admitted);
+		assertEquals(429, anonymous(admission, "10.0.0.1", "user-3").response.getStatus());
+		assertTrue(anonymous(admission, "10.0.0.2", "user-3").admitted);
+	}
+
+	@Test
+	void aSaturatedRouteShedsInsteadOfQueueing() throws Exception {
+		AdmissionProperties props = new AdmissionProperties();
+		props.setUserRate(0);
+		props.setBulkheads(Map.of(BORROW, 1));
+		props.setMaxQueueWait(Duration.ofMillis(100));
+		props.setShedThreshold(Duration.ofMillis(10));
+		props.setShedWindow(Duration.ofSeconds(5));
+		AdmissionControlInterceptor admission = new AdmissionControlInterceptor(props, registry);
+
+		Attempt running = admit(admission, "1");
+		assertTrue(running.admitted);
+		assertEquals(1.0, registry.get("catalog.admission.in.flight").gauge().value());
+
+		// waits out max-queue-wait, which marks the route saturated
+		Attempt queued = admit(admission, "2");
+		assertFalse(queued.admitted);
+		assertEquals(503, queued.response.getStatus());
+
+		// now turned away without waiting
+		long start = System.nanoTime();
+		Attempt shed = admit(admission, "3");
+		assertFalse(shed.admitted);
+		assertTrue(System.nanoTime() - start < Duration.ofMillis(50).toNanos());
+		assertEquals("5", shed.response.getHeader("Retry-After"));
+		assertEquals(1.0, registry.get("catalog.admission.rejected").tag("reason", "queue_timeout").counter().count());
+		assertEquals(1.0, registry.get("catalog.admission.rejected").tag("reason", "shed").counter().count());
+
+		// a request that can start at once still does
+		admission.afterCompletion(running.request, running.response, null, null);
+		assertEquals(0.0, registry.get("catalog.admission.in.flight").gauge().value());
+		assertTrue(admit(admission, "4").admitted);
+	}
+
+	private record Attempt(boolean admitted, MockHttpServletRequest request, MockHttpServletResponse response) {}
+
+	// as the authenticated user, from one shared address
+	private static Attempt admit(AdmissionControlInterceptor admission, String userId) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", BORROW);
+		request.setUserPrincipal(() -> userId);
+		return attempt(admission, request);
+	}
+
+	// no authenticated user; the patron is named in the path, as on the borrow history
+	private static Attempt anonymous(AdmissionControlInterceptor admission, String address, String userId) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", BORROW);
+		request.setRemoteAddr(address);
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", userId));
+		return attempt(admission, request);
+	}
+
+	private static Attempt attempt(AdmissionControlInterceptor admission, MockHttpServletRequest request) throws Exception {
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, BORROW);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		return new Attempt(admission.preHandle(request, response, null), request, response);
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.catalog_service;
+
+import com.example.catalog.repository.BookCopyRepository.CopyCounts;
+import com.example.catalog.service.AvailabilityCounters;
+import com.example.catalog.service.AvailabilityCounters.Counts;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.catalog.entity.CopyStatus.AVAILABLE;
+import static com.example.catalog.entity.CopyStatus.ISSUED;
+import static com.example.catalog.entity.CopyStatus.LOST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityCountersTests {
+
+	private final AvailabilityCounters counters = new AvailabilityCounters();
+
+	@Test
+	void deltasMoveTheBookAndTheCatalogTotals() {
+		counters.rebuild(List.of(row(1, 2, 1), row(2, 1, 1)));
+		List<Integer> changed = new ArrayList<>();
+		counters.onChange(changed::add);
+
+		counters.statusChanged(1, AVAILABLE, ISSUED);
+		counters.copyAdded(1, AVAILABLE);
+		counters.copyRemoved(2, AVAILABLE);
+		// a copy moved to another book leaves one and joins the other
+		counters.copyUpdated(1, ISSUED, 3, LOST);
+
+		assertEquals(new Counts(2, 1), counters.counts(1));
+		assertEquals(new Counts(0, 0), counters.counts(2));
+		assertEquals(new Counts(1, 0), counters.counts(3));
+		assertEquals(3, counters.totalCopies());
+		assertEquals(1, counters.availableCopies());
+		assertEquals(List.of(1, 1, 2, 1, 3), changed);
+		// counts never go below zero, whatever a stray delta says
+		counters.copyRemoved(2, AVAILABLE);
+		assertEquals(new Counts(0, 0), counters.counts(2));
+		assertEquals(3, counters.totalCopies());
+	}
+
+	@Test
+	void deltasCommittedWhileTheQueryRunsSurviveTheRebuild() {
+		counters.rebuild(List.of(row(1, 2, 2)));
+
+		counters.startRebuild();
+		// committed after the rebuild's query read its rows, so the rows below miss them
+		counters.statusChanged(1, AVAILABLE, ISSUED);
+		counters.copyAdded(2, AVAILABLE);
+		counters.rebuild(List.of(row(1, 2, 2), row(3, 4, 4)));
+
+		assertEquals(new Counts(2, 1), counters.counts(1));
+		assertEquals(new Counts(1, 1), counters.counts(2));
+		assertEquals(new Counts(4, 4), counters.counts(3));
+		assertEquals(7, counters.totalCopies());
+		assertEquals(6, counters.availableCopies());
+
+		// only deltas since startRebuild are replayed, and only once
+		counters.rebuild(List.of(row(1, 2, 2)));
+		assertEquals(new Counts(2, 2), counters.counts(1));
+		assertEquals(new Counts(0, 0), counters.counts(2));
+	}
+
+	@Test
+	void deltasCommittedWhileTheRebuildRunsAreApplied() throws Exception {
+		counters.rebuild(List.of(row(1, 3, 3)));
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<CopyCounts> rows = new AbstractList<>() {
+			@Override
+			public CopyCounts get(int index) {
+				if (index == 1) {
+					reading.countDown();
+					await(release);
+				}
+				return index == 0 ? row(1, 3, 3) : row(2, 1, 1);
+			}
+
+			@Override
+			public int size() {
+				return 2;
+			}
+		};
+
+		counters.startRebuild();
+		Thread rebuilder = new Thread(() -> counters.rebuild(rows));
+		rebuilder.start();
+		assertTrue(reading.await(5, TimeUnit.SECONDS));
+		// borrows commit while the rebuild is half way through its rows
+		counters.statusChanged(1, AVAILABLE, ISSUED);
+		counters.statusChanged(2, AVAILABLE, ISSUED);
+		assertEquals(new Counts(3, 2), counters.counts(1));
+		release.countDown();
+		rebuilder.join(5000);
+
+		assertEquals(new Counts(3, 2), counters.counts(1));
+		assertEquals(new Counts(1, 0), counters.counts(2));
+		assertEquals(4, counters.totalCopies());
+		assertEquals(2, counters.availableCopies());
+	}
+
+	@Test
+	void reconcileCorrectsAMismatchSeenOnTwoPassesInARow() {
+		counters.rebuild(List.of(row(1, 2, 2), row(2, 1, 1)));
+		List<Integer> changed = new ArrayList<>();
+		counters.onChange(changed::add);
+		// book 1 drifted: a copy went out without its delta; book 3's copy was added behind our back
+		List<CopyCounts> stored = List.of(row(1, 2, 1), row(2, 1, 1), row(3, 1, 1));
+
+		counters.startRebuild();
+		assertEquals(List.of(), counters.reconcile(stored));
+		assertEquals(new Counts(2, 2), counters.counts(1));
+
+		counters.startRebuild();
+		assertEquals(List.of(1, 3), counters.reconcile(stored).stream().sorted().toList());
+		assertEquals(new Counts(2, 1), counters.counts(1));
+		assertEquals(new Counts(1, 1), counters.counts(3));
+		assertEquals(4, counters.totalCopies());
+		assertEquals(3, counters.availableCopies());
+		assertEquals(List.of(1, 3), changed.stream().sorted().toList());
+	}
+
+	@Test
+	void reconcileLeavesAloneWhatADeltaIsStillOnItsWayTo() {
+		counters.rebuild(List.of(row(1, 2, 2)));
+		// the borrow has committed, so the query sees it, but its after-commit delta has not run yet
+		List<CopyCounts> stored = List.of(row(1, 2, 1));
+		counters.startRebuild();
+		assertEquals(List.of(), counters.reconcile(stored));
+		counters.statusChanged(1, AVAILABLE, ISSUED);
+
+		counters.startRebuild();
+		assertEquals(List.of(), counters.reconcile(stored));
+		assertEquals(new Counts(2, 1), counters.counts(1));
+
+		// a book moved while the query ran is skipped, whatever the rows say
+		counters.startRebuild();
+		counters.statusChanged(1, ISSUED, AVAILABLE);
+		assertEquals(List.of(), counters.reconcile(List.of(row(1, 2, 1))));
+		counters.startRebuild();
+		assertEquals(List.of(), counters.reconcile(List.of(row(1, 2, 1))));
+		assertEquals(new Counts(2, 2), counters.counts(1));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static CopyCounts row(int bookId, long total, long available) {
+		return new CopyCounts() {
+			@Override
+			public Integer getBookId() {
+				return bookId;
+			}
+
+			@Override
+			public Long getTotal() {
+				return total;
+			}
+
+			@Override
+			public Long getAvailable() {
+				return available;
+			}
+		};
+	}
+}
@@ -0,0 +1,231 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.service.AvailabilityBroadcaster;
+import com.example.catalog.service.AvailabilityCounters;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class AvailabilityStreamTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired AvailabilityBroadcaster broadcaster;
+
+	private int bookId;
+	private int otherBookId;
+
+	@BeforeEach
+	void seed() throws Exception {
+		bookId = book("Streamed");
+		otherBookId = book("Not watched");
+		copy(bookId);
+		copy(bookId);
+		copy(otherBookId);
+	}
+
+	@Test
+	void subscribersGetTheCurrentCountsThenEveryChange() throws Exception {
+		MvcResult stream = mvc.perform(get("/api/catalog/availability/stream").param("ids", String.valueOf(bookId)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MockHttpServletResponse events = stream.getResponse();
+		await(events, body -> body.contains(event(bookId, 2, 2)));
+
+		String borrow = mvc.perform(post("/api/catalog/borrow/book")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":5}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		await(events, body -> body.contains(event(bookId, 2, 1)));
+
+		int copyId = mapper.readTree(borrow).get("bookCopyId").asInt();
+		mvc.perform(post("/api/catalog/return")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isOk());
+		copy(bookId);
+		await(events, body -> body.indexOf(event(bookId, 3, 3)) > body.lastIndexOf(event(bookId, 2, 1)));
+
+		// changes to books nobody watches are not sent
+		mvc.perform(post("/api/catalog/borrow/book")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + otherBookId + ",\"userId\":5}"))
+				.andExpect(status().isOk());
+		assertFalse(received(events).contains(otherBookId + ":"));
+	}
+
+	@Test
+	void rejectsStreamsWithoutBooksOrWithTooMany() throws Exception {
+		int before = broadcaster.subscriberCount();
+		mvc.perform(get("/api/catalog/availability/stream")).andExpect(status().isBadRequest());
+
+		StringBuilder ids = new StringBuilder("1");
+		for (int i = 2; i <= broadcaster.maxBooks() + 1; i++) ids.append(',').append(i);
+		mvc.perform(get("/api/catalog/availability/stream").param("ids", ids.toString()))
+				.andExpect(status().isBadRequest());
+		assertEquals(before, broadcaster.subscriberCount());
+	}
+
+	@Test
+	void subscribersThatStopReadingAreDroppedWithoutStallingTheOthers() throws Exception {
+		AvailabilityCounters counters = new AvailabilityCounters();
+		counters.rebuild(List.of());
+		CountDownLatch clientsRead = new CountDownLatch(1);
+		StalledEmitter first = new StalledEmitter(clientsRead);
+		StalledEmitter second = new StalledEmitter(clientsRead);
+		RecordingEmitter reader = new RecordingEmitter();
+		Queue<SseEmitter> emitters = new ArrayDeque<>(List.of(first, second, reader));
+		// one sender thread: without the send timeout the first stalled client would hold it for good
+		AvailabilityBroadcaster broadcaster = new AvailabilityBroadcaster(counters, 10, 10,
+				Duration.ofMinutes(30), Duration.ofHours(1), 1, Duration.ofMillis(200)) {
+			@Override
+			protected SseEmitter newEmitter(long timeoutMillis) {
+				return emitters.remove();
+			}
+		};
+		try {
+			broadcaster.subscribe(Set.of(1));
+			broadcaster.subscribe(Set.of(1));
+			broadcaster.subscribe(Set.of(1));
+			counters.copyAdded(1, CopyStatus.AVAILABLE);
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!reader.events.contains(event(1, 1, 1))) {
+				assertTrue(System.currentTimeMillis() < deadline, "reader got only " + reader.events);
+				Thread.sleep(20);
+			}
+			assertEquals(1, broadcaster.subscriberCount());
+
+			// once the stalled writes give way, their streams are closed rather than resumed
+			clientsRead.countDown();
+			while (first.error == null || second.error == null) {
+				assertTrue(System.currentTimeMillis() < deadline, "stalled streams were not closed");
+				Thread.sleep(20);
+			}
+			counters.copyAdded(1, CopyStatus.ISSUED);
+			while (!reader.events.contains(event(1, 2, 1))) {
+				assertTrue(System.currentTimeMillis() < deadline, "reader got only " + reader.events);
+				Thread.sleep(20);
+			}
+			assertEquals(1, first.sends);
+			assertEquals(1, second.sends);
+		} finally {
+			clientsRead.countDown();
+		}
+	}
+
+	// a client that stopped reading: the write blocks until the connection gives way
+	private static final class StalledEmitter extends SseEmitter {
+		final CountDownLatch released;
+		volatile int sends;
+		volatile Throwable error;
+
+		StalledEmitter(CountDownLatch released) {
+			this.released = released;
+		}
+
+		@Override
+		public void send(SseEventBuilder event) throws IOException {
+			sends++;
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public synchronized void completeWithError(Throwable ex) {
+			error = ex;
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+		final List<String> events = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void send(SseEventBuilder event) {
+			for (DataWithMediaType part : event.build()) {
+				if (part.getData() instanceof Map<?, ?> data) {
+					events.add(AvailabilityStreamTests.event((Integer) data.get("bookId"), (Integer) data.get("totalCopies"),
+							(Integer) data.get("availableCopies")));
+				}
+			}
+		}
+	}
+
+	private static String event(int bookId, int total, int available) {
+		return bookId + ":" + total + "/" + available;
+	}
+
+	// the availability events received so far, one "bookId:total/available" per event, joined by spaces
+	private String received(MockHttpServletResponse response) throws Exception {
+		StringBuilder out = new StringBuilder();
+		// events are written from the sender pool; an event still being written has no blank line yet
+		String body = response.getContentAsString();
+		for (String line : body.substring(0, body.lastIndexOf("\n\n") + 1).split("\n")) {
+			if (!line.startsWith("data:")) continue;
+			JsonNode data = mapper.readTree(line.substring(5));
+			out.append(event(data.get("bookId").asInt(), data.get("totalCopies").asInt(), data.get("availableCopies").asInt())).append(' ');
+		}
+		return out.toString();
+	}
+
+	private void await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.test(received(response))) {
+			assertTrue(System.currentTimeMillis() < deadline, "no matching event in: " + received(response));
+			Thread.sleep(20);
+		}
+	}
+
+	private int book(String title) throws Exception {
+		String json = mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + title + "\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(json).get("id").asInt();
+	}
+
+	private void copy(int bookId) throws Exception {
+		mvc.perform(post("/api/catalog/copies")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk());
+	}
+}
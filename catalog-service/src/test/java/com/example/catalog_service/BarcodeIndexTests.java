@@ -0,0 +1,182 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.service.BarcodeIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class BarcodeIndexTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired BookCopyRepository copyRepo;
+	@Autowired BarcodeIndex barcodes;
+	@Autowired EntityManagerFactory emf;
+	@Autowired JdbcTemplate jdbc;
+
+	@Test
+	void scannersBorrowAndReturnByBarcode() throws Exception {
+		int bookId = mapper.readTree(mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Scanned\"}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+		int copyId = mapper.readTree(mvc.perform(post("/api/catalog/copies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"barcode\":\"SCAN-0001\",\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+		assertEquals(copyId, barcodes.copyId("SCAN-0001"));
+
+		mvc.perform(get("/api/catalog/copies/barcode/SCAN-0001"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(copyId));
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0001\",\"userId\":4}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCopyId").value(copyId));
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0001\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("returned"));
+		assertEquals(CopyStatus.AVAILABLE, copyRepo.findById(copyId).orElseThrow().getStatus());
+
+		// relabelled: the old barcode no longer resolves
+		mvc.perform(put("/api/catalog/copies/" + copyId).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"barcode\":\"SCAN-0002\",\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk());
+		assertEquals(0, barcodes.copyId("SCAN-0001"));
+		mvc.perform(get("/api/catalog/copies/barcode/SCAN-0001")).andExpect(status().isNotFound());
+		mvc.perform(get("/api/catalog/copies/barcode/SCAN-0002")).andExpect(jsonPath("$.id").value(copyId));
+
+		mvc.perform(delete("/api/catalog/copies/" + copyId)).andExpect(status().isOk());
+		assertEquals(0, barcodes.copyId("SCAN-0002"));
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0002\"}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void aScanIsResolvedWithoutReadingTheCopy() throws Exception {
+		int bookId = book("Scanned fast");
+		int copyId = copy(bookId, "SCAN-0100");
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		long loads = copyLoads(stats);
+
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0100\",\"userId\":4}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCopyId").value(copyId));
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0100\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("returned"));
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0100\",\"userId\":5}"))
+				.andExpect(status().isOk());
+		assertEquals(loads, copyLoads(stats));
+		assertEquals(CopyStatus.ISSUED, copyRepo.findById(copyId).orElseThrow().getStatus());
+	}
+
+	@Test
+	void theRowDecidesWhenTheIndexIsBehind() throws Exception {
+		int bookId = book("Moved behind the index's back");
+		int copyId = copy(bookId, "SCAN-0200");
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + ",\"userId\":6}"))
+				.andExpect(status().isOk());
+		// checked in by something the index does not hear about
+		jdbc.update("update borrows set status = 'RETURNED', returned_on = current_date where book_copy_id = ?", copyId);
+		jdbc.update("update book_copies set status = 'AVAILABLE' where copy_id = ?", copyId);
+
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0200\",\"userId\":7}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCopyId").value(copyId));
+		// the index has it ISSUED again; written off behind its back, the return that trusted the index
+		// is refused and the next scan gets the row's answer
+		jdbc.update("update borrows set status = 'RETURNED', returned_on = current_date where book_copy_id = ?", copyId);
+		jdbc.update("update book_copies set status = 'DAMAGED' where copy_id = ?", copyId);
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0200\"}"))
+				.andExpect(status().isConflict());
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"SCAN-0200\"}"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.error").value("Copy " + copyId + " is DAMAGED; return it to stock through inventory"));
+		assertEquals(CopyStatus.DAMAGED, copyRepo.findById(copyId).orElseThrow().getStatus());
+	}
+
+	@Test
+	void indexAgreesWithAMapThroughGrowthAndRemovals() {
+		BarcodeIndex index = new BarcodeIndex(null);
+		Map<String, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int id = 1; id <= 20_000; id++) {
+			String barcode = "LIB-" + random.nextInt(1_000_000_000);
+			if (expected.containsKey(barcode)) continue;
+			index.copyAdded(id, barcode, id % 100, CopyStatus.AVAILABLE);
+			expected.put(barcode, id);
+			if (id % 3 == 0) {
+				String gone = "LIB-" + random.nextInt(1_000_000_000);
+				Integer removed = expected.remove(gone);
+				if (removed != null) index.copyRemoved(removed, gone);
+			}
+			if (id % 5 == 0) {
+				index.copyRemoved(id, barcode);
+				expected.remove(barcode);
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		expected.forEach((barcode, id) -> assertEquals(id, index.copyId(barcode), barcode));
+		assertEquals(0, index.copyId("LIB-never-issued"));
+
+		// a scan reads the copy's book and status from the index alone
+		Map.Entry<String, Integer> some = expected.entrySet().iterator().next();
+		index.statusChanged(some.getValue(), CopyStatus.ISSUED);
+		BookCopy scanned = index.find(some.getKey()).orElseThrow();
+		assertEquals(some.getValue(), scanned.getId());
+		assertEquals(some.getValue() % 100, scanned.getBook().getId());
+		assertEquals(CopyStatus.ISSUED, scanned.getStatus());
+	}
+
+	private static long copyLoads(Statistics stats) {
+		return stats.getEntityStatistics(BookCopy.class.getName()).getLoadCount();
+	}
+
+	private int book(String title) throws Exception {
+		return mapper.readTree(mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + title + "\"}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+	}
+
+	private int copy(int bookId, String barcode) throws Exception {
+		return mapper.readTree(mvc.perform(post("/api/catalog/copies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"barcode\":\"" + barcode + "\",\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+	}
+}
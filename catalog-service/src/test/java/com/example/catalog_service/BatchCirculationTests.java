@@ -0,0 +1,140 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Borrow.BorrowStatus;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BorrowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class BatchCirculationTests {
+
+	private static final AtomicInteger nextBarcode = new AtomicInteger();
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired BookCopyRepository copyRepo;
+	@Autowired BorrowRepository borrowRepo;
+
+	private int bookId;
+	private int first;
+	private int second;
+	private String thirdBarcode;
+	private int third;
+
+	@BeforeEach
+	void seed() throws Exception {
+		bookId = mapper.readTree(mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Kiosk stack\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+		first = copy(null);
+		second = copy(null);
+		thirdBarcode = "KIOSK-" + nextBarcode.incrementAndGet();
+		third = copy(thirdBarcode);
+	}
+
+	@Test
+	void checkoutIssuesWhatIsFreeAndReportsTheRest() throws Exception {
+		mvc.perform(put("/api/catalog/copies/" + second).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"DAMAGED\"}"))
+				.andExpect(status().isOk());
+
+		JsonNode out = batch("/api/catalog/borrow/batch", "{\"userId\":41,\"bookCopyIds\":[" + first + "," + second
+				+ ",999999," + first + "],\"barcodes\":[\"" + thirdBarcode + "\"]}");
+		assertEquals(2, out.get("issued").asInt());
+		assertEquals(3, out.get("failed").asInt());
+		assertEquals(List.of("issued", "error", "error", "error", "issued"), statuses(out));
+		assertEquals("Not available", out.at("/results/1/error").asText());
+		assertEquals("Copy not found", out.at("/results/2/error").asText());
+		assertEquals("Duplicate scan", out.at("/results/3/error").asText());
+
+		assertEquals(CopyStatus.ISSUED, copyStatus(first));
+		assertEquals(CopyStatus.DAMAGED, copyStatus(second));
+		assertEquals(CopyStatus.ISSUED, copyStatus(third));
+		assertEquals(BorrowStatus.ACTIVE, borrowRepo.findById(out.at("/results/4/borrowId").asInt()).orElseThrow().getStatus());
+	}
+
+	@Test
+	void returnsOnlyCopiesOutOnABorrowThatCanComeBack() throws Exception {
+		batch("/api/catalog/borrow/batch", "{\"userId\":42,\"bookCopyIds\":[" + first + "," + second + "]}");
+		// the patron reports the second copy lost; the third was never borrowed
+		mvc.perform(put("/api/catalog/copies/" + second).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"LOST\"}"))
+				.andExpect(status().isOk());
+
+		JsonNode out = batch("/api/catalog/return/batch", "{\"bookCopyIds\":[" + first + "," + second + "," + third + "]}");
+		assertEquals(1, out.get("returned").asInt());
+		assertEquals(2, out.get("failed").asInt());
+		assertEquals(List.of("returned", "error", "error"), statuses(out));
+		assertEquals("Copy is LOST", out.at("/results/1/error").asText());
+		assertEquals("No open borrow", out.at("/results/2/error").asText());
+
+		assertEquals(CopyStatus.AVAILABLE, copyStatus(first));
+		assertEquals(CopyStatus.LOST, copyStatus(second));
+		assertEquals(CopyStatus.AVAILABLE, copyStatus(third));
+		// writing the copy off ended its borrow
+		assertTrue(borrowRepo.findFirstByBookCopyIdAndStatusInOrderByBorrowIdDesc(second, Borrow.OPEN_STATUSES).isEmpty());
+	}
+
+	@Test
+	void aReturnedCopyGoesToTheWaitingHold() throws Exception {
+		batch("/api/catalog/borrow/batch", "{\"userId\":43,\"bookCopyIds\":[" + first + "," + second + "," + third + "]}");
+		int holdId = mapper.readTree(mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":44,\"hold\":true}"))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString()).get("holdId").asInt();
+
+		JsonNode out = batch("/api/catalog/return/batch", "{\"barcodes\":[\"" + thirdBarcode + "\"]}");
+		assertEquals(holdId, out.at("/results/0/holdId").asInt());
+		assertEquals(CopyStatus.ON_HOLD, copyStatus(third));
+		mvc.perform(get("/api/catalog/holds/" + holdId))
+				.andExpect(jsonPath("$.status").value("READY"))
+				.andExpect(jsonPath("$.bookCopyId").value(third));
+	}
+
+	private JsonNode batch(String path, String body) throws Exception {
+		return mapper.readTree(mvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+	}
+
+	private static List<String> statuses(JsonNode out) {
+		return out.get("results").findValuesAsText("status");
+	}
+
+	private CopyStatus copyStatus(int copyId) {
+		return copyRepo.findById(copyId).orElseThrow().getStatus();
+	}
+
+	private int copy(String barcode) throws Exception {
+		String json = mvc.perform(post("/api/catalog/copies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"AVAILABLE\""
+								+ (barcode != null ? ",\"barcode\":\"" + barcode + "\"" : "") + "}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(json).get("id").asInt();
+	}
+}
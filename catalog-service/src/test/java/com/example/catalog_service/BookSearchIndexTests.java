@@ -0,0 +1,195 @@
+package com.example.catalog_service;
+
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.Publisher;
+import com.example.catalog.service.BookSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTests {
+
+	private final BookSearchIndex index = new BookSearchIndex();
+
+	@Test
+	void foldsCaseDiacriticsAndIsbnHyphens() {
+		index.put(book(1, "Café Society", "978-0-13-468599-1", "Émile", "Zola"));
+
+		assertEquals(List.of(1), index.search("cafe", 10));
+		assertEquals(List.of(1), index.search("CAFÉ", 10));
+		assertEquals(List.of(1), index.search("zola emile", 10));
+		assertEquals(List.of(1), index.search("9780134685991", 10));
+		assertEquals(List.of(1), index.search("978-0-13-468599-1", 10));
+		assertEquals(List.of(), index.search("  -- ", 10));
+	}
+
+	@Test
+	void everyTokenMustMatchExactlyOrAsAPrefix() {
+		index.put(book(1, "Distributed Systems", null, "Andrew", "Tanenbaum"));
+		index.put(book(2, "Distributed Algorithms", null, "Nancy", "Lynch"));
+
+		assertEquals(List.of(1, 2), index.search("dist", 10));
+		assertEquals(List.of(2), index.search("dist lyn", 10));
+		assertEquals(List.of(), index.search("dist knuth", 10));
+		// a single character only matches a whole term
+		assertEquals(List.of(), index.search("d", 10));
+		assertEquals(List.of(1), index.search("distributed", 1));
+	}
+
+	@Test
+	void titleAndExactMatchesRankAboveMinorFieldsAndPrefixes() {
+		Book shelved = book(1, "Pruning Roses", null, null, null);
+		shelved.setCategory(category("Garden"));
+		index.put(shelved);
+		index.put(book(2, "The Garden", null, null, null));
+		index.put(book(3, "Gardening Basics", null, null, null));
+
+		assertEquals(List.of(2, 3, 1), index.search("garden", 10));
+		assertEquals(List.of(3), index.search("gardening", 10));
+	}
+
+	@Test
+	void anUpdateReplacesTheOldTermsAndRemoveDropsTheBook() {
+		index.put(book(1, "First Draft", null, "Ann", "Writer"));
+		index.put(book(1, "Final Cut", null, "Ann", "Writer"));
+
+		assertEquals(List.of(), index.search("draft", 10));
+		assertEquals(List.of(1), index.search("final", 10));
+		assertEquals(List.of(1), index.search("writer", 10));
+		assertEquals(1, index.size());
+
+		index.remove(1);
+		assertEquals(List.of(), index.search("final", 10));
+		assertEquals(List.of(), index.search("writer", 10));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void aBatchIndexesLikeOnePutPerBook() {
+		BookSearchIndex oneByOne = new BookSearchIndex();
+		List<Book> first = new ArrayList<>();
+		List<Book> second = new ArrayList<>();
+		for (int id = 1; id <= 300; id++) {
+			first.add(book(id, "Volume " + id + (id % 3 == 0 ? " Garden" : " Harbour"), null, "Ann", "Writer" + id % 7));
+			// the second batch retitles every fifth book and adds new ones
+			if (id % 5 == 0) second.add(book(id, "Revised " + id, null, null, null));
+			second.add(book(id + 300, "Volume " + id + " Garden", null, "Bo", "Writer"));
+		}
+		// a book listed twice in one batch ends up as its last entry
+		second.add(book(10, "Revised Twice", null, null, null));
+		for (List<Book> batch : List.of(first, second)) {
+			batch.forEach(oneByOne::put);
+			index.putAll(batch);
+		}
+
+		assertEquals(oneByOne.size(), index.size());
+		for (String query : List.of("garden", "harbour", "volume 3", "writer", "writer3", "ann", "revised", "twice", "house")) {
+			assertEquals(oneByOne.search(query, 1000), index.search(query, 1000), query);
+		}
+		assertEquals(List.of(10), index.search("twice", 10));
+	}
+
+	@Test
+	void writesCommittedAfterTheSnapshotSurviveTheRebuild() {
+		index.startRebuild();
+		// what the rebuild's query saw; the writes below commit after it and reach the index first
+		List<Book> snapshot = List.of(book(1, "Old Title", null, null, null), book(2, "Doomed", null, null, null));
+		index.put(book(1, "New Title", null, null, null));
+		index.remove(2);
+		index.put(book(3, "Fresh Arrival", null, null, null));
+
+		index.rebuild(snapshot.iterator());
+
+		assertEquals(List.of(1), index.search("new", 10));
+		assertEquals(List.of(), index.search("old", 10));
+		assertEquals(List.of(), index.search("doomed", 10));
+		assertEquals(List.of(3), index.search("fresh", 10));
+		assertEquals(2, index.size());
+
+		// the replay is one-shot: later rebuilds start clean
+		index.rebuild(snapshot.iterator());
+		assertEquals(List.of(1), index.search("old", 10));
+	}
+
+	@Test
+	void aWriterBlockedByTheRebuildLandsAfterIt() throws Exception {
+		index.put(book(1, "Before Rebuild", null, null, null));
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Iterator<Book> slow = new Iterator<>() {
+			int n;
+
+			@Override
+			public boolean hasNext() {
+				return n < 2;
+			}
+
+			@Override
+			public Book next() {
+				if (n == 1) {
+					reading.countDown();
+					await(release);
+				}
+				n++;
+				return book(n, "Stored " + n, null, null, null);
+			}
+		};
+		Thread rebuilder = new Thread(() -> index.rebuild(slow));
+		rebuilder.start();
+		assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+		Thread writer = new Thread(() -> index.put(book(7, "Written Meanwhile", null, null, null)));
+		writer.start();
+		writer.join(200);
+		assertTrue(writer.isAlive(), "writer should wait for the rebuild");
+		// searches never take the lock and keep reading the old index
+		assertEquals(List.of(1), index.search("before", 10));
+
+		release.countDown();
+		rebuilder.join(5000);
+		writer.join(5000);
+		assertEquals(List.of(7), index.search("meanwhile", 10));
+		assertEquals(List.of(1, 2), index.search("stored", 10));
+		assertEquals(List.of(), index.search("before", 10));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Book book(int id, String title, String isbn, String first, String last) {
+		Book b = new Book();
+		b.setId(id);
+		b.setTitle(title);
+		b.setIsbn(isbn);
+		if (first != null || last != null) {
+			Author a = new Author();
+			a.setFirstName(first);
+			a.setLastName(last);
+			b.setAuthor(a);
+		}
+		Publisher p = new Publisher();
+		p.setName("House");
+		b.setPublisher(p);
+		return b;
+	}
+
+	private static Category category(String name) {
+		Category c = new Category();
+		c.setName(name);
+		return c;
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Borrow.BorrowStatus;
+import com.example.catalog.repository.BorrowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class BorrowHistoryTests {
+
+	private static final AtomicInteger nextUser = new AtomicInteger(700_000);
+	private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired BorrowRepository borrowRepo;
+
+	private int userId;
+	private final List<Integer> newestFirst = new ArrayList<>();
+
+	// 9 borrows on 5 days, so several share an issue date and the cursor has to break ties on id
+	@BeforeEach
+	void seed() {
+		userId = nextUser.incrementAndGet();
+		newestFirst.clear();
+		for (int i = 0; i < 9; i++) {
+			BorrowStatus status = i < 5 ? BorrowStatus.RETURNED : i < 7 ? BorrowStatus.OVERDUE : BorrowStatus.ACTIVE;
+			newestFirst.add(0, borrow(START.plusDays(i / 2), status));
+		}
+	}
+
+	@Test
+	void pagesThroughHistoryNewestFirst() throws Exception {
+		List<Integer> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			MvcResult res = mvc.perform(get("/api/catalog/borrows/user/" + userId)
+							.param("size", "4")
+							.param("before", cursor == null ? "" : cursor))
+					.andExpect(status().isOk())
+					.andReturn();
+			for (JsonNode b : mapper.readTree(res.getResponse().getContentAsString())) seen.add(b.get("borrowId").asInt());
+			cursor = res.getResponse().getHeader("X-Next-Cursor");
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(newestFirst, seen);
+		assertEquals(3, pages);
+	}
+
+	@Test
+	void filtersByStatusAndIssueDate() throws Exception {
+		mvc.perform(get("/api/catalog/borrows/user/" + userId).param("status", "active,overdue"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(4));
+
+		// days 1..2 hold borrows 2..5
+		mvc.perform(get("/api/catalog/borrows/user/" + userId)
+						.param("from", START.plusDays(1).toString())
+						.param("to", START.plusDays(2).toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(4))
+				.andExpect(jsonPath("$[0].borrowId").value(newestFirst.get(3)));
+
+		mvc.perform(get("/api/catalog/borrows/user/" + userId).param("status", "LOST"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/api/catalog/borrows/user/" + userId).param("before", "yesterday"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void summaryCountsOpenBorrowsAndFines() throws Exception {
+		// fines count whether or not the copy is back yet
+		fine(newestFirst.get(0), new BigDecimal("1.50"));
+		fine(newestFirst.get(8), new BigDecimal("2.25"));
+
+		mvc.perform(get("/api/catalog/borrows/user/" + userId + "/summary"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.activeCount").value(2))
+				.andExpect(jsonPath("$.overdueCount").value(2))
+				.andExpect(jsonPath("$.totalFines").value(3.75));
+
+		mvc.perform(get("/api/catalog/borrows/user/" + nextUser.incrementAndGet() + "/summary"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.activeCount").value(0))
+				.andExpect(jsonPath("$.totalFines").value(0));
+	}
+
+	@Test
+	void openBorrowLookupFindsOverdueBorrowOfCopy() {
+		int copyId = 900_000 + userId;
+		borrow(START, BorrowStatus.RETURNED, copyId);
+		Integer overdue = borrow(START.plusDays(20), BorrowStatus.OVERDUE, copyId);
+
+		assertEquals(overdue, borrowRepo.findFirstByBookCopyIdAndStatusInOrderByBorrowIdDesc(copyId, Borrow.OPEN_STATUSES)
+				.orElseThrow().getBorrowId());
+		assertNull(borrowRepo.findFirstByBookCopyIdAndStatusInOrderByBorrowIdDesc(copyId + 1, Borrow.OPEN_STATUSES)
+				.orElse(null));
+	}
+
+	private Integer borrow(LocalDate issuedOn, BorrowStatus status) {
+		return borrow(issuedOn, status, 1);
+	}
+
+	private Integer borrow(LocalDate issuedOn, BorrowStatus status, int copyId) {
+		Borrow b = new Borrow();
+		b.setUserId(userId);
+		b.setBookCopyId(copyId);
+		b.setBookId(1);
+		b.setIssuedOn(issuedOn);
+		b.setDueOn(issuedOn.plusDays(14));
+		b.setStatus(status);
+		return borrowRepo.save(b).getBorrowId();
+	}
+
+	private void fine(Integer borrowId, BigDecimal fine) {
+		Borrow b = borrowRepo.findById(borrowId).orElseThrow();
+		b.setFineAmount(fine);
+		borrowRepo.save(b);
+	}
+}
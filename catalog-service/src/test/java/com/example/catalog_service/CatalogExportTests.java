@@ -0,0 +1,155 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.config.BackgroundJobsConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class CatalogExportTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired JdbcTemplate jdbc;
+	@Value("${catalog.export.watermark-lag:5m}") Duration watermarkLag;
+
+	private int bookId;
+	private int copyId;
+
+	@BeforeEach
+	void seed() throws Exception {
+		bookId = mapper.readTree(mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Export, \\\"quoted\\\"\",\"isbn\":\"EXP-" + System.nanoTime() + "\"}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+		copyId = mapper.readTree(mvc.perform(post("/api/catalog/copies")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"status\":\"AVAILABLE\",\"book\":{\"id\":" + bookId + "}}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asInt();
+	}
+
+	@Test
+	void streamsBooksAsNdjsonAndCsv() throws Exception {
+		MockHttpServletResponse res = export(get("/api/catalog/export/books").param("afterId", String.valueOf(bookId - 1)));
+		List<JsonNode> rows = ndjson(res.getContentAsString());
+		assertEquals(1, rows.size());
+		assertEquals(bookId, rows.get(0).get("book_id").asInt());
+		assertEquals("Export, \"quoted\"", rows.get(0).get("title").asText());
+		assertTrue(rows.get(0).get("updated_at").isTextual());
+		assertTrue(res.getHeader("X-Export-Watermark") != null);
+
+		String csv = export(get("/api/catalog/export/books").param("format", "csv")
+				.param("afterId", String.valueOf(bookId - 1))).getContentAsString();
+		String[] lines = csv.split("\r\n");
+		assertTrue(lines[0].startsWith("book_id,title,isbn,author_id,"));
+		assertTrue(lines[1].startsWith(bookId + ",\"Export, \"\"quoted\"\"\","));
+	}
+
+	@Test
+	void compressesWhenTheClientAcceptsGzip() throws Exception {
+		MockHttpServletResponse res = export(get("/api/catalog/export/copies")
+				.param("afterId", String.valueOf(copyId - 1))
+				.header("Accept-Encoding", "gzip, deflate"));
+		assertEquals("gzip", res.getHeader("Content-Encoding"));
+		String body;
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(res.getContentAsByteArray()))) {
+			body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		List<JsonNode> rows = ndjson(body);
+		assertEquals(1, rows.size());
+		assertEquals("AVAILABLE", rows.get(0).get("status").asText());
+	}
+
+	@Test
+	void incrementalExportReturnsOnlyRowsChangedSinceTheWatermark() throws Exception {
+		String watermark = export(get("/api/catalog/export/copies").param("afterId", String.valueOf(copyId)))
+				.getHeader("X-Export-Watermark");
+		Thread.sleep(20);
+		mvc.perform(put("/api/catalog/copies/" + copyId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"status\":\"DAMAGED\",\"book\":{\"id\":" + bookId + "}}"))
+				.andExpect(status().isOk());
+
+		List<JsonNode> rows = ndjson(export(get("/api/catalog/export/copies").param("since", watermark)
+				.param("afterId", String.valueOf(copyId - 1))).getContentAsString());
+		assertEquals(1, rows.size());
+		assertEquals(copyId, rows.get(0).get("copy_id").asInt());
+		assertEquals("DAMAGED", rows.get(0).get("status").asText());
+	}
+
+	@Test
+	void aWriteCommittedAfterTheExportStartedIsInTheNextRun() throws Exception {
+		LocalDateTime started = LocalDateTime.now();
+		String watermark = export(get("/api/catalog/export/copies").param("afterId", String.valueOf(copyId)))
+				.getHeader("X-Export-Watermark");
+		assertFalse(LocalDateTime.parse(watermark).isAfter(started.minus(watermarkLag).plusSeconds(1)));
+
+		// stamped before the export read the clock, visible only once its transaction committed
+		jdbc.update("update book_copies set status = 'DAMAGED', updated_at = ? where copy_id = ?",
+				Timestamp.valueOf(started.minusSeconds(1)), copyId);
+
+		List<JsonNode> rows = ndjson(export(get("/api/catalog/export/copies").param("since", watermark)
+				.param("afterId", String.valueOf(copyId - 1))).getContentAsString());
+		assertEquals(1, rows.size());
+		assertEquals("DAMAGED", rows.get(0).get("status").asText());
+	}
+
+	@Test
+	void commandLineRunsLeaveTheBackgroundJobsOff() {
+		ApplicationContextRunner runner = new ApplicationContextRunner().withUserConfiguration(BackgroundJobsConfig.class);
+		runner.withPropertyValues("catalog.export.dir=/tmp/catalog-export")
+				.run(ctx -> assertFalse(ctx.containsBean("backgroundJobsConfig")));
+		runner.withPropertyValues("catalog.import.file=branch.csv")
+				.run(ctx -> assertFalse(ctx.containsBean("backgroundJobsConfig")));
+	}
+
+	@Test
+	void rejectsUnknownDatasetsFormatsAndWatermarks() throws Exception {
+		mvc.perform(get("/api/catalog/export/users")).andExpect(status().isBadRequest());
+		mvc.perform(get("/api/catalog/export/books").param("format", "parquet")).andExpect(status().isBadRequest());
+		mvc.perform(get("/api/catalog/export/books").param("since", "yesterday")).andExpect(status().isBadRequest());
+	}
+
+	private MockHttpServletResponse export(RequestBuilder request) throws Exception {
+		MvcResult started = mvc.perform(request).andExpect(status().isOk()).andReturn();
+		return mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn().getResponse();
+	}
+
+	private List<JsonNode> ndjson(String body) throws Exception {
+		List<JsonNode> rows = new ArrayList<>();
+		for (String line : body.split("\n")) if (!line.isBlank()) rows.add(mapper.readTree(line));
+		return rows;
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class CatalogImportTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired JdbcTemplate jdbc;
+
+	@Test
+	void importsCsvInChunksAndReportsBadRows() throws Exception {
+		String csv = """
+				isbn,title,author,publisher,category,publicationYear,shelfLocation,barcodes,copies,status
+				IMP-1,Imported One,Ada Importer,Bulk Press,Imported Cat,2001,A1,IMP-B1;IMP-B2,,
+				IMP-1,Imported One,Ada Importer,Bulk Press,Imported Cat,2001,A1,IMP-B3,,issued
+				IMP-2,"Imported, Two",ada   importer,bulk press,Imported Cat,later,A2,,1,
+				IMP-3,Imported Three,Ada Importer,Other Press,,1999,A3,IMP-B1,,
+				,Imported Four,Solo,,,,,,2,lost
+				IMP-5,,Nobody,,,,,,1,
+				IMP-6,Imported Six,Ada Importer,,,,,IMP-B6,,shelved
+				""";
+		JsonNode report = importCsv(csv, 2);
+
+		assertEquals(7, report.get("rows").asInt());
+		assertEquals(3, report.get("imported").asInt());
+		assertEquals(4, report.get("failed").asInt());
+		assertEquals(2, report.get("booksCreated").asInt());
+		assertEquals(1, report.get("booksMatched").asInt());
+		assertEquals(5, report.get("copiesCreated").asInt());
+		assertEquals(2, report.get("authorsCreated").asInt());
+		assertEquals(1, report.get("publishersCreated").asInt());
+		assertEquals(1, report.get("categoriesCreated").asInt());
+		assertEquals(3, report.get("errors").get(0).get("row").asInt());
+		assertEquals(4, report.get("errors").get(1).get("row").asInt());
+		assertTrue(report.get("errors").get(1).get("error").asText().contains("IMP-B1"));
+
+		Integer bookId = jdbc.queryForObject("select book_id from books where isbn = 'IMP-1'", Integer.class);
+		mvc.perform(get("/api/catalog/books/" + bookId + "/availability"))
+				.andExpect(jsonPath("$.totalCopies").value(3))
+				.andExpect(jsonPath("$.availableCopies").value(2));
+		mvc.perform(get("/api/catalog/books/" + bookId))
+				.andExpect(jsonPath("$.author.firstName").value("Ada"))
+				.andExpect(jsonPath("$.author.lastName").value("Importer"))
+				.andExpect(jsonPath("$.category.name").value("Imported Cat"));
+		mvc.perform(get("/api/catalog/books/search").param("q", "imported"))
+				.andExpect(jsonPath("$.length()").value(2));
+
+		// a second run reuses the book and the reference rows
+		report = importCsv("""
+				isbn,title,author,publisher,category,barcodes
+				IMP-1,Imported One,Ada Importer,Bulk Press,imported cat,IMP-B9
+				""", null);
+		assertEquals(1, report.get("booksMatched").asInt());
+		assertEquals(0, report.get("authorsCreated").asInt() + report.get("publishersCreated").asInt()
+				+ report.get("categoriesCreated").asInt());
+		assertEquals(4, jdbc.queryForObject("select count(*) from book_copies where book_id = ?", Integer.class, bookId));
+	}
+
+	@Test
+	void importsNdjsonAndStopsAtMalformedInput() throws Exception {
+		String ndjson = """
+				{"isbn":"NDJ-1","title":"Streamed","author":"Nd Json","barcodes":["NDJ-B1","NDJ-B2"]}
+				{"isbn":"NDJ-2","title":"Single barcode","barcodes":"NDJ-B3"}
+				{"isbn":"NDJ-3","title":{"nested":true}}
+				{"isbn":"NDJ-4","title":"After a bad row","copies":"1"}
+				{"isbn":"NDJ-5","title":
+				""";
+		JsonNode report = mapper.readTree(mvc.perform(post("/api/catalog/import")
+						.contentType("application/x-ndjson")
+						.content(ndjson))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		assertEquals(false, report.get("completed").asBoolean());
+		assertEquals(3, report.get("imported").asInt());
+		assertEquals(4, report.get("copiesCreated").asInt());
+		assertEquals(3, report.get("errors").get(0).get("row").asInt());
+	}
+
+	@Test
+	void rejectsUnsupportedBodiesAndBadParameters() throws Exception {
+		mvc.perform(post("/api/catalog/import").contentType("application/xml").content("<books/>"))
+				.andExpect(status().isUnsupportedMediaType());
+		mvc.perform(post("/api/catalog/import").param("commitSize", "0").contentType("text/csv").content("title\nx\n"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private JsonNode importCsv(String csv, Integer commitSize) throws Exception {
+		return mapper.readTree(mvc.perform(post("/api/catalog/import")
+						.param("commitSize", commitSize == null ? "" : commitSize.toString())
+						.contentType("text/csv")
+						.content(csv))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+	}
+}
@@ -1,9 +1,10 @@
 package com.example.catalog_service;
 
+import com.example.catalog.CatalogServiceApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(classes = CatalogServiceApplication.class)
 class CatalogServiceApplicationTests {
 
 	@Test
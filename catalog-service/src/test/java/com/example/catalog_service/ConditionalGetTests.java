@@ -0,0 +1,106 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired EntityManagerFactory emf;
+
+	private int bookId;
+
+	@BeforeEach
+	void seed() throws Exception {
+		MvcResult res = mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Tagged\"}"))
+				.andExpect(status().isOk())
+				.andReturn();
+		bookId = mapper.readTree(res.getResponse().getContentAsString()).get("id").asInt();
+	}
+
+	@Test
+	void unchangedBookIsNotModifiedWithoutTouchingTheDatabase() throws Exception {
+		String etag = etagOf("/api/catalog/books/" + bookId);
+		long before = stats().getPrepareStatementCount();
+		mvc.perform(get("/api/catalog/books/" + bookId).header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", etag))
+				.andExpect(header().string("Cache-Control", "max-age=30, must-revalidate"))
+				.andExpect(content().string(""));
+		assertEquals(before, stats().getPrepareStatementCount());
+
+		mvc.perform(put("/api/catalog/books/" + bookId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Retagged\"}"))
+				.andExpect(status().isOk());
+		mvc.perform(get("/api/catalog/books/" + bookId).header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", etagOf("/api/catalog/books/" + bookId)));
+		assertNotEquals(etag, etagOf("/api/catalog/books/" + bookId));
+	}
+
+	@Test
+	void listingTagFollowsTheCatalogVersion() throws Exception {
+		String etag = etagOf("/api/catalog/books");
+		mvc.perform(get("/api/catalog/books").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("Cache-Control", "no-cache"));
+
+		mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Another\"}"))
+				.andExpect(status().isOk());
+		mvc.perform(get("/api/catalog/books").header("If-None-Match", etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void availabilityTagFollowsTheCopyCounts() throws Exception {
+		String path = "/api/catalog/books/" + bookId + "/availability";
+		String empty = etagOf(path);
+		mvc.perform(get(path).header("If-None-Match", empty)).andExpect(status().isNotModified());
+
+		mvc.perform(post("/api/catalog/copies")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"barcode\":\"ETAG-" + bookId + "\",\"status\":\"AVAILABLE\",\"book\":{\"id\":" + bookId + "}}"))
+				.andExpect(status().isOk());
+		mvc.perform(get(path).header("If-None-Match", empty)).andExpect(status().isOk());
+		assertNotEquals(empty, etagOf(path));
+	}
+
+	private String etagOf(String path) throws Exception {
+		String etag = mvc.perform(get(path)).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private Statistics stats() {
+		return emf.unwrap(SessionFactory.class).getStatistics();
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.controller.BorrowController;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.repository.BookRepository;
+import com.example.catalog.repository.BorrowRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many threads race borrowByBook for one title: every copy must be issued exactly once.
+@SpringBootTest(classes = CatalogServiceApplication.class)
+class CopyAllocationStressTests {
+
+	private static final Logger log = LoggerFactory.getLogger(CopyAllocationStressTests.class);
+
+	private static final int COPIES = 50;
+	private static final int THREADS = 16;
+	private static final int REQUESTS = 400;
+
+	@Autowired BorrowController borrowController;
+	@Autowired BookRepository bookRepo;
+	@Autowired BookCopyRepository copyRepo;
+	@Autowired BorrowRepository borrowRepo;
+	@Autowired ObjectMapper mapper;
+
+	@Test
+	void concurrentBorrowByBookNeverDoubleIssues() throws Exception {
+		Book book = new Book();
+		book.setTitle("Stress Test Title");
+		book = bookRepo.save(book);
+		for (int i = 0; i < COPIES; i++) {
+			BookCopy copy = new BookCopy();
+			copy.setBook(book);
+			copy.setBarcode("STRESS-" + book.getId() + "-" + i);
+			copy.setStatus(CopyStatus.AVAILABLE);
+			copyRepo.save(copy);
+		}
+		Integer bookId = book.getId();
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; i++) {
+			int userId = 1000 + i;
+			results.add(pool.submit(() -> {
+				go.await();
+				return borrowController.borrowByBook(mapper.readTree("{\"bookId\":" + bookId + ",\"userId\":" + userId + "}"));
+			}));
+		}
+		long start = System.nanoTime();
+		go.countDown();
+
+		int issued = 0, noCopy = 0;
+		Set<Object> issuedCopies = new HashSet<>();
+		for (Future<ResponseEntity<?>> f : results) {
+			ResponseEntity<?> res = f.get();
+			if (res.getStatusCode().value() == 200) {
+				issued++;
+				issuedCopies.add(((Map<?, ?>) res.getBody()).get("bookCopyId"));
+			} else if (res.getStatusCode().value() == 409) {
+				noCopy++;
+			} else {
+				throw new AssertionError("unexpected response " + res.getStatusCode() + " " + res.getBody());
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+		log.debug("borrowByBook stress: {} requests on {} threads, {} issued, {} rejected, {} req/s",
+				REQUESTS, THREADS, issued, noCopy, Math.round(REQUESTS / seconds));
+
+		assertEquals(COPIES, issued);
+		assertEquals(REQUESTS - COPIES, noCopy);
+		assertEquals(COPIES, issuedCopies.size(), "a copy was handed out twice");
+
+		Map<Integer, Long> borrowsPerCopy = borrowRepo.findAll().stream()
+				.filter(b -> bookId.equals(b.getBookId()) && b.getStatus() == Borrow.BorrowStatus.ACTIVE)
+				.collect(Collectors.groupingBy(Borrow::getBookCopyId, Collectors.counting()));
+		assertEquals(COPIES, borrowsPerCopy.size());
+		assertTrue(borrowsPerCopy.values().stream().allMatch(n -> n == 1), "double-issued copy: " + borrowsPerCopy);
+		assertTrue(copyRepo.findByBook_Id(bookId).stream().allMatch(c -> c.getStatus() == CopyStatus.ISSUED));
+	}
+}
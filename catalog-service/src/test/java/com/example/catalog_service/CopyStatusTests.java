@@ -0,0 +1,50 @@
+package com.example.catalog_service;
+
+import com.example.catalog.entity.CopyStatus;
+import org.junit.jupiter.api.Test;
+
+import static com.example.catalog.entity.CopyStatus.AVAILABLE;
+import static com.example.catalog.entity.CopyStatus.DAMAGED;
+import static com.example.catalog.entity.CopyStatus.ISSUED;
+import static com.example.catalog.entity.CopyStatus.LOST;
+import static com.example.catalog.entity.CopyStatus.ON_HOLD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyStatusTests {
+
+	@Test
+	void circulationTransitions() {
+		assertTrue(AVAILABLE.canMoveTo(ISSUED));
+		assertTrue(ISSUED.canMoveTo(AVAILABLE));
+		assertTrue(ISSUED.canMoveTo(LOST));
+		assertTrue(ISSUED.canMoveTo(DAMAGED));
+		assertTrue(LOST.canMoveTo(AVAILABLE));
+		assertTrue(AVAILABLE.canMoveTo(AVAILABLE));
+
+		// a copy has to be back on the shelf before it can go out again
+		assertFalse(LOST.canMoveTo(ISSUED));
+		assertFalse(DAMAGED.canMoveTo(ISSUED));
+		assertFalse(LOST.canMoveTo(DAMAGED));
+	}
+
+	@Test
+	void onlyCopiesInCirculationAreCheckedIn() {
+		assertTrue(ISSUED.canCheckIn());
+		assertTrue(AVAILABLE.canCheckIn());
+		assertTrue(ON_HOLD.canCheckIn());
+		// found or repaired copies go back to stock through inventory, never onto the hold shelf
+		assertFalse(LOST.canCheckIn());
+		assertFalse(DAMAGED.canCheckIn());
+	}
+
+	@Test
+	void parsesNamesCaseInsensitively() {
+		assertEquals(AVAILABLE, CopyStatus.parse(" available "));
+		assertEquals(ISSUED, CopyStatus.parse("Issued"));
+		assertNull(CopyStatus.parse("borrowed"));
+		assertNull(CopyStatus.parse(null));
+	}
+}
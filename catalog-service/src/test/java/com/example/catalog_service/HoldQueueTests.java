@@ -0,0 +1,277 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.repository.BookCopyRepository;
+import com.example.catalog.service.AvailabilityCounters;
+import com.example.catalog.service.AvailabilityCounters.Counts;
+import com.example.catalog.service.HoldService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class HoldQueueTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired BookCopyRepository copyRepo;
+	@Autowired HoldService holds;
+	@Autowired AvailabilityCounters availability;
+
+	private int bookId;
+	private int copyId;
+
+	@BeforeEach
+	void seed() throws Exception {
+		bookId = book("Only one copy");
+		copyId = copy(bookId);
+	}
+
+	@Test
+	void returnedCopyGoesToTheOldestHoldAndWakesItsLongPoll() throws Exception {
+		borrow(1, status().isOk());
+		int first = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+		JsonNode second = mapper.readTree(borrow(3, status().isAccepted()));
+		assertEquals(2, second.get("position").asInt());
+
+		MvcResult poll = mvc.perform(get("/api/catalog/holds/" + first).param("wait", "10"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.holdId").value(first));
+		assertEquals(CopyStatus.ON_HOLD, copyRepo.findById(copyId).orElseThrow().getStatus());
+
+		mvc.perform(asyncDispatch(poll))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("READY"))
+				.andExpect(jsonPath("$.bookCopyId").value(copyId));
+
+		// the copy on the hold shelf is not for anyone else
+		mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":3}"))
+				.andExpect(status().isConflict());
+		JsonNode issued = mapper.readTree(borrow(2, status().isOk()));
+		assertEquals(copyId, issued.get("bookCopyId").asInt());
+		mvc.perform(get("/api/catalog/holds/" + first))
+				.andExpect(jsonPath("$.status").value("FULFILLED"));
+		mvc.perform(get("/api/catalog/holds/" + second.get("holdId").asInt()))
+				.andExpect(jsonPath("$.position").value(1));
+	}
+
+	@Test
+	void cancellingOrExpiringAReadyHoldPassesTheCopyOn() throws Exception {
+		borrow(1, status().isOk());
+		int first = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+		int second = mapper.readTree(borrow(3, status().isAccepted())).get("holdId").asInt();
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(delete("/api/catalog/holds/" + first))
+				.andExpect(jsonPath("$.status").value("CANCELLED"));
+		mvc.perform(get("/api/catalog/holds/" + second))
+				.andExpect(jsonPath("$.status").value("READY"))
+				.andExpect(jsonPath("$.bookCopyId").value(copyId));
+
+		// nobody left in the queue: the lapsed hold's copy goes back on the shelf
+		// (other tests' ready holds lapse too; they share the database)
+		assertTrue(holds.expire(LocalDateTime.now().plusDays(30)) >= 1);
+		mvc.perform(get("/api/catalog/holds/" + second))
+				.andExpect(jsonPath("$.status").value("EXPIRED"));
+		assertEquals(CopyStatus.AVAILABLE, copyRepo.findById(copyId).orElseThrow().getStatus());
+		borrow(4, status().isOk());
+	}
+
+	@Test
+	void aHoldOnATitleWithACopyFreeIsReadyAtOnce() throws Exception {
+		JsonNode hold = mapper.readTree(mvc.perform(post("/api/catalog/holds").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":9}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		int holdId = hold.get("holdId").asInt();
+
+		MvcResult poll = mvc.perform(get("/api/catalog/holds/" + holdId).param("wait", "10"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mvc.perform(asyncDispatch(poll))
+				.andExpect(jsonPath("$.status").value("READY"));
+		mvc.perform(get("/api/catalog/holds/user/9"))
+				.andExpect(jsonPath("$[0].holdId").value(holdId));
+		assertFalse(holds.hasWaiting(bookId));
+	}
+
+	@Test
+	void aLostCopyIsNotCheckedInAndNothingChanges() throws Exception {
+		borrow(1, status().isOk());
+		int holdId = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+		mvc.perform(put("/api/catalog/copies/" + copyId).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"LOST\"}"))
+				.andExpect(status().isOk());
+
+		// writing the copy off ends its borrow
+		mvc.perform(get("/api/catalog/borrows/user/1"))
+				.andExpect(jsonPath("$[0].status").value("RETURNED"));
+
+		// LOST can't go on the hold shelf: rejected before the hold is touched
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isConflict());
+		mvc.perform(get("/api/catalog/holds/" + holdId))
+				.andExpect(jsonPath("$.status").value("WAITING"));
+		assertEquals(CopyStatus.LOST, copyRepo.findById(copyId).orElseThrow().getStatus());
+		assertTrue(holds.hasWaiting(bookId));
+	}
+
+	@Test
+	void inventoryLeavesACopyOnTheHoldShelfToItsHold() throws Exception {
+		borrow(1, status().isOk());
+		int holdId = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isOk());
+
+		for (String to : List.of("AVAILABLE", "ISSUED", "LOST")) {
+			mvc.perform(put("/api/catalog/copies/" + copyId).contentType(MediaType.APPLICATION_JSON)
+							.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"" + to + "\"}"))
+					.andExpect(status().isConflict());
+		}
+		mvc.perform(delete("/api/catalog/copies/" + copyId)).andExpect(status().isConflict());
+
+		assertEquals(CopyStatus.ON_HOLD, copyRepo.findById(copyId).orElseThrow().getStatus());
+		mvc.perform(get("/api/catalog/holds/" + holdId))
+				.andExpect(jsonPath("$.status").value("READY"));
+		assertEquals(new Counts(1, 0), availability.counts(bookId));
+		borrow(2, status().isOk());
+	}
+
+	@Test
+	void twoReturnsOfOneBorrowCheckTheCopyInOnce() throws Exception {
+		int borrowId = mapper.readTree(borrow(1, status().isOk())).get("borrowId").asInt();
+		int first = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+		int second = mapper.readTree(borrow(3, status().isAccepted())).get("holdId").asInt();
+
+		// the desk scans the copy while the patron's self-service return of the same borrow goes through
+		CountDownLatch go = new CountDownLatch(1);
+		Callable<Integer> returnIt = () -> {
+			go.await();
+			return mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"borrowId\":" + borrowId + "}"))
+					.andReturn().getResponse().getStatus();
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Future<Integer> a = pool.submit(returnIt);
+			Future<Integer> b = pool.submit(returnIt);
+			go.countDown();
+			assertEquals(List.of(200, 409), List.of(a.get(), b.get()).stream().sorted().toList());
+		} finally {
+			pool.shutdown();
+		}
+
+		mvc.perform(get("/api/catalog/holds/" + first)).andExpect(jsonPath("$.status").value("READY"));
+		mvc.perform(get("/api/catalog/holds/" + second)).andExpect(jsonPath("$.status").value("WAITING"));
+		assertEquals(CopyStatus.ON_HOLD, copyRepo.findById(copyId).orElseThrow().getStatus());
+		assertEquals(new Counts(1, 0), availability.counts(bookId));
+		borrow(2, status().isOk());
+	}
+
+	@Test
+	void aReplayedReturnLeavesTheNextBorrowAlone() throws Exception {
+		int borrowId = mapper.readTree(borrow(1, status().isOk())).get("borrowId").asInt();
+		String returnIt = "{\"borrowId\":" + borrowId + "}";
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON).content(returnIt))
+				.andExpect(status().isOk());
+		borrow(2, status().isOk());
+
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON).content(returnIt))
+				.andExpect(status().isConflict());
+		assertEquals(CopyStatus.ISSUED, copyRepo.findById(copyId).orElseThrow().getStatus());
+		mvc.perform(get("/api/catalog/borrows/user/2"))
+				.andExpect(jsonPath("$[0].status").value("ACTIVE"));
+		assertEquals(new Counts(1, 0), availability.counts(bookId));
+	}
+
+	@Test
+	void waitingLongPollsLeaveThePoolToEveryoneElse() throws Exception {
+		borrow(1, status().isOk());
+		int holdId = mapper.readTree(borrow(2, status().isAccepted())).get("holdId").asInt();
+
+		// more waiting polls than the test pool has connections (20)
+		List<MvcResult> polls = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			polls.add(mvc.perform(get("/api/catalog/holds/" + holdId).param("wait", "30"))
+					.andExpect(request().asyncStarted())
+					.andReturn());
+		}
+		mvc.perform(get("/api/catalog/books/" + bookId))
+				.andExpect(status().isOk());
+		mvc.perform(get("/api/catalog/holds/" + holdId))
+				.andExpect(jsonPath("$.status").value("WAITING"));
+
+		mvc.perform(post("/api/catalog/return").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookCopyId\":" + copyId + "}"))
+				.andExpect(status().isOk());
+		for (MvcResult poll : polls) {
+			mvc.perform(asyncDispatch(poll)).andExpect(jsonPath("$.status").value("READY"));
+		}
+	}
+
+	private String borrow(int userId, ResultMatcher expected) throws Exception {
+		return mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":" + userId + ",\"hold\":true}"))
+				.andExpect(expected)
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private int book(String title) throws Exception {
+		String json = mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + title + "\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(json).get("id").asInt();
+	}
+
+	private int copy(int bookId) throws Exception {
+		String json = mvc.perform(post("/api/catalog/copies")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(json).get("id").asInt();
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.service.KeysetPagination;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Clients walk the whole catalog by following X-Next-Cursor, or take it in one NDJSON stream.
+// The books seeded here are the newest, so every walk that starts just before them ends with them.
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class KeysetPaginationTests {
+
+	private static final int BOOKS = 6;
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+
+	private final List<Integer> bookIds = new ArrayList<>();
+
+	@BeforeEach
+	void seed() throws Exception {
+		bookIds.clear();
+		for (int i = 0; i < BOOKS; i++) {
+			String json = mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"title\":\"Paged " + i + "\"}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			bookIds.add(mapper.readTree(json).get("id").asInt());
+		}
+	}
+
+	@Test
+	void followingTheCursorVisitsEveryBookOnceInIdOrder() throws Exception {
+		List<Integer> seen = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String cursor = String.valueOf(bookIds.get(0) - 1);
+		while (cursor != null) {
+			MockHttpServletResponse page = mvc.perform(get("/api/catalog/books").param("after", cursor).param("size", "3"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse();
+			JsonNode rows = mapper.readTree(page.getContentAsString());
+			for (JsonNode row : rows) seen.add(row.get("id").asInt());
+			pageSizes.add(rows.size());
+			cursor = page.getHeader(KeysetPagination.NEXT_CURSOR_HEADER);
+			if (cursor != null) assertEquals(seen.get(seen.size() - 1), Integer.valueOf(cursor));
+		}
+		assertEquals(bookIds, seen);
+		// a last page that comes out exactly full still carries a cursor; the empty page after it has none
+		assertEquals(List.of(3, 3, 0), pageSizes);
+	}
+
+	@Test
+	void aShortPageEndsTheWalk() throws Exception {
+		MockHttpServletResponse page = mvc.perform(get("/api/catalog/books")
+						.param("after", String.valueOf(bookIds.get(1))).param("size", "10"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		assertEquals(BOOKS - 2, mapper.readTree(page.getContentAsString()).size());
+		assertNull(page.getHeader(KeysetPagination.NEXT_CURSOR_HEADER));
+	}
+
+	@Test
+	void ndjsonStreamsEveryBookOnePerLine() throws Exception {
+		MvcResult started = mvc.perform(get("/api/catalog/books").accept("application/x-ndjson"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MockHttpServletResponse res = mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		assertTrue(res.getContentType().startsWith("application/x-ndjson"), res.getContentType());
+
+		List<Integer> ids = new ArrayList<>();
+		for (String line : res.getContentAsString().split("\n")) {
+			if (!line.isEmpty()) ids.add(mapper.readTree(line).get("id").asInt());
+		}
+		List<Integer> sorted = new ArrayList<>(ids);
+		sorted.sort(null);
+		assertEquals(sorted, ids);
+		assertEquals(bookIds, ids.subList(ids.size() - BOOKS, ids.size()));
+		assertNull(res.getHeader(KeysetPagination.NEXT_CURSOR_HEADER));
+	}
+}
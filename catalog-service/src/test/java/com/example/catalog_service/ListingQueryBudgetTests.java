@@ -0,0 +1,135 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.BookCopy;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.CopyStatus;
+import com.example.catalog.entity.Publisher;
+import com.example.catalog.service.BookSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Query budget per listing endpoint, counted across the whole request including JSON rendering.
+// Every seeded book has its own author, publisher and category, so a per-row lazy or eager
+// association load shows up as at least one extra statement per book and fails the budget.
+@SpringBootTest(classes = CatalogServiceApplication.class,
+		properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+				"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
+@AutoConfigureMockMvc
+class ListingQueryBudgetTests {
+
+	private static final int BOOKS = 12;
+	private static final String CATEGORY = "Budget Category";
+
+	@Autowired MockMvc mvc;
+	@Autowired EntityManager entityManager;
+	@Autowired EntityManagerFactory emf;
+	@Autowired PlatformTransactionManager txManager;
+	@Autowired BookSearchIndex searchIndex;
+
+	private final List<Integer> bookIds = new ArrayList<>();
+	private String categoryName;
+
+	@BeforeEach
+	void seed() {
+		bookIds.clear();
+		new TransactionTemplate(txManager).executeWithoutResult(status -> {
+			Category category = new Category();
+			category.setName(CATEGORY + " " + System.nanoTime());
+			entityManager.persist(category);
+			for (int i = 0; i < BOOKS; i++) {
+				Author author = new Author();
+				author.setFirstName("Budget");
+				author.setLastName("Author" + i);
+				entityManager.persist(author);
+				Publisher publisher = new Publisher();
+				publisher.setName("Budget Press " + i);
+				entityManager.persist(publisher);
+				// the category is shared by the listing under test; the rest are per book
+				Category own = new Category();
+				own.setName("Budget Own " + System.nanoTime() + " " + i);
+				entityManager.persist(own);
+
+				Book book = new Book();
+				book.setTitle("Budget Title " + i);
+				book.setAuthor(author);
+				book.setPublisher(publisher);
+				book.setCategory(i % 2 == 0 ? category : own);
+				entityManager.persist(book);
+				for (int c = 0; c < 2; c++) {
+					BookCopy copy = new BookCopy();
+					copy.setBook(book);
+					copy.setBarcode("BUDGET-" + System.nanoTime() + "-" + c);
+					copy.setStatus(CopyStatus.AVAILABLE);
+					entityManager.persist(copy);
+				}
+				searchIndex.put(book);
+				bookIds.add(book.getId());
+			}
+			categoryName = category.getName();
+		});
+	}
+
+	@Test
+	void listingEndpointsStayWithinTheirQueryBudget() throws Exception {
+		Integer first = bookIds.get(0);
+		Map<String, Long> budgets = new LinkedHashMap<>();
+		budgets.put("/api/catalog/books?after=" + (first - 1) + "&size=" + BOOKS, 1L);
+		budgets.put("/api/catalog/books/" + first, 1L);
+		budgets.put("/api/catalog/books/search?q=budget", 1L);
+		budgets.put("/api/catalog/books/category/" + categoryName, 1L);
+		budgets.put("/api/catalog/copies?after=0&size=" + (BOOKS * 2), 1L);
+		budgets.put("/api/catalog/copies/book/" + first, 1L);
+		budgets.put("/api/catalog/copies/status/available", 1L);
+
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		for (Map.Entry<String, Long> e : budgets.entrySet()) {
+			stats.clear();
+			mvc.perform(get(e.getKey()))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$").isNotEmpty());
+			long statements = stats.getPrepareStatementCount();
+			assertTrue(statements <= e.getValue(),
+					e.getKey() + " issued " + statements + " statements, budget " + e.getValue());
+		}
+	}
+
+	@Test
+	void ndjsonStreamsStayWithinTheirQueryBudget() throws Exception {
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		for (String url : List.of("/api/catalog/books", "/api/catalog/copies")) {
+			stats.clear();
+			MvcResult started = mvc.perform(get(url).accept("application/x-ndjson"))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+			long statements = stats.getPrepareStatementCount();
+			assertTrue(statements <= 1, url + " stream issued " + statements + " statements, budget 1");
+		}
+	}
+}
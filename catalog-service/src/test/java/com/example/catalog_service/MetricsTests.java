@@ -0,0 +1,105 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.config.CirculationOutcomeInterceptor;
+import com.example.catalog.config.SlowTraceHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class, properties = {
+		"management.endpoints.web.exposure.include=prometheus",
+		"management.metrics.distribution.percentiles-histogram.catalog=true",
+		"management.metrics.distribution.percentiles-histogram.http.server.requests=true",
+		"spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired MeterRegistry registry;
+
+	@Test
+	void countsBorrowOutcomesAndExposesThemForScraping() throws Exception {
+		int bookId = mapper.readTree(postJson("/api/catalog/books", "{\"title\":\"Metered\"}")).get("id").asInt();
+		postJson("/api/catalog/copies", "{\"status\":\"AVAILABLE\",\"book\":{\"id\":" + bookId + "}}");
+		double issued = outcomes("borrow", "issued");
+		double noCopy = outcomes("borrow", "no_copy");
+		double notFound = outcomes("borrow", "not_found");
+		double available = registry.get("catalog.copies.available").gauge().value();
+
+		postJson("/api/catalog/borrow/book", "{\"bookId\":" + bookId + ",\"userId\":1}");
+		mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"bookId\":" + bookId + ",\"userId\":1}")).andExpect(status().isConflict());
+		mvc.perform(post("/api/catalog/borrow").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"bookCopyId\":987654321,\"userId\":1}")).andExpect(status().isNotFound());
+
+		assertEquals(issued + 1, outcomes("borrow", "issued"));
+		assertEquals(noCopy + 1, outcomes("borrow", "no_copy"));
+		assertEquals(notFound + 1, outcomes("borrow", "not_found"));
+		assertEquals(available - 1, registry.get("catalog.copies.available").gauge().value());
+		assertTrue(registry.get("catalog.borrow.allocate").timer().count() >= 2);
+
+		String scrape = mvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		for (String meter : List.of("catalog_circulation_outcomes_total", "catalog_copies_available",
+				"catalog_borrow_allocate_seconds_bucket", "http_server_requests_seconds_bucket",
+				"hikaricp_connections_active", "hibernate_statements_total")) {
+			assertTrue(scrape.contains(meter), meter);
+		}
+	}
+
+	@Test
+	void slowRootObservationsAreReportedAsSpanTrees() {
+		List<String> reports = new ArrayList<>();
+		ObservationRegistry observations = ObservationRegistry.create();
+		observations.observationConfig().observationHandler(new SlowTraceHandler(Duration.ZERO) {
+			@Override
+			protected void report(String tree) {
+				reports.add(tree);
+			}
+		});
+
+		Observation.createNotStarted("request", observations).observe(() -> {
+			Observation.createNotStarted("allocate", observations).observe(() -> {});
+			Observation.createNotStarted("record", observations).observe(() -> {});
+		});
+
+		assertEquals(1, reports.size());
+		String[] lines = reports.get(0).split("\n");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].startsWith("request "));
+		assertTrue(lines[1].startsWith("  allocate "));
+		assertTrue(lines[2].startsWith("  record "));
+	}
+
+	private double outcomes(String operation, String outcome) {
+		var counter = registry.find(CirculationOutcomeInterceptor.METER)
+				.tag("operation", operation).tag("outcome", outcome).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private String postJson(String path, String json) throws Exception {
+		return mvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+}
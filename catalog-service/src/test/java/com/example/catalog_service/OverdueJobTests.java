@@ -0,0 +1,113 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.Borrow;
+import com.example.catalog.entity.Borrow.BorrowStatus;
+import com.example.catalog.entity.JobCheckpoint;
+import com.example.catalog.repository.BorrowRepository;
+import com.example.catalog.repository.JobCheckpointRepository;
+import com.example.catalog.service.OverdueJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Small chunks so a handful of rows already spans several chunk transactions and checkpoints.
+@SpringBootTest(classes = CatalogServiceApplication.class,
+		properties = {"catalog.overdue.chunk-size=2", "catalog.overdue.pause=0ms"})
+class OverdueJobTests {
+
+	private static final LocalDate TODAY = LocalDate.of(2030, 3, 1);
+
+	@Autowired OverdueJob job;
+	@Autowired BorrowRepository borrowRepo;
+	@Autowired JobCheckpointRepository checkpoints;
+
+	@BeforeEach
+	void clean() {
+		checkpoints.deleteAll();
+		borrowRepo.deleteAll();
+	}
+
+	@Test
+	void marksPastDueBorrowsAndFinesThem() {
+		List<Integer> overdue = new ArrayList<>();
+		for (int i = 0; i < 5; i++) overdue.add(borrow(TODAY.minusDays(1 + i), BorrowStatus.ACTIVE));
+		Integer longLate = borrow(TODAY.minusDays(100), BorrowStatus.OVERDUE);
+		Integer notDue = borrow(TODAY, BorrowStatus.ACTIVE);
+		Integer returned = borrow(TODAY.minusDays(10), BorrowStatus.RETURNED);
+
+		Map<String, Integer> result = job.run(TODAY, null);
+
+		assertEquals(5, result.get("markedOverdue"));
+		assertEquals(6, result.get("fined"));
+		for (Integer id : overdue) assertEquals(BorrowStatus.OVERDUE, status(id));
+		assertEquals(BorrowStatus.ACTIVE, status(notDue));
+		assertEquals(BorrowStatus.RETURNED, status(returned));
+
+		// three days late at 0.50 a day; capped at the maximum
+		assertEquals(0, new BigDecimal("1.50").compareTo(fine(overdue.get(2))));
+		assertEquals(0, new BigDecimal("20.00").compareTo(fine(longLate)));
+		assertNull(fine(notDue));
+		assertNull(fine(returned));
+
+		// a second firing the same day finds both passes complete
+		Map<String, Integer> again = job.run(TODAY, null);
+		assertEquals(0, again.get("markedOverdue"));
+		assertEquals(0, again.get("fined"));
+	}
+
+	@Test
+	void resumesAfterTheLastCommittedChunk() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) ids.add(borrow(TODAY.minusDays(2), BorrowStatus.ACTIVE));
+
+		// as left behind by an instance that stopped after its first chunk
+		JobCheckpoint cp = new JobCheckpoint("overdue-borrows", TODAY);
+		cp.setLastId(ids.get(1));
+		checkpoints.save(cp);
+
+		Map<String, Integer> result = job.run(TODAY, null);
+
+		assertEquals(3, result.get("markedOverdue"));
+		assertEquals(BorrowStatus.ACTIVE, status(ids.get(0)));
+		assertEquals(BorrowStatus.ACTIVE, status(ids.get(1)));
+		for (Integer id : ids.subList(2, 5)) assertEquals(BorrowStatus.OVERDUE, status(id));
+
+		JobCheckpoint done = checkpoints.findById("overdue-borrows").orElseThrow();
+		assertTrue(done.isCompleted());
+		assertEquals(ids.get(4), done.getLastId());
+
+		// a checkpoint from an earlier day starts over, picking up the rows skipped above
+		assertEquals(2, job.run(TODAY.plusDays(1), null).get("markedOverdue"));
+	}
+
+	private Integer borrow(LocalDate dueOn, BorrowStatus status) {
+		Borrow b = new Borrow();
+		b.setUserId(1);
+		b.setBookCopyId(1);
+		b.setBookId(1);
+		b.setIssuedOn(dueOn.minusDays(14));
+		b.setDueOn(dueOn);
+		b.setStatus(status);
+		return borrowRepo.save(b).getBorrowId();
+	}
+
+	private BorrowStatus status(Integer borrowId) {
+		return borrowRepo.findById(borrowId).orElseThrow().getStatus();
+	}
+
+	private BigDecimal fine(Integer borrowId) {
+		return borrowRepo.findById(borrowId).orElseThrow().getFineAmount();
+	}
+}
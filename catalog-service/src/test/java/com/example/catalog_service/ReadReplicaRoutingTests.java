@@ -0,0 +1,190 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.config.ReplicaLagMonitor;
+import com.example.catalog.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two embedded databases with nothing replicating between them: the "replica" gets the primary's
+// schema and a book of its own, so each read shows which database answered it.
+@SpringBootTest(classes = CatalogServiceApplication.class, properties = {
+		// the schema comes from the entities here, so the V8 heartbeat table is made as the database opens
+		"spring.datasource.url=jdbc:h2:mem:rr_primary;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;"
+				+ "INIT=create table if not exists replication_heartbeat (id int primary key, beat_at bigint not null)",
+		"catalog.datasource.replicas[0].url=" + ReadReplicaRoutingTests.REPLICA_URL,
+		"catalog.datasource.replicas[0].username=sa",
+		"catalog.datasource.lag-check-interval=0",
+		"catalog.datasource.max-lag=2s",
+		"catalog.datasource.stick-to-primary-for=1m"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:rr_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	private static final int REPLICA_BOOK = 9001;
+
+	@Autowired MockMvc mvc;
+	@Autowired ObjectMapper mapper;
+	@Autowired ReplicaLagMonitor monitor;
+	@Autowired HikariDataSource primaryDataSource;
+	@Autowired EntityManagerFactory emf;
+
+	private JdbcTemplate primary;
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void replicaWithABookOfItsOwn() {
+		primary = new JdbcTemplate(primaryDataSource);
+		replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+		Integer tables = replica.queryForObject(
+				"select count(*) from information_schema.tables where table_name = 'BOOK_COPIES'", Integer.class);
+		if (tables == 0) {
+			for (String ddl : primary.queryForList("script nodata", String.class)) {
+				if (!ddl.startsWith("CREATE USER")) replica.execute(ddl);
+			}
+			replica.update("insert into books (book_id, title) values (?, 'Only on the replica')", REPLICA_BOOK);
+			replica.update("insert into book_copies (book_id, barcode, status) values (?, 'REPLICA-1', 'AVAILABLE')", REPLICA_BOOK);
+		}
+		replicaBehindBy(0);
+	}
+
+	@Test
+	void readsGoToACaughtUpReplicaAndWritesToThePrimary() throws Exception {
+		copiesOfReplicaBook("30", 1);
+
+		// the write lands on the primary, which has no such book
+		mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + REPLICA_BOOK + ",\"userId\":11}"))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	void aLaggingReplicaGetsNoReads() throws Exception {
+		replicaBehindBy(10_000);
+		copiesOfReplicaBook("30", 0);
+
+		replicaBehindBy(0);
+		copiesOfReplicaBook("30", 1);
+	}
+
+	@Test
+	void patronsReadTheirOwnWritesFromThePrimary() throws Exception {
+		String book = mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Written to the primary\"}"))
+				.andReturn().getResponse().getContentAsString();
+		int bookId = mapper.readTree(book).get("id").asInt();
+		mvc.perform(post("/api/catalog/copies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.principal(patron("21"))
+						.content("{\"bookId\":" + bookId + ",\"userId\":21}"))
+				.andExpect(status().isOk());
+
+		// the borrower's history comes from the primary; the replica has never heard of it
+		mvc.perform(get("/api/catalog/borrows/user/21").principal(patron("21")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1));
+		copiesOfReplicaBook("21", 0);
+		// everyone else still reads the replica
+		copiesOfReplicaBook("22", 1);
+	}
+
+	@Test
+	void patronsNamedOnlyByIdOrByTheWriteCookieReadThePrimary() throws Exception {
+		String book = mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Borrowed at the kiosk\"}"))
+				.andReturn().getResponse().getContentAsString();
+		int bookId = mapper.readTree(book).get("id").asInt();
+		mvc.perform(post("/api/catalog/copies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"book\":{\"id\":" + bookId + "},\"status\":\"AVAILABLE\"}"))
+				.andExpect(status().isOk());
+
+		// no sign-in: the patron is named in the body, and the response carries the cookie
+		Cookie sticky = mvc.perform(post("/api/catalog/borrow/book").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookId\":" + bookId + ",\"userId\":23}"))
+				.andExpect(status().isOk())
+				.andExpect(cookie().exists("catalog-primary"))
+				.andReturn().getResponse().getCookie("catalog-primary");
+
+		mvc.perform(get("/api/catalog/borrows/user/23"))
+				.andExpect(jsonPath("$.length()").value(1));
+		// another anonymous client at the same address still reads the replica
+		mvc.perform(get("/api/catalog/copies/book/" + REPLICA_BOOK))
+				.andExpect(jsonPath("$.length()").value(1));
+		// the writer's browser, whatever it reads next
+		mvc.perform(get("/api/catalog/copies/book/" + REPLICA_BOOK).cookie(sticky))
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void replicaReadsGoOutUntaggedAndStayOutOfTheCaches() throws Exception {
+		// only the replica has this book: whatever answers with it came from the replica
+		mvc.perform(get("/api/catalog/books/" + REPLICA_BOOK).principal(patron("32")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Only on the replica"))
+				.andExpect(header().doesNotExist("ETag"));
+		mvc.perform(get("/api/catalog/books").param("after", String.valueOf(REPLICA_BOOK - 1)).principal(patron("32")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(REPLICA_BOOK))
+				.andExpect(header().doesNotExist("ETag"));
+		assertFalse(emf.unwrap(SessionFactory.class).getCache().containsEntity(Book.class, REPLICA_BOOK));
+
+		// a patron who just wrote reads the primary, and gets the version tag with it
+		String book = mvc.perform(post("/api/catalog/books").contentType(MediaType.APPLICATION_JSON)
+						.principal(patron("31"))
+						.content("{\"title\":\"Not replicated yet\"}"))
+				.andReturn().getResponse().getContentAsString();
+		int bookId = mapper.readTree(book).get("id").asInt();
+		mvc.perform(get("/api/catalog/books/" + bookId).principal(patron("31")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Not replicated yet"))
+				.andExpect(header().exists("ETag"));
+		mvc.perform(get("/api/catalog/books").param("after", String.valueOf(REPLICA_BOOK - 1)).principal(patron("31")))
+				.andExpect(jsonPath("$.length()").value(0))
+				.andExpect(header().exists("ETag"));
+	}
+
+	private void copiesOfReplicaBook(String userId, int expected) throws Exception {
+		mvc.perform(get("/api/catalog/copies/book/" + REPLICA_BOOK).principal(patron(userId)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(expected));
+	}
+
+	private static Principal patron(String userId) {
+		return () -> userId;
+	}
+
+	// "replicates" the primary's current heartbeat minus the lag, then lets the monitor look
+	private void replicaBehindBy(long lagMillis) {
+		Long beat = primary.queryForObject("select beat_at from replication_heartbeat where id = 1", Long.class);
+		if (replica.update("update replication_heartbeat set beat_at = ? where id = 1", beat - lagMillis) == 0) {
+			replica.update("insert into replication_heartbeat (id, beat_at) values (1, ?)", beat - lagMillis);
+		}
+		monitor.check();
+	}
+}
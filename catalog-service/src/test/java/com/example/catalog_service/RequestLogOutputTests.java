@@ -0,0 +1,50 @@
+package com.example.catalog_service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.example.catalog.CatalogServiceApplication;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The request line has to come out of logback-spring.xml as configured: through the disruptor
+// appender, written by its writer thread as JSON on stdout.
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class RequestLogOutputTests {
+
+	@Autowired MockMvc mvc;
+
+	@Test
+	void requestLinesReachStdoutThroughTheAsyncAppender(CapturedOutput output) throws Exception {
+		Logger root = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME);
+		LoggingEventAsyncDisruptorAppender async = assertInstanceOf(LoggingEventAsyncDisruptorAppender.class,
+				root.getAppender("ASYNC_JSON"));
+		assertTrue(async.isStarted());
+		assertNotNull(async.getAppender("JSON_STDOUT"), "the async appender has no writer attached");
+
+		mvc.perform(get("/api/catalog/books").param("size", "1")).andExpect(status().isOk());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!output.getOut().contains("\"route\":\"/api/catalog/books\"")) {
+			assertTrue(System.currentTimeMillis() < deadline, "no request line on stdout");
+			Thread.sleep(20);
+		}
+		String line = output.getOut().lines().filter(l -> l.contains("\"route\":\"/api/catalog/books\"")).findFirst().orElseThrow();
+		assertTrue(line.startsWith("{") && line.contains("\"message\":\"request\"") && line.contains("\"status\":200"), line);
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.catalog_service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.catalog.config.RequestLogInterceptor;
+import com.example.catalog.config.RequestLogProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLogTests {
+
+	private final Logger logger = (Logger) LoggerFactory.getLogger("catalog.requests");
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+	@BeforeEach
+	void attach() {
+		appender.start();
+		logger.addAppender(appender);
+	}
+
+	@AfterEach
+	void detach() {
+		logger.detachAppender(appender);
+	}
+
+	@Test
+	void sampledRoutesAreDroppedUnlessTheyFailOrRunSlow() throws Exception {
+		RequestLogProperties props = new RequestLogProperties();
+		props.setRoutes(Map.of("/api/catalog/books/{id}", 0.0));
+		props.setAlwaysLogSlowerThan(Duration.ofMillis(50));
+		RequestLogInterceptor interceptor = new RequestLogInterceptor(props);
+
+		for (int i = 0; i < 20; i++) handle(interceptor, "/api/catalog/books/{id}", 200, 0, null);
+		assertEquals(0, appender.list.size());
+
+		handle(interceptor, "/api/catalog/books/{id}", 503, 0, null);
+		handle(interceptor, "/api/catalog/books/{id}", 200, 0, new IllegalStateException());
+		handle(interceptor, "/api/catalog/books/{id}", 200, 80, null);
+		assertEquals(3, appender.list.size());
+
+		// other routes use the default rate (everything)
+		handle(interceptor, "/api/catalog/copies", 200, 0, null);
+		assertEquals(4, appender.list.size());
+
+		Map<String, Object> fields = appender.list.get(0).getKeyValuePairs().stream()
+				.collect(Collectors.toMap(kv -> kv.key, kv -> kv.value));
+		assertEquals("GET", fields.get("method"));
+		assertEquals("/api/catalog/books/{id}", fields.get("route"));
+		assertEquals(503, fields.get("status"));
+	}
+
+	@Test
+	void asyncDispatchKeepsTheOriginalStart() throws Exception {
+		RequestLogProperties props = new RequestLogProperties();
+		props.setSampleRate(0.0);
+		props.setAlwaysLogSlowerThan(Duration.ofMillis(50));
+		RequestLogInterceptor interceptor = new RequestLogInterceptor(props);
+
+		MockHttpServletRequest request = request("/api/catalog/export/{dataset}");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, null);
+		Thread.sleep(80);
+		// the dispatch back to the container after the async body is written
+		interceptor.preHandle(request, response, null);
+		interceptor.afterCompletion(request, response, null, null);
+
+		assertEquals(1, appender.list.size());
+		long durationMs = appender.list.get(0).getKeyValuePairs().stream()
+				.filter(kv -> kv.key.equals("durationMs")).map(kv -> (Long) kv.value).findFirst().orElseThrow();
+		assertTrue(durationMs >= 80, "took " + durationMs + " ms");
+	}
+
+	private static void handle(RequestLogInterceptor interceptor, String route, int status, long sleepMs, Exception ex) throws Exception {
+		MockHttpServletRequest request = request(route);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, null);
+		if (sleepMs > 0) Thread.sleep(sleepMs);
+		response.setStatus(status);
+		interceptor.afterCompletion(request, response, null, ex);
+	}
+
+	private static MockHttpServletRequest request(String route) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", route);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route);
+		return request;
+	}
+}
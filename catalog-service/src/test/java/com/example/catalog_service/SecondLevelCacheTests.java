@@ -0,0 +1,161 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.entity.Author;
+import com.example.catalog.entity.Book;
+import com.example.catalog.entity.Category;
+import com.example.catalog.entity.Publisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CatalogServiceApplication.class)
+@AutoConfigureMockMvc
+class SecondLevelCacheTests {
+
+	@Autowired MockMvc mvc;
+	@Autowired EntityManager entityManager;
+	@Autowired EntityManagerFactory emf;
+	@Autowired PlatformTransactionManager txManager;
+	@Autowired ObjectMapper mapper;
+
+	private Integer bookId;
+	private Integer authorId;
+	private String categoryName;
+
+	@BeforeEach
+	void seed() {
+		new TransactionTemplate(txManager).executeWithoutResult(s -> {
+			Author author = new Author();
+			author.setFirstName("Cached");
+			author.setLastName("Author");
+			entityManager.persist(author);
+			Publisher publisher = new Publisher();
+			publisher.setName("Cached Press");
+			entityManager.persist(publisher);
+			Category category = new Category();
+			category.setName("Cached " + System.nanoTime());
+			entityManager.persist(category);
+			Book book = new Book();
+			book.setTitle("Cached Title");
+			book.setAuthor(author);
+			book.setPublisher(publisher);
+			book.setCategory(category);
+			entityManager.persist(book);
+			bookId = book.getId();
+			authorId = author.getId();
+			categoryName = category.getName();
+		});
+		emf.unwrap(SessionFactory.class).getCache().evictAllRegions();
+	}
+
+	@Test
+	void repeatedReadsAreServedFromTheCache() throws Exception {
+		assertTrue(statements(get("/api/catalog/books/" + bookId)) <= 1);
+		assertEquals(0, statements(get("/api/catalog/books/" + bookId)));
+
+		assertTrue(statements(get("/api/catalog/books/category/" + categoryName)) <= 1);
+		assertEquals(0, statements(get("/api/catalog/books/category/" + categoryName)));
+
+		// the book and the reference rows loaded with it are also cached by id, for find() and lazy loads
+		long before = stats().getPrepareStatementCount();
+		new TransactionTemplate(txManager).executeWithoutResult(s -> {
+			entityManager.find(Book.class, bookId);
+			entityManager.find(Author.class, authorId);
+		});
+		assertEquals(before, stats().getPrepareStatementCount());
+
+		mvc.perform(get("/api/catalog/cache/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.hits").isNumber())
+				.andExpect(jsonPath("$.authors.hitRatio").isNumber());
+		assertTrue(stats().getDomainDataRegionStatistics("books").getHitCount() > 0);
+		assertTrue(stats().getQueryRegionStatistics("default-query-results-region").getHitCount() > 0);
+	}
+
+	@Test
+	void bookUpdatesAreVisibleToTheNextCachedRead() throws Exception {
+		mvc.perform(get("/api/catalog/books/" + bookId)).andExpect(jsonPath("$.title").value("Cached Title"));
+
+		mvc.perform(put("/api/catalog/books/" + bookId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Renamed Title\",\"author\":{\"id\":" + authorId + "}}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/api/catalog/books/" + bookId))
+				.andExpect(jsonPath("$.title").value("Renamed Title"))
+				.andExpect(jsonPath("$.author.lastName").value("Author"))
+				.andExpect(jsonPath("$.category").isEmpty());
+		assertEquals(0, statements(get("/api/catalog/books/" + bookId)));
+	}
+
+	@Test
+	void booksNamingReferencesByIdAreSearchableByTheirNames() throws Exception {
+		String tag = "ref" + System.nanoTime();
+		String json = mvc.perform(post("/api/catalog/books")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + tag + "\",\"author\":{\"id\":" + authorId + "}}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.author.lastName").value("Author"))
+				.andReturn().getResponse().getContentAsString();
+		int created = mapper.readTree(json).get("id").asInt();
+
+		mvc.perform(get("/api/catalog/books/search").param("q", tag + " cached author"))
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(created));
+
+		Integer categoryId = new TransactionTemplate(txManager).execute(s ->
+				entityManager.find(Book.class, bookId).getCategory().getId());
+		mvc.perform(put("/api/catalog/books/" + created)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"" + tag + "\",\"category\":{\"id\":" + categoryId + "}}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/api/catalog/books/search").param("q", tag + " " + categoryName))
+				.andExpect(jsonPath("$[0].id").value(created));
+		mvc.perform(get("/api/catalog/books/search").param("q", tag + " author"))
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void evictionForcesTheNextReadToTheDatabase() throws Exception {
+		statements(get("/api/catalog/books/" + bookId));
+		assertEquals(0, statements(get("/api/catalog/books/" + bookId)));
+
+		mvc.perform(post("/api/catalog/cache/evict").param("region", "nope")).andExpect(status().isBadRequest());
+		mvc.perform(post("/api/catalog/cache/evict")).andExpect(status().isOk());
+
+		assertTrue(statements(get("/api/catalog/books/" + bookId)) >= 1);
+	}
+
+	private long statements(RequestBuilder request) throws Exception {
+		Statistics stats = stats();
+		long before = stats.getPrepareStatementCount();
+		mvc.perform(request).andExpect(status().isOk());
+		return stats.getPrepareStatementCount() - before;
+	}
+
+	private Statistics stats() {
+		return emf.unwrap(SessionFactory.class).getStatistics();
+	}
+}
@@ -0,0 +1,111 @@
+package com.example.catalog_service;
+
+import com.example.catalog.config.UserServiceProperties;
+import com.example.catalog.dto.UserDto;
+import com.example.catalog.service.UserClientService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// UserClientService against a local stub of the user-service.
+class UserClientServiceTests {
+
+	private HttpServer stub;
+	private final AtomicInteger remoteCalls = new AtomicInteger();
+	private UserClientService client;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void startStub() throws Exception {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.setExecutor(Executors.newFixedThreadPool(8));
+		stub.createContext("/api/users/", exchange -> {
+			remoteCalls.incrementAndGet();
+			String id = exchange.getRequestURI().getPath().substring("/api/users/".length());
+			try { Thread.sleep(100); } catch (InterruptedException ignored) {}
+			if ("404".equals(id)) {
+				exchange.sendResponseHeaders(404, -1);
+			} else {
+				byte[] body = ("{\"userId\":" + id + ",\"username\":\"user" + id + "\",\"status\":\"ACTIVE\"}")
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		});
+		stub.start();
+
+		UserServiceProperties props = new UserServiceProperties();
+		props.setBaseUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+		props.getCache().setMaxSize(2);
+		props.getCache().setTtl(Duration.ofMinutes(5));
+		props.getCache().setNegativeTtl(Duration.ofMinutes(5));
+		client = new UserClientService(WebClient.builder().baseUrl(props.getBaseUrl()).build(), props, registry);
+	}
+
+	@AfterEach
+	void stopStub() {
+		stub.stop(0);
+	}
+
+	@Test
+	void concurrentLookupsOfOneUserShareOneRemoteCall() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(100);
+		CountDownLatch go = new CountDownLatch(1);
+		List<CompletableFuture<UserDto>> results = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			results.add(CompletableFuture.supplyAsync(() -> {
+				try { go.await(); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+				return client.getUserById(7);
+			}, pool));
+		}
+		go.countDown();
+		for (CompletableFuture<UserDto> r : results) {
+			assertEquals(7, r.get().getUserId());
+		}
+		pool.shutdown();
+
+		assertEquals(1, remoteCalls.get());
+		Map<String, Object> stats = client.cacheStats();
+		assertEquals(1L, stats.get("misses"));
+		assertEquals(99L, stats.get("hits"));
+		assertEquals(99.0, registry.get("cache.gets").tags("cache", "user-client", "result", "hit").functionCounter().count());
+		assertEquals(1.0, registry.get("cache.gets").tags("cache", "user-client", "result", "miss").functionCounter().count());
+	}
+
+	@Test
+	void notFoundIsCachedAsMissing() {
+		assertNull(client.getUserById(404));
+		assertNull(client.getUserById(404));
+		assertEquals(1, remoteCalls.get());
+	}
+
+	@Test
+	void sizeBoundEvictsEntries() {
+		// max-size is 2; the second pass re-fetches ids evicted by the first
+		for (int id = 1; id <= 10; id++) client.getUserById(id);
+		for (int id = 1; id <= 10; id++) client.getUserById(id);
+		assertTrue((Long) client.cacheStats().get("evictions") > 0);
+		assertTrue(remoteCalls.get() > 10);
+	}
+}
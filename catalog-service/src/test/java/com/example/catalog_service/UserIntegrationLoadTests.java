@@ -0,0 +1,119 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives /api/catalog/integration/user/{id} against a user-service stub that answers after
+// STUB_DELAY, with Tomcat capped at a handful of worker threads. Because the endpoint
+// returns a Mono, concurrent requests overlap instead of queueing behind the workers.
+@SpringBootTest(classes = CatalogServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"server.tomcat.threads.max=8", "server.tomcat.threads.min-spare=8"})
+class UserIntegrationLoadTests {
+
+	private static final Logger log = LoggerFactory.getLogger(UserIntegrationLoadTests.class);
+
+	private static final Duration STUB_DELAY = Duration.ofMillis(200);
+	private static final int TOMCAT_THREADS = 8;
+	private static final AtomicInteger nextUserId = new AtomicInteger(1);
+	private static final HttpServer stub = startStub();
+
+	@LocalServerPort
+	int port;
+
+	@DynamicPropertySource
+	static void userService(DynamicPropertyRegistry registry) {
+		registry.add("catalog.user-service.base-url", () -> "http://127.0.0.1:" + stub.getAddress().getPort());
+		registry.add("catalog.user-service.max-connections", () -> 500);
+		// a slow shared CI box must not turn queueing into timeouts; timeouts are not under test here
+		registry.add("catalog.user-service.timeout", () -> "10s");
+		registry.add("catalog.user-service.read-timeout", () -> "10s");
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.stop(0);
+	}
+
+	@Test
+	void concurrencyScalesPastTheServletThreadPool() {
+		// the load generator needs its own wide pool, or it becomes the bottleneck
+		ConnectionProvider pool = ConnectionProvider.builder("load-test").maxConnections(1000).build();
+		WebClient client = WebClient.builder()
+				.baseUrl("http://127.0.0.1:" + port)
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(pool)))
+				.build();
+		run(client, 8); // warm-up
+
+		for (int concurrency : List.of(8, 64, 256)) {
+			long start = System.nanoTime();
+			int ok = run(client, concurrency);
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			// a blocking endpoint would need concurrency / TOMCAT_THREADS rounds of STUB_DELAY
+			long blockingMillis = (long) Math.ceil(concurrency / (double) TOMCAT_THREADS) * STUB_DELAY.toMillis();
+			log.debug("user integration: {} concurrent lookups in {} ms (blocking model would need >= {} ms)",
+					concurrency, millis, blockingMillis);
+
+			assertEquals(concurrency, ok);
+			if (concurrency > TOMCAT_THREADS * 4) {
+				assertTrue(millis < blockingMillis, "requests were serialized behind the servlet threads");
+			}
+		}
+		pool.dispose();
+	}
+
+	// distinct ids per request so every lookup reaches the stub
+	private int run(WebClient client, int concurrency) {
+		return Flux.range(0, concurrency)
+				.flatMap(i -> client.get().uri("/api/catalog/integration/user/{id}", nextUserId.getAndIncrement())
+						.retrieve().toBodilessEntity(), concurrency)
+				.filter(r -> r.getStatusCode().is2xxSuccessful())
+				.count()
+				.block(Duration.ofSeconds(30))
+				.intValue();
+	}
+
+	private static HttpServer startStub() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+			server.setExecutor(Executors.newFixedThreadPool(512));
+			server.createContext("/api/users/", exchange -> {
+				String id = exchange.getRequestURI().getPath().substring("/api/users/".length());
+				try { Thread.sleep(STUB_DELAY.toMillis()); } catch (InterruptedException ignored) {}
+				byte[] body = ("{\"userId\":" + id + ",\"username\":\"user" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+				exchange.close();
+			});
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.catalog_service;
+
+import com.example.catalog.CatalogServiceApplication;
+import com.example.catalog.config.PinnedThreadMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// The virtual-threads profile on a real Tomcat. Virtual threads need JDK 21: on an older JDK the
+// profile still has to start and serve requests, on platform threads; the pin check only runs on 21+.
+@SpringBootTest(classes = CatalogServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.url=jdbc:h2:mem:virtual_threads;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@ActiveProfiles("virtual-threads")
+@Import(VirtualThreadModeTests.RecordRequestThreads.class)
+class VirtualThreadModeTests {
+
+	private static final boolean VIRTUAL_THREADS = Runtime.version().feature() >= 21;
+	private static final List<Thread> requestThreads = new CopyOnWriteArrayList<>();
+
+	@Autowired TestRestTemplate http;
+	@Autowired HikariDataSource dataSource;
+	@Autowired PinnedThreadMonitor pinned;
+
+	@TestConfiguration
+	static class RecordRequestThreads {
+		@Bean
+		Filter requestThreadRecorder() {
+			return (request, response, chain) -> {
+				requestThreads.add(Thread.currentThread());
+				chain.doFilter(request, response);
+			};
+		}
+	}
+
+	@Test
+	void theConnectionPoolIsTheConcurrencyBound() {
+		assertEquals(40, dataSource.getMaximumPoolSize());
+		assertEquals(3000, dataSource.getConnectionTimeout());
+	}
+
+	@Test
+	void requestsRunOnVirtualThreadsWhereTheJdkHasThem() throws Exception {
+		requestThreads.clear();
+		ResponseEntity<String> res = http.getForEntity("/api/catalog/books?size=1", String.class);
+
+		assertEquals(HttpStatus.OK, res.getStatusCode());
+		assertFalse(requestThreads.isEmpty());
+		for (Thread t : requestThreads) assertEquals(VIRTUAL_THREADS, isVirtual(t), t.toString());
+	}
+
+	@Test
+	void aVirtualThreadPinnedPastTheThresholdIsReported() throws Exception {
+		assumeTrue(VIRTUAL_THREADS, "virtual threads need JDK 21");
+		long before = pinned.pinnedCount();
+		Object lock = new Object();
+		// sleeping inside synchronized keeps the virtual thread on its carrier
+		Runnable pin = () -> {
+			synchronized (lock) {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		Thread t = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class).invoke(null, pin);
+		t.join();
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (pinned.pinnedCount() == before) {
+			assertTrue(System.currentTimeMillis() < deadline, "the pin was not reported");
+			Thread.sleep(50);
+		}
+	}
+
+	// Thread.isVirtual() only exists from JDK 21, and this module compiles for 17
+	private static boolean isVirtual(Thread t) throws Exception {
+		return VIRTUAL_THREADS && (Boolean) Thread.class.getMethod("isVirtual").invoke(t);
+	}
+}
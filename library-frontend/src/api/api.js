@@ -14,7 +14,7 @@ async function safeParse(res) {
 }
 
 export async function request(path, opts = {}) {
-  const { method = "GET", headers = {}, body, timeoutMs } = opts;
+  const { method = "GET", headers = {}, body, timeoutMs, onHeaders } = opts;
 
   const normalized = path.startsWith("/") ? path : `/${path}`;
   const url = `${API_ROOT}${normalized}`;
@@ -61,9 +61,13 @@ export async function request(path, opts = {}) {
     const e = new Error(msg);
     e.status = res.status;
     e.body = data;
+    // 429/503 from admission control: seconds to wait before trying again
+    const retryAfter = res.headers.get("Retry-After");
+    if (retryAfter) e.retryAfter = Number(retryAfter);
     throw e;
   }
 
+  if (onHeaders) onHeaders(res.headers);
   return data;
 }
 
@@ -107,8 +111,20 @@ export function getUsers() {
 }
 
 // BOOKS
-export function getBooks() {
-  return request("/catalog/books");
+// Every book. The catalog answers in keyset pages (at most catalog.pagination.max-size rows),
+// so this follows X-Next-Cursor until the last page, which has none.
+export async function getBooks() {
+  const books = [];
+  let after = 0;
+  while (after != null) {
+    let next = null;
+    const page = await request(`/catalog/books?after=${after}&size=1000`, {
+      onHeaders: (h) => { next = h.get("X-Next-Cursor"); }
+    });
+    if (Array.isArray(page)) books.push(...page);
+    after = next != null ? Number(next) : null;
+  }
+  return books;
 }
 
 export function getBookById(id) {
@@ -119,6 +135,22 @@ export function getBookAvailability(bookId) {
   return request(`/catalog/books/${bookId}/availability`);
 }
 
+/* Live availability (Server-Sent Events): calls onChange({ bookId, totalCopies, availableCopies })
+   with the current counts of each book, then on every change. The browser reconnects on its own.
+   Returns a function that closes the stream. */
+export function subscribeAvailability(bookIds, onChange) {
+  const ids = [].concat(bookIds).filter((id) => id != null).join(",");
+  const source = new EventSource(`${API_ROOT}/catalog/availability/stream?ids=${encodeURIComponent(ids)}`);
+  source.addEventListener("availability", (e) => {
+    try {
+      onChange(JSON.parse(e.data));
+    } catch {
+      // ignore a malformed event; the next one carries the full counts again
+    }
+  });
+  return () => source.close();
+}
+
 /* BORROWING (supports days) */
 export function borrow({ bookCopyId, bookId, userId, days }) {
   if (bookCopyId != null) {
@@ -159,8 +191,19 @@ export function returnCopy(bookCopyId, userId, borrowId) {
   });
 }
 
-export function getBorrowHistory(userId) {
-  return request(`/catalog/borrows/user/${userId}`);
+// newest first, one page (default 100 rows); filters: { status, from, to, before, size }
+export function getBorrowHistory(userId, filters = {}) {
+  const params = new URLSearchParams();
+  Object.entries(filters).forEach(([k, v]) => {
+    if (v !== undefined && v !== null && v !== "") params.set(k, v);
+  });
+  const qs = params.toString();
+  return request(`/catalog/borrows/user/${userId}${qs ? `?${qs}` : ""}`);
+}
+
+// { activeCount, overdueCount, totalFines }
+export function getBorrowSummary(userId) {
+  return request(`/catalog/borrows/user/${userId}/summary`);
 }
 
 // compatibility alias
@@ -201,6 +244,7 @@ export default {
   getBooks,
   getBookById,
   getBookAvailability,
+  subscribeAvailability,
 
   // borrowing
   borrow,
@@ -209,6 +253,7 @@ export default {
   borrowCopy,
   returnCopy,
   getBorrowHistory,
+  getBorrowSummary,
 
   // helpers
   get,
@@ -1,11 +1,15 @@
 const CATALOG_BASE_URL = "http://localhost:8081";
 
-export async function fetchBooks() {
-  const res = await fetch(`${CATALOG_BASE_URL}/api/catalog/books`);
+// Keyset-paginated: pass the previous page's nextCursor as `after` to get the next page.
+// nextCursor is null on the last page.
+export async function fetchBooks({ after = 0, size = 100 } = {}) {
+  const res = await fetch(`${CATALOG_BASE_URL}/api/catalog/books?after=${after}&size=${size}`);
   if (!res.ok) {
     throw new Error(`Failed to fetch books (status ${res.status})`);
   }
-  return res.json();
+  const books = await res.json();
+  const cursor = res.headers.get("X-Next-Cursor");
+  return { books, nextCursor: cursor != null ? Number(cursor) : null };
 }
 
 
@@ -1,7 +1,7 @@
 // src/components/AutoBorrowButton.jsx
 import React, { useEffect, useState, useRef } from "react";
 import { Modal, Button, Toast, ToastContainer, Spinner } from "react-bootstrap";
-import { getBookAvailability, borrowByBook, returnCopy } from "../api/api.js";
+import { getBookAvailability, subscribeAvailability, borrowByBook, returnCopy } from "../api/api.js";
 import { useAuth } from "../auth/AuthContext";
 
 /**
@@ -77,26 +77,15 @@ export default function AutoBorrowButton({ bookId, title, className }) {
       }
     }
     load();
-    return () => { mounted = false; if (undoTimerRef.current) clearTimeout(undoTimerRef.current); };
+    // later changes (ours and everyone else's) arrive on the availability stream
+    const unsubscribe = subscribeAvailability(bookId, (data) => {
+      if (!mounted || String(data.bookId) !== String(bookId)) return;
+      setCounts({ totalCopies: data.totalCopies, availableCopies: data.availableCopies });
+    });
+    return () => { mounted = false; unsubscribe(); if (undoTimerRef.current) clearTimeout(undoTimerRef.current); };
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [bookId]);
 
-  async function refresh() {
-    setLoading(true);
-    try {
-      const data = await getBookAvailability(bookId);
-      setCounts({
-        totalCopies: data?.totalCopies ?? 0,
-        availableCopies: data?.availableCopies ?? 0
-      });
-      setMsg(null);
-    } catch (err) {
-      setMsg({ type: "error", text: err.message || "Failed to refresh" });
-    } finally {
-      setLoading(false);
-    }
-  }
-
   async function confirmAndBorrow() {
     // Validate numeric userId
     if (!resolvedUserId && resolvedUserId !== 0) {
@@ -126,7 +115,6 @@ export default function AutoBorrowButton({ bookId, title, className }) {
       }, 10000);
 
       setMsg({ type: "success", text: `Borrowed copy ${resp.bookCopyId}` });
-      await refresh();
     } catch (err) {
       if (err && err.status === 409) {
         setMsg({ type: "error", text: err.body?.error || "No copy available" });
@@ -154,7 +142,6 @@ export default function AutoBorrowButton({ bookId, title, className }) {
         undoTimerRef.current = null;
       }
       setLastBorrowedCopyId(null);
-      await refresh();
     } catch (err) {
       setMsg({ type: "error", text: err.message || "Undo failed" });
     } finally {
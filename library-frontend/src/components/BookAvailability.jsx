@@ -2,6 +2,7 @@
 import React, { useEffect, useState } from "react";
 import {
   getBookAvailability,
+  subscribeAvailability,
   borrowByBook,
   borrow as borrowSpecificCopy
 } from "../api";
@@ -39,6 +40,12 @@ export default function BookAvailability({ bookId, userId: userIdProp }) {
 
   useEffect(() => {
     refresh();
+    // counts are pushed on every borrow/return instead of being polled
+    return subscribeAvailability(bookId, (data) => {
+      if (String(data.bookId) !== String(bookId)) return;
+      setCounts({ totalCopies: data.totalCopies, availableCopies: data.availableCopies });
+      setLoading(false);
+    });
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [bookId]);
 
@@ -71,7 +78,6 @@ export default function BookAvailability({ bookId, userId: userIdProp }) {
     try {
       const resp = await borrowByBook(bookId, userId);
       setMsg({ type: "success", text: `Borrowed copy ${resp.bookCopyId}` });
-      await refresh();
     } catch (err) {
       if (err && err.status === 409) {
         setMsg({ type: "error", text: err.body?.error || "No copy available right now." });
@@ -95,7 +101,6 @@ export default function BookAvailability({ bookId, userId: userIdProp }) {
     try {
       const resp = await borrowSpecificCopy({ bookCopyId: copyId, userId });
       setMsg({ type: "success", text: `Borrowed copy ${resp.bookCopyId}` });
-      await refresh();
     } catch (err) {
       if (err && err.status === 409) {
         setMsg({ type: "error", text: err.body?.error || "Copy not available" });
@@ -40,7 +40,7 @@ export default function BorrowHistory() {
               <div className="small text-muted">Issued: {b.issuedOn} • Due: {b.dueOn} • Status: {b.status}</div>
             </div>
             <div>
-              {b.status === "ACTIVE" && <Button variant="outline-danger" size="sm" onClick={()=>handleReturn(b)}>Return</Button>}
+              {(b.status === "ACTIVE" || b.status === "OVERDUE") && <Button variant="outline-danger" size="sm" onClick={()=>handleReturn(b)}>Return</Button>}
             </div>
           </li>
         ))}